@@ -0,0 +1,91 @@
+package cn.vorbote.benchmarks;
+
+import cn.vorbote.core.time.TimeSpan;
+import cn.vorbote.simplejwt.AccessKeyUtil;
+import cn.vorbote.simplejwt.VerifiedTokenCache;
+import cn.vorbote.simplejwt.choices.JwtAlgorithm;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare {@link AccessKeyUtil}, which builds its algorithm and verifier once, with building them per call as it used
+ * to do, and with the optional {@link VerifiedTokenCache}.
+ *
+ * @author vorbote
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccessKeyUtilBenchmark {
+
+    private static final String SECRET = "a-secret-long-enough-for-hmac-sha-256";
+
+    private static final String ISSUER = "vorbote";
+
+    private static final TimeSpan EXPIRE = TimeSpan.builder().hours(1).build();
+
+    private static final String[] AUDIENCE = {"benchmark"};
+
+    private static final Map<String, Object> CLAIMS = Map.of("role", "admin", "tenant", "42");
+
+    private AccessKeyUtil util;
+
+    private AccessKeyUtil cachingUtil;
+
+    private String token;
+
+    @Setup
+    public void setup() {
+        util = new AccessKeyUtil(JwtAlgorithm.HS256, SECRET, ISSUER);
+        cachingUtil = new AccessKeyUtil(JwtAlgorithm.HS256, SECRET, ISSUER);
+        cachingUtil.setTokenCache(new VerifiedTokenCache(1024, Duration.ofMinutes(5)));
+        token = util.createToken(EXPIRE, "user", AUDIENCE, CLAIMS);
+    }
+
+    @Benchmark
+    public String createToken() {
+        return util.createToken(EXPIRE, "user", AUDIENCE, CLAIMS);
+    }
+
+    @Benchmark
+    public String createTokenRebuildingAlgorithm() {
+        Date now = new Date();
+        return JWT.create()
+                .withIssuer(ISSUER)
+                .withIssuedAt(now)
+                .withNotBefore(now)
+                .withAudience(AUDIENCE)
+                .withSubject("user")
+                .withExpiresAt(new Date(now.getTime() + EXPIRE.getTotalSeconds() * 1000))
+                .withJWTId(UUID.randomUUID().toString())
+                .withClaim("role", "admin")
+                .withClaim("tenant", "42")
+                .sign(Algorithm.HMAC256(SECRET));
+    }
+
+    @Benchmark
+    public DecodedJWT verify() {
+        return util.info(token);
+    }
+
+    @Benchmark
+    public DecodedJWT verifyRebuildingVerifier() {
+        return JWT.require(Algorithm.HMAC256(SECRET)).build().verify(token);
+    }
+
+    @Benchmark
+    public DecodedJWT verifyWithTokenCache() {
+        return cachingUtil.info(token);
+    }
+}
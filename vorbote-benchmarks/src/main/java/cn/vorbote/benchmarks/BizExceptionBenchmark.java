@@ -0,0 +1,75 @@
+package cn.vorbote.benchmarks;
+
+import cn.vorbote.web.exceptions.BizException;
+import cn.vorbote.web.utils.BizAssert;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the costs of a failing {@link BizAssert} caught by its caller: a default {@link BizException} filling in
+ * its stack trace, a new one created by {@link BizException#withoutStackTrace(int, String)}, and a shared instance
+ * got by {@link BizException#constant(int, String)}. The assertion is made {@code depth} frames below the catch, as a
+ * controller would be below the filters of a servlet container, since the stack trace costs more as the stack grows.
+ *
+ * @author vorbote
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BizExceptionBenchmark {
+
+    private static final BizException USER_NOT_FOUND = BizException.constant(404, "User not found.");
+
+    @Param({"0", "100"})
+    private int depth;
+
+    @Benchmark
+    public int defaultStackTrace() {
+        try {
+            return assertAt(depth, 0);
+        } catch (BizException e) {
+            return e.getCode();
+        }
+    }
+
+    @Benchmark
+    public int withoutStackTrace() {
+        try {
+            return assertAt(depth, 1);
+        } catch (BizException e) {
+            return e.getCode();
+        }
+    }
+
+    @Benchmark
+    public int constant() {
+        try {
+            return assertAt(depth, 2);
+        } catch (BizException e) {
+            return e.getCode();
+        }
+    }
+
+    /**
+     * Make a failing assertion after descending the given frames.
+     *
+     * @param depth The frames to descend.
+     * @param kind  0 for a default exception, 1 for a new one without the stack trace, 2 for the constant one.
+     * @return Never returns normally.
+     */
+    private static int assertAt(int depth, int kind) {
+        if (depth > 0) {
+            return assertAt(depth - 1, kind) + 1;
+        }
+        switch (kind) {
+            case 0 -> BizAssert.notNull(null, 404, "User not found.");
+            case 1 -> BizAssert.notNull(null, BizException.withoutStackTrace(404, "User not found."));
+            default -> BizAssert.notNull(null, USER_NOT_FOUND);
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,66 @@
+package cn.vorbote.benchmarks;
+
+import cn.vorbote.core.constants.Hash;
+import cn.vorbote.core.utils.HashUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare {@link HashUtil#encrypt(Hash, String)}, which reuses the digests of each thread and encodes hex through a
+ * table, with the way it used to work: a new {@link MessageDigest} per call and hex encoded by
+ * {@link Integer#toHexString(int)}.
+ *
+ * @author vorbote
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashUtilBenchmark {
+
+    @Param({"MD5", "SHA_256"})
+    private Hash method;
+
+    @Param({"32", "1024"})
+    private int length;
+
+    private String value;
+
+    @Setup
+    public void setup() {
+        char[] chars = new char[length];
+        Random random = new Random(length);
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        value = new String(chars);
+    }
+
+    @Benchmark
+    public String hashUtil() {
+        return HashUtil.encrypt(method, value);
+    }
+
+    @Benchmark
+    public String newDigestPerCall() throws NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance(method.toString());
+        md.update(value.getBytes(StandardCharsets.UTF_8));
+        byte[] bytes = md.digest();
+        StringBuilder builder = new StringBuilder();
+        for (byte b : bytes) {
+            String str = Integer.toHexString(b & 0xff);
+            if (str.length() == 1) {
+                builder.append("0");
+            }
+            builder.append(str);
+        }
+        return builder.toString();
+    }
+}
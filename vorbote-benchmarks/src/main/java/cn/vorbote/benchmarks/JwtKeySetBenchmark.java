@@ -0,0 +1,109 @@
+package cn.vorbote.benchmarks;
+
+import cn.vorbote.core.time.TimeSpan;
+import cn.vorbote.simplejwt.AccessKeyUtil;
+import cn.vorbote.simplejwt.choices.JwtAlgorithm;
+import cn.vorbote.simplejwt.keys.JwtKeySet;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the RS and ES tokens of {@link AccessKeyUtil} backed by a {@link JwtKeySet}, whose keys are looked up by
+ * their ids on every call so they can be rotated at runtime, with an {@link Algorithm} holding the same keys directly.
+ * The difference is the cost of the key set, the rest is the cost of the signature itself.
+ *
+ * @author vorbote
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtKeySetBenchmark {
+
+    private static final String ISSUER = "vorbote";
+
+    private static final TimeSpan EXPIRE = TimeSpan.builder().hours(1).build();
+
+    private static final String[] AUDIENCE = {"benchmark"};
+
+    private static final Map<String, Object> CLAIMS = Map.of("role", "admin", "tenant", "42");
+
+    @Param({"RS256", "ES256"})
+    private JwtAlgorithm algorithm;
+
+    private AccessKeyUtil util;
+
+    private Algorithm staticAlgorithm;
+
+    private JWTVerifier staticVerifier;
+
+    private String token;
+
+    private String staticToken;
+
+    @Setup
+    public void setup() throws NoSuchAlgorithmException {
+        KeyPair pair;
+        if (algorithm == JwtAlgorithm.RS256) {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            pair = generator.generateKeyPair();
+            staticAlgorithm = Algorithm.RSA256((RSAPublicKey) pair.getPublic(), (RSAPrivateKey) pair.getPrivate());
+        } else {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(256);
+            pair = generator.generateKeyPair();
+            staticAlgorithm = Algorithm.ECDSA256((ECPublicKey) pair.getPublic(), (ECPrivateKey) pair.getPrivate());
+        }
+        util = new AccessKeyUtil(algorithm, JwtKeySet.of("key-1", pair.getPublic(), pair.getPrivate()), ISSUER);
+        staticVerifier = JWT.require(staticAlgorithm).withIssuer(ISSUER).build();
+        token = util.createToken(EXPIRE, "user", AUDIENCE, CLAIMS);
+        staticToken = staticSign();
+    }
+
+    @Benchmark
+    public String signWithKeySet() {
+        return util.createToken(EXPIRE, "user", AUDIENCE, CLAIMS);
+    }
+
+    @Benchmark
+    public String signWithStaticKey() {
+        return staticSign();
+    }
+
+    @Benchmark
+    public DecodedJWT verifyWithKeySet() {
+        return util.info(token);
+    }
+
+    @Benchmark
+    public DecodedJWT verifyWithStaticKey() {
+        return staticVerifier.verify(staticToken);
+    }
+
+    private String staticSign() {
+        return JWT.create()
+                .withIssuer(ISSUER)
+                .withSubject("user")
+                .withAudience(AUDIENCE)
+                .withKeyId("key-1")
+                .withClaim("role", "admin")
+                .withClaim("tenant", "42")
+                .sign(staticAlgorithm);
+    }
+}
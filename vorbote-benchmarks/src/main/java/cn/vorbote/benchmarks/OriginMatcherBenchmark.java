@@ -0,0 +1,68 @@
+package cn.vorbote.benchmarks;
+
+import cn.vorbote.web.filter.OriginMatcher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare {@link OriginMatcher}, which walks the reversed host labels of the request origin through one trie, with
+ * the linear {@link String#equalsIgnoreCase(String)} scan of the allowed origins it replaced. The allowed origins are
+ * one exact origin per tenant and a subdomain pattern of the last tenant, the request origins are an exact origin at
+ * the end of the list, a subdomain allowed by the pattern and an origin which isn't allowed at all.
+ *
+ * @author vorbote
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OriginMatcherBenchmark {
+
+    @Param({"10", "10000"})
+    private int size;
+
+    @Param({"exact", "subdomain", "rejected"})
+    private String request;
+
+    private String[] origins;
+
+    private OriginMatcher matcher;
+
+    private String origin;
+
+    @Setup
+    public void setup() {
+        origins = new String[size];
+        for (int i = 0; i < size - 1; i++) {
+            origins[i] = "https://tenant" + i + ".example.com";
+        }
+        origins[size - 1] = "https://*.tenant" + (size - 1) + ".example.com";
+        matcher = OriginMatcher.compile(origins);
+        origin = switch (request) {
+            case "exact" -> "https://TENANT" + (size - 2) + ".example.com";
+            case "subdomain" -> "https://app.tenant" + (size - 1) + ".example.com";
+            default -> "https://unknown.example.org";
+        };
+    }
+
+    @Benchmark
+    public boolean originMatcher() {
+        return matcher.matches(origin);
+    }
+
+    /**
+     * The linear scan can only match exact origins, so it never allows the subdomain.
+     */
+    @Benchmark
+    public boolean linearScan() {
+        for (String allowed : origins) {
+            if (allowed.equalsIgnoreCase(origin)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,72 @@
+package cn.vorbote.benchmarks;
+
+import cn.vorbote.core.utils.ConcurrentSnowFlake;
+import cn.vorbote.core.utils.ShardedSnowFlake;
+import cn.vorbote.core.utils.SnowFlake;
+import cn.vorbote.core.utils.SnowFlakeLayout;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare {@link ShardedSnowFlake} with a single {@link ConcurrentSnowFlake}, both by one hot thread, which must not be
+ * throttled by the part of the sequence owned by its shard, and by 4 threads contending for the generator.
+ * <p>
+ * With the default layout a hot thread is bound by the 4096 ids of a tick, each of 8 shards owns only 512 of them. The
+ * {@code wide} layout has 20 sequence bits, so the tick capacity doesn't hide the cost of the generators.
+ *
+ * @author vorbote
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShardedSnowFlakeBenchmark {
+
+    @Param({"8"})
+    private int shards;
+
+    @Param({"default", "wide"})
+    private String layout;
+
+    private ConcurrentSnowFlake concurrentSnowFlake;
+
+    private ShardedSnowFlake shardedSnowFlake;
+
+    @Setup
+    public void setup() {
+        SnowFlake.Builder builder = SnowFlake.builder()
+                .startEpoch(System.currentTimeMillis())
+                .layout("wide".equals(layout) ? new SnowFlakeLayout(5, 5, 20, 1L) : SnowFlakeLayout.DEFAULT)
+                .workerId(1)
+                .dataCentreId(1);
+        concurrentSnowFlake = builder.buildConcurrent();
+        shardedSnowFlake = builder.buildSharded(shards);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long concurrentOneThread() {
+        return concurrentSnowFlake.nextId();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long shardedOneThread() {
+        return shardedSnowFlake.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long concurrentFourThreads() {
+        return concurrentSnowFlake.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long shardedFourThreads() {
+        return shardedSnowFlake.nextId();
+    }
+}
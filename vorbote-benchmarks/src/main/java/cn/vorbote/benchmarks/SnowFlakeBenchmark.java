@@ -0,0 +1,65 @@
+package cn.vorbote.benchmarks;
+
+import cn.vorbote.core.utils.ConcurrentSnowFlake;
+import cn.vorbote.core.utils.SnowFlake;
+import cn.vorbote.core.utils.SnowFlakeLayout;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the synchronized {@link SnowFlake} with the lock-free {@link ConcurrentSnowFlake} and its batch allocation.
+ * <p>
+ * With the default layout every generator is capped at 4096 ids per millisecond, so the {@code wide} layout with 20
+ * sequence bits is measured as well to show the cost of the generators themselves. Run with {@code -t} to measure
+ * the contention of more threads, such as {@code -t 4}.
+ *
+ * @author vorbote
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnowFlakeBenchmark {
+
+    /**
+     * Ids fetched by one call of the batch benchmark.
+     */
+    private static final int BATCH = 64;
+
+    @Param({"default", "wide"})
+    private String layout;
+
+    private SnowFlake snowFlake;
+
+    private ConcurrentSnowFlake concurrentSnowFlake;
+
+    @Setup
+    public void setup() {
+        SnowFlake.Builder builder = SnowFlake.builder()
+                .startEpoch(System.currentTimeMillis())
+                .layout("wide".equals(layout) ? new SnowFlakeLayout(5, 5, 20, 1L) : SnowFlakeLayout.DEFAULT)
+                .workerId(1)
+                .dataCentreId(1);
+        snowFlake = builder.build();
+        concurrentSnowFlake = builder.buildConcurrent();
+    }
+
+    @Benchmark
+    public long synchronizedNextId() {
+        return snowFlake.nextId();
+    }
+
+    @Benchmark
+    public long concurrentNextId() {
+        return concurrentSnowFlake.nextId();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long[] concurrentNextIds() {
+        return concurrentSnowFlake.nextIds(BATCH);
+    }
+}
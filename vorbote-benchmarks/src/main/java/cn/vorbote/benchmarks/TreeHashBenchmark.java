@@ -0,0 +1,64 @@
+package cn.vorbote.benchmarks;
+
+import cn.vorbote.core.constants.Hash;
+import cn.vorbote.core.utils.HashUtil;
+import cn.vorbote.core.utils.TreeDigest;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the parallel {@link HashUtil#treeHash(Hash, Path)} with the sequential {@link HashUtil#digest(Hash, Path)}
+ * of a file. The tree hash scales with the cores of the common pool, so run this on the machine whose cores matter.
+ *
+ * @author vorbote
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TreeHashBenchmark {
+
+    @Param({"SHA_256"})
+    private Hash method;
+
+    @Param({"67108864"})
+    private long size;
+
+    private Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        file = Files.createTempFile("vorbote-tree-hash", ".bin");
+        byte[] block = new byte[1 << 20];
+        Random random = new Random(size);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (long written = 0; written < size; written += block.length) {
+                random.nextBytes(block);
+                out.write(block, 0, (int) Math.min(block.length, size - written));
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public byte[] sequentialDigest() throws IOException {
+        return HashUtil.digest(method, file);
+    }
+
+    @Benchmark
+    public TreeDigest treeHash() throws IOException {
+        return HashUtil.treeHash(method, file);
+    }
+}
@@ -0,0 +1,44 @@
+package cn.vorbote.core.constants;
+
+import lombok.Getter;
+
+import java.util.Base64;
+
+/**
+ * This is an enum class for {@code HashUtil} and supplied all supported Base64 alphabets.
+ *
+ * @author vorbote
+ */
+@Getter
+public enum Base64Mode {
+
+    /**
+     * The basic alphabet of RFC 4648, no line separator will be added.
+     */
+    BASIC(Base64.getEncoder(), Base64.getDecoder()),
+
+    /**
+     * The URL and filename safe alphabet of RFC 4648, no line separator will be added.
+     */
+    URL_SAFE(Base64.getUrlEncoder(), Base64.getUrlDecoder()),
+
+    /**
+     * The MIME alphabet of RFC 2045, lines are separated by CRLF every 76 characters.
+     */
+    MIME(Base64.getMimeEncoder(), Base64.getMimeDecoder());
+
+    /**
+     * The encoder of this mode.
+     */
+    private final Base64.Encoder encoder;
+
+    /**
+     * The decoder of this mode.
+     */
+    private final Base64.Decoder decoder;
+
+    Base64Mode(Base64.Encoder encoder, Base64.Decoder decoder) {
+        this.encoder = encoder;
+        this.decoder = decoder;
+    }
+}
@@ -0,0 +1,31 @@
+package cn.vorbote.core.constants;
+
+/**
+ * This is an enum class for {@code SnowFlake} generators and supplied all strategies to take when the system clock
+ * moves backwards.
+ *
+ * @author vorbote
+ */
+public enum ClockRollbackStrategy {
+
+    /**
+     * Refuse to generate id and throw a {@code SnowFlakeException}.
+     */
+    THROW,
+
+    /**
+     * Keep issuing ids from the last issued millisecond, and borrow the following milliseconds once its sequence is
+     * exhausted, as long as the borrowed time does not run ahead of the clock more than the allowed drift.
+     */
+    BORROW,
+
+    /**
+     * Issue ids with the reserved standby worker id and data centre id until the clock catches up.
+     */
+    STANDBY,
+
+    /**
+     * Park the caller until the clock catches up, as long as the drift is not greater than the allowed drift.
+     */
+    WAIT
+}
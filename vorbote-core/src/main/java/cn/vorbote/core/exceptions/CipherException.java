@@ -0,0 +1,29 @@
+package cn.vorbote.core.exceptions;
+
+/**
+ * This exception means a cipher failed to encrypt or decrypt the data, for example the key is invalid or the
+ * encrypted data has been tampered.
+ *
+ * @author vorbote
+ */
+public class CipherException extends RuntimeException {
+
+    /**
+     * Create a {@code CipherException} with a message.
+     *
+     * @param message the exception message
+     */
+    public CipherException(String message) {
+        super(message);
+    }
+
+    /**
+     * Create a {@code CipherException} with a message and its cause.
+     *
+     * @param message the exception message
+     * @param cause   the cause of the exception
+     */
+    public CipherException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -22,4 +22,14 @@ public class SnowFlakeException extends RuntimeException {
     public SnowFlakeException(String message) {
         super(message);
     }
+
+    /**
+     * Create a {@code SnowFlakeException} with a message and its cause.
+     *
+     * @param message the exception message
+     * @param cause   the cause of the exception
+     */
+    public SnowFlakeException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
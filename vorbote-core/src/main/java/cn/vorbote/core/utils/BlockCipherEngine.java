@@ -0,0 +1,215 @@
+package cn.vorbote.core.utils;
+
+import cn.vorbote.core.constants.Hash;
+import cn.vorbote.core.exceptions.CipherException;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+
+/**
+ * BlockCipherEngine is the {@link CipherEngine} of AES and DES. The key is derived from the SHA-256 of the given key
+ * once, and the {@link Cipher} instances are pooled per thread, every operation only initializes the pooled cipher
+ * with a fresh IV.
+ *
+ * @author vorbote
+ */
+final class BlockCipherEngine extends CipherEngine {
+
+    /**
+     * Length of the GCM authentication tag in bytes.
+     */
+    private static final int TAG_LENGTH = 16;
+
+    /**
+     * Random source of the IVs.
+     */
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * Pooled AES ciphers.
+     */
+    private static final ThreadLocal<Cipher> AES = ThreadLocal.withInitial(() -> newCipher("AES/GCM/NoPadding"));
+
+    /**
+     * Pooled DES ciphers.
+     */
+    private static final ThreadLocal<Cipher> DES = ThreadLocal.withInitial(() -> newCipher("DES/CBC/PKCS5Padding"));
+
+    /**
+     * The encryption algorithm.
+     */
+    private final Hash method;
+
+    /**
+     * The derived key.
+     */
+    private final SecretKeySpec key;
+
+    /**
+     * Length of the IV in bytes.
+     */
+    private final int ivLength;
+
+    /**
+     * Create an engine and derive the key.
+     *
+     * @param method The encryption algorithm, {@link Hash#AES} or {@link Hash#DES}.
+     * @param key    The key, must not be empty.
+     */
+    BlockCipherEngine(Hash method, byte[] key) {
+        this.method = method;
+        byte[] derived = HashUtil.digest(Hash.SHA_256, key);
+        if (method == Hash.AES) {
+            this.key = new SecretKeySpec(derived, "AES");
+            this.ivLength = 12;
+        } else {
+            this.key = new SecretKeySpec(derived, 0, 8, "DES");
+            this.ivLength = 8;
+        }
+    }
+
+    /**
+     * Create a cipher.
+     *
+     * @param transformation The transformation.
+     * @return The cipher.
+     */
+    private static Cipher newCipher(String transformation) {
+        try {
+            return Cipher.getInstance(transformation);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            throw new CipherException(String.format("Cipher %s is not available.", transformation), e);
+        }
+    }
+
+    /**
+     * Get the pooled cipher of current thread and initialize it.
+     *
+     * @param mode The cipher mode.
+     * @param iv   The IV.
+     * @return The cipher.
+     */
+    private Cipher cipher(int mode, byte[] iv) {
+        Cipher cipher = (method == Hash.AES ? AES : DES).get();
+        AlgorithmParameterSpec spec = method == Hash.AES
+                ? new GCMParameterSpec(TAG_LENGTH << 3, iv)
+                : new IvParameterSpec(iv);
+        try {
+            cipher.init(mode, key, spec);
+        } catch (GeneralSecurityException e) {
+            throw new CipherException("Failed to initialize the cipher.", e);
+        }
+        return cipher;
+    }
+
+    @Override
+    public Hash getMethod() {
+        return method;
+    }
+
+    @Override
+    public int encryptedSize(int length) {
+        return method == Hash.AES
+                ? ivLength + length + TAG_LENGTH
+                : ivLength + (length / 8 + 1) * 8;
+    }
+
+    @Override
+    public int decryptedSize(int length) {
+        return Math.max(0, length - ivLength);
+    }
+
+    @Override
+    public int encrypt(ByteBuffer input, ByteBuffer output) {
+        byte[] iv = new byte[ivLength];
+        RANDOM.nextBytes(iv);
+        Cipher cipher = cipher(Cipher.ENCRYPT_MODE, iv);
+        int start = output.position();
+        output.put(iv);
+        try {
+            cipher.doFinal(input, output);
+        } catch (ShortBufferException e) {
+            throw new IllegalArgumentException("Output buffer is too small.", e);
+        } catch (GeneralSecurityException e) {
+            throw new CipherException("Failed to encrypt the data.", e);
+        }
+        return output.position() - start;
+    }
+
+    @Override
+    public int decrypt(ByteBuffer input, ByteBuffer output) {
+        if (input.remaining() < ivLength) {
+            throw new CipherException("The encrypted data is too short.");
+        }
+        byte[] iv = new byte[ivLength];
+        input.get(iv);
+        Cipher cipher = cipher(Cipher.DECRYPT_MODE, iv);
+        try {
+            return cipher.doFinal(input, output);
+        } catch (ShortBufferException e) {
+            throw new IllegalArgumentException("Output buffer is too small.", e);
+        } catch (GeneralSecurityException e) {
+            throw new CipherException("Failed to decrypt the data.", e);
+        }
+    }
+
+    @Override
+    public long encrypt(ReadableByteChannel input, WritableByteChannel output) throws IOException {
+        byte[] iv = new byte[ivLength];
+        RANDOM.nextBytes(iv);
+        long written = writeFully(output, ByteBuffer.wrap(iv));
+        return written + transfer(cipher(Cipher.ENCRYPT_MODE, iv), input, output);
+    }
+
+    @Override
+    public long decrypt(ReadableByteChannel input, WritableByteChannel output) throws IOException {
+        ByteBuffer iv = ByteBuffer.allocate(ivLength);
+        while (iv.hasRemaining()) {
+            if (input.read(iv) == -1) {
+                throw new CipherException("The encrypted data is too short.");
+            }
+        }
+        return transfer(cipher(Cipher.DECRYPT_MODE, iv.array()), input, output);
+    }
+
+    /**
+     * Read the input channel to its end, process the data by the initialized cipher and write the result to the
+     * output channel. In GCM decryption, the cipher holds the data until the tag is verified.
+     *
+     * @param cipher The initialized cipher.
+     * @param input  The input channel.
+     * @param output The output channel.
+     * @return The count of written bytes.
+     * @throws IOException If an I/O error occurs.
+     */
+    private static long transfer(Cipher cipher, ReadableByteChannel input, WritableByteChannel output)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long written = 0;
+        try {
+            while (input.read(buffer) != -1) {
+                byte[] result = cipher.update(buffer.array(), 0, buffer.position());
+                if (result != null) {
+                    written += writeFully(output, ByteBuffer.wrap(result));
+                }
+                buffer.clear();
+            }
+            written += writeFully(output, ByteBuffer.wrap(cipher.doFinal()));
+        } catch (GeneralSecurityException e) {
+            throw new CipherException("Failed to process the data.", e);
+        }
+        return written;
+    }
+}
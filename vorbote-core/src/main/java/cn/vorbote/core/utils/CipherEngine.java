@@ -0,0 +1,193 @@
+package cn.vorbote.core.utils;
+
+import cn.vorbote.core.constants.Hash;
+import cn.vorbote.core.exceptions.UnsupportedHashAlgorithmException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * CipherEngine is a reusable cipher bound to one key. The key is prepared once when the engine is created, so
+ * encrypting or decrypting with the same key many times does not pay for it again. An engine is thread-safe and can
+ * be shared.
+ * <p>
+ * All supported methods:
+ * <ul>
+ *     <li>{@link Hash#RC4} - Stream cipher, the output has the same length as the input, see {@link Rc4CipherEngine}.</li>
+ *     <li>{@link Hash#AES} - AES-256 in GCM mode, the output is prefixed by a random IV and suffixed by the tag.</li>
+ *     <li>{@link Hash#DES} - DES in CBC mode with PKCS#5 padding, the output is prefixed by a random IV.</li>
+ * </ul>
+ *
+ * @author vorbote
+ */
+public abstract class CipherEngine {
+
+    /**
+     * Size of the buffer used when streaming channels.
+     */
+    static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Only the engines in this package are allowed.
+     */
+    CipherEngine() {
+    }
+
+    /**
+     * Create an engine with a string key, the key will be encoded by UTF-8.
+     *
+     * @param method The encryption algorithm.
+     * @param key    The key.
+     * @return The engine.
+     * @throws UnsupportedHashAlgorithmException If the method is not an encryption algorithm.
+     * @throws IllegalArgumentException          If the key is empty.
+     */
+    public static CipherEngine of(Hash method, String key) {
+        return of(method, key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Create an engine with a key.
+     *
+     * @param method The encryption algorithm.
+     * @param key    The key.
+     * @return The engine.
+     * @throws UnsupportedHashAlgorithmException If the method is not an encryption algorithm.
+     * @throws IllegalArgumentException          If the key is empty.
+     */
+    public static CipherEngine of(Hash method, byte[] key) {
+        if (key.length == 0) {
+            throw new IllegalArgumentException("Key must not be empty.");
+        }
+        return switch (method) {
+            case RC4 -> new Rc4CipherEngine(key);
+            case AES, DES -> new BlockCipherEngine(method, key);
+            default -> throw new UnsupportedHashAlgorithmException(method.getValue());
+        };
+    }
+
+    /**
+     * Get the encryption algorithm of this engine.
+     *
+     * @return The encryption algorithm.
+     */
+    public abstract Hash getMethod();
+
+    /**
+     * Get the max length of the encrypted data.
+     *
+     * @param length The length of the original data.
+     * @return The max length of the encrypted data.
+     */
+    public abstract int encryptedSize(int length);
+
+    /**
+     * Get the max length of the decrypted data.
+     *
+     * @param length The length of the encrypted data.
+     * @return The max length of the decrypted data.
+     */
+    public abstract int decryptedSize(int length);
+
+    /**
+     * Encrypt the data.
+     *
+     * @param data The original data.
+     * @return The encrypted data.
+     */
+    public byte[] encrypt(byte[] data) {
+        ByteBuffer output = ByteBuffer.allocate(encryptedSize(data.length));
+        encrypt(ByteBuffer.wrap(data), output);
+        return trim(output);
+    }
+
+    /**
+     * Decrypt the data.
+     *
+     * @param data The encrypted data.
+     * @return The original data.
+     * @throws cn.vorbote.core.exceptions.CipherException If the data can not be decrypted.
+     */
+    public byte[] decrypt(byte[] data) {
+        ByteBuffer output = ByteBuffer.allocate(decryptedSize(data.length));
+        decrypt(ByteBuffer.wrap(data), output);
+        return trim(output);
+    }
+
+    /**
+     * Encrypt the remaining bytes of the input into the output. The position of the input will be moved to its limit
+     * and the position of the output will be moved after the written bytes.
+     *
+     * @param input  The original data.
+     * @param output The buffer to write the encrypted data, must have at least {@link #encryptedSize(int)} bytes
+     *               remaining.
+     * @return The count of written bytes.
+     */
+    public abstract int encrypt(ByteBuffer input, ByteBuffer output);
+
+    /**
+     * Decrypt the remaining bytes of the input into the output. The position of the input will be moved to its limit
+     * and the position of the output will be moved after the written bytes.
+     *
+     * @param input  The encrypted data.
+     * @param output The buffer to write the original data, must have at least {@link #decryptedSize(int)} bytes
+     *               remaining.
+     * @return The count of written bytes.
+     * @throws cn.vorbote.core.exceptions.CipherException If the data can not be decrypted.
+     */
+    public abstract int decrypt(ByteBuffer input, ByteBuffer output);
+
+    /**
+     * Read the input channel to its end and write the encrypted data to the output channel. Neither channel will be
+     * closed.
+     *
+     * @param input  The channel of the original data.
+     * @param output The channel to write the encrypted data.
+     * @return The count of written bytes.
+     * @throws IOException If an I/O error occurs.
+     */
+    public abstract long encrypt(ReadableByteChannel input, WritableByteChannel output) throws IOException;
+
+    /**
+     * Read the input channel to its end and write the decrypted data to the output channel. Neither channel will be
+     * closed.
+     *
+     * @param input  The channel of the encrypted data.
+     * @param output The channel to write the original data.
+     * @return The count of written bytes.
+     * @throws IOException                                If an I/O error occurs.
+     * @throws cn.vorbote.core.exceptions.CipherException If the data can not be decrypted.
+     */
+    public abstract long decrypt(ReadableByteChannel input, WritableByteChannel output) throws IOException;
+
+    /**
+     * Write all remaining bytes of the buffer to the channel.
+     *
+     * @param channel The channel.
+     * @param buffer  The buffer.
+     * @return The count of written bytes.
+     * @throws IOException If an I/O error occurs.
+     */
+    static int writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        int written = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        return written;
+    }
+
+    /**
+     * Get the written bytes of a heap buffer, the backing array is returned directly if it's full.
+     *
+     * @param buffer The heap buffer.
+     * @return The written bytes.
+     */
+    private static byte[] trim(ByteBuffer buffer) {
+        byte[] array = buffer.array();
+        return buffer.position() == array.length ? array : Arrays.copyOf(array, buffer.position());
+    }
+}
@@ -0,0 +1,83 @@
+package cn.vorbote.core.utils;
+
+import cn.vorbote.core.constants.ClockRollbackStrategy;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Tells a {@code SnowFlake} generator what to do when the system clock moves backwards.
+ *
+ * @author vorbote
+ */
+@Getter
+@Builder
+@ToString
+public final class ClockRollbackPolicy {
+
+    /**
+     * The strategy to take.
+     */
+    @Builder.Default
+    private final ClockRollbackStrategy strategy = ClockRollbackStrategy.THROW;
+
+    /**
+     * The max drift (unit: millisecond) can be tolerated, the generator will refuse to generate id once the drift is
+     * greater than this value.
+     */
+    @Builder.Default
+    private final long maxDriftMillis = 0L;
+
+    /**
+     * The reserved worker id used by strategy {@link ClockRollbackStrategy#STANDBY}.
+     */
+    @Builder.Default
+    private final long standbyWorkerId = -1L;
+
+    /**
+     * The reserved data centre id used by strategy {@link ClockRollbackStrategy#STANDBY}.
+     */
+    @Builder.Default
+    private final long standbyDataCentreId = -1L;
+
+    /**
+     * Get a policy which refuses to generate id when the clock moves backwards.
+     *
+     * @return A policy with the strategy {@link ClockRollbackStrategy#THROW}.
+     */
+    public static ClockRollbackPolicy reject() {
+        return ClockRollbackPolicy.builder().build();
+    }
+
+    /**
+     * Check whether this policy is acceptable for a generator with specified ids.
+     *
+     * @param workerId        The worker id of the generator.
+     * @param dataCentreId    The data centre id of the generator.
+     * @param maxWorkerId     The max worker id of the generator.
+     * @param maxDataCentreId The max data centre id of the generator.
+     */
+    void validate(long workerId, long dataCentreId, long maxWorkerId, long maxDataCentreId) {
+        if (strategy == null) {
+            throw new IllegalArgumentException("Clock rollback strategy can not be null!");
+        }
+
+        if (maxDriftMillis < 0) {
+            throw new IllegalArgumentException("Max drift can not be less than 0!");
+        }
+
+        if (strategy == ClockRollbackStrategy.STANDBY) {
+            if (standbyWorkerId > maxWorkerId || standbyWorkerId < 0) {
+                throw new IllegalArgumentException(String.format(
+                        "Standby Worker Id can't be greater than %d or less than 0", maxWorkerId));
+            }
+            if (standbyDataCentreId > maxDataCentreId || standbyDataCentreId < 0) {
+                throw new IllegalArgumentException(String.format(
+                        "Standby Data Centre Id can't be greater than %d or less than 0", maxDataCentreId));
+            }
+            if (standbyWorkerId == workerId && standbyDataCentreId == dataCentreId) {
+                throw new IllegalArgumentException("Standby ids can not be the same as the ids in use!");
+            }
+        }
+    }
+}
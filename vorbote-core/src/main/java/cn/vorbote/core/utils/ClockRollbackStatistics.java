@@ -0,0 +1,87 @@
+package cn.vorbote.core.utils;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of how often a {@code SnowFlake} generator applied each clock rollback strategy.
+ *
+ * @author vorbote
+ */
+public final class ClockRollbackStatistics {
+
+    private final LongAdder borrowed = new LongAdder();
+
+    private final LongAdder standby = new LongAdder();
+
+    private final LongAdder waited = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Package-private constructor, only the generators can create the statistics.
+     */
+    ClockRollbackStatistics() {
+    }
+
+    /**
+     * Get the count of ids issued from borrowed milliseconds.
+     *
+     * @return The count of borrowed ids.
+     */
+    public long getBorrowed() {
+        return borrowed.sum();
+    }
+
+    /**
+     * Get the count of ids issued with the standby worker id and data centre id.
+     *
+     * @return The count of standby ids.
+     */
+    public long getStandby() {
+        return standby.sum();
+    }
+
+    /**
+     * Get the count of times a caller parked to wait for the clock to catch up.
+     *
+     * @return The count of waits.
+     */
+    public long getWaited() {
+        return waited.sum();
+    }
+
+    /**
+     * Get the count of refused generations.
+     *
+     * @return The count of refused generations.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    void borrowed() {
+        borrowed.increment();
+    }
+
+    void borrowed(long count) {
+        borrowed.add(count);
+    }
+
+    void standby() {
+        standby.increment();
+    }
+
+    void waited() {
+        waited.increment();
+    }
+
+    void rejected() {
+        rejected.increment();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ClockRollbackStatistics(borrowed=%d, standby=%d, waited=%d, rejected=%d)",
+                getBorrowed(), getStandby(), getWaited(), getRejected());
+    }
+}
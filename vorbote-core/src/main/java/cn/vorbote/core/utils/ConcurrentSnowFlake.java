@@ -0,0 +1,417 @@
+package cn.vorbote.core.utils;
+
+import cn.vorbote.core.constants.ClockRollbackStrategy;
+import cn.vorbote.core.exceptions.SnowFlakeException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free Distributed Sequence Generator.
+ * <p>
+ * This generator issues the same ids as {@link SnowFlake}, but the last timestamp and the sequence are packed into a
+ * single {@link AtomicLong} and advanced by compare-and-set, so concurrent callers never block on a monitor. When the
+ * sequence of the current tick is exhausted, the caller parks until the next tick instead of spinning.
+ * <p>
+ * Use {@link SnowFlake#builder()} and {@link SnowFlake.Builder#buildConcurrent()} to customise the bit layout, the
+ * tick and the time source.
+ *
+ * @author vorbote
+ */
+public final class ConcurrentSnowFlake {
+
+    // region Fields
+
+    private final long startEpoch;
+
+    private final SnowFlake.Settings settings;
+
+    private final TimeSource timeSource;
+
+    private final long sequenceBits;
+
+    private final long sequenceMask;
+
+    private final long tickMillis;
+
+    private final ClockRollbackPolicy rollbackPolicy;
+
+    private final ClockRollbackStatistics rollbackStatistics;
+
+    /**
+     * Returned by {@link #tryNextId()} if the sequence of the current tick is exhausted, ids are never negative.
+     */
+    static final long EXHAUSTED = -1L;
+
+    /**
+     * The last issued state, packed as {@code ticks << sequenceBits | sequence}. It's padded, since the states of the
+     * shards of a {@link ShardedSnowFlake} are allocated next to each other.
+     */
+    private final AtomicLong state = new PaddedAtomicLong();
+
+    /**
+     * The last issued state with the standby node, packed in the same way as {@link #state}.
+     */
+    private final AtomicLong standbyState = new AtomicLong();
+    // endregion
+
+    // region Constructor
+
+    /**
+     * Constructor can build a new ConcurrentSnowFlake instance.
+     *
+     * @param workerId     The id of the server. (Should between 0 and 31)
+     * @param dataCentreId The id of the data centre. (Should between 0 and 31)
+     */
+    public ConcurrentSnowFlake(long workerId, long dataCentreId) {
+        this(SnowFlake.DEFAULT_START_EPOCH, workerId, dataCentreId);
+    }
+
+    /**
+     * Constructor can build a new ConcurrentSnowFlake instance.
+     *
+     * @param startEpoch   The start epoch to calculate.
+     * @param workerId     The id of the server. (Should between 0 and 31)
+     * @param dataCentreId The id of the data centre. (Should between 0 and 31)
+     */
+    public ConcurrentSnowFlake(long startEpoch, long workerId, long dataCentreId) {
+        this(startEpoch, workerId, dataCentreId, ClockRollbackPolicy.reject());
+    }
+
+    /**
+     * Constructor can build a new ConcurrentSnowFlake instance.
+     *
+     * @param startEpoch     The start epoch to calculate.
+     * @param workerId       The id of the server. (Should between 0 and 31)
+     * @param dataCentreId   The id of the data centre. (Should between 0 and 31)
+     * @param rollbackPolicy The policy to take when the clock moves backwards.
+     */
+    public ConcurrentSnowFlake(long startEpoch, long workerId, long dataCentreId, ClockRollbackPolicy rollbackPolicy) {
+        this(startEpoch, workerId, dataCentreId, SnowFlakeLayout.DEFAULT, TimeSource.system(), rollbackPolicy, null);
+    }
+
+    /**
+     * Constructor can build a new ConcurrentSnowFlake instance.
+     *
+     * @param startEpoch     The start epoch to calculate.
+     * @param workerId       The id of the server.
+     * @param dataCentreId   The id of the data centre.
+     * @param layout         The bit layout of ids.
+     * @param timeSource     The source of current time.
+     * @param rollbackPolicy The policy to take when the clock moves backwards.
+     * @param leaseKeeper    The keeper of the lease of the ids, {@code null} if the ids are not leased.
+     */
+    ConcurrentSnowFlake(long startEpoch, long workerId, long dataCentreId, SnowFlakeLayout layout,
+                        TimeSource timeSource, ClockRollbackPolicy rollbackPolicy, WorkerIdLeaseKeeper leaseKeeper) {
+        this(startEpoch, workerId, dataCentreId, layout, timeSource, rollbackPolicy, leaseKeeper,
+                new ClockRollbackStatistics());
+    }
+
+    /**
+     * Constructor can build a new ConcurrentSnowFlake instance shares the statistics with other generators.
+     *
+     * @param startEpoch         The start epoch to calculate.
+     * @param workerId           The id of the server.
+     * @param dataCentreId       The id of the data centre.
+     * @param layout             The bit layout of ids.
+     * @param timeSource         The source of current time.
+     * @param rollbackPolicy     The policy to take when the clock moves backwards.
+     * @param leaseKeeper        The keeper of the lease of the ids, {@code null} if the ids are not leased.
+     * @param rollbackStatistics The statistics to count the clock rollback strategies applied.
+     */
+    ConcurrentSnowFlake(long startEpoch, long workerId, long dataCentreId, SnowFlakeLayout layout,
+                        TimeSource timeSource, ClockRollbackPolicy rollbackPolicy, WorkerIdLeaseKeeper leaseKeeper,
+                        ClockRollbackStatistics rollbackStatistics) {
+        this.settings = new SnowFlake.Settings(startEpoch, workerId, dataCentreId, layout, timeSource,
+                rollbackPolicy, leaseKeeper);
+        this.startEpoch = startEpoch;
+        this.timeSource = timeSource;
+        this.sequenceBits = layout.getSequenceBits();
+        this.sequenceMask = settings.sequenceMask;
+        this.tickMillis = layout.getTickMillis();
+        this.rollbackPolicy = rollbackPolicy;
+        this.rollbackStatistics = rollbackStatistics;
+    }
+    // endregion
+
+    // region Methods
+
+    /**
+     * Get the counters of how often each clock rollback strategy was applied.
+     *
+     * @return The statistics of this generator.
+     */
+    public ClockRollbackStatistics getRollbackStatistics() {
+        return rollbackStatistics;
+    }
+
+    /**
+     * Decode an id generated by this generator.
+     *
+     * @param id The id.
+     * @return The parts of the id.
+     */
+    public SnowFlakeId decode(long id) {
+        return settings.layout.decode(id, startEpoch);
+    }
+
+    /**
+     * Get next unique id.
+     *
+     * @return A unique id.
+     */
+    public long nextId() {
+        return next(true);
+    }
+
+    /**
+     * Get next unique id if the sequence of the current tick is not exhausted.
+     *
+     * @return A unique id, or {@link #EXHAUSTED} if the sequence of the current tick is exhausted.
+     */
+    long tryNextId() {
+        return next(false);
+    }
+
+    /**
+     * Get next unique id.
+     *
+     * @param wait Whether to wait for the next tick if the sequence of the current tick is exhausted.
+     * @return A unique id, or {@link #EXHAUSTED} if the sequence is exhausted and {@code wait} is {@code false}.
+     */
+    private long next(boolean wait) {
+        settings.checkLease();
+        for (; ; ) {
+            long current = state.get();
+            long lastTimestamp = current >>> sequenceBits;
+            long timestamp = currentTicks();
+            long clock = timestamp;
+
+            if (timestamp < lastTimestamp) {
+                ClockRollbackStrategy strategy = onClockRollback(lastTimestamp, timestamp);
+                if (strategy == ClockRollbackStrategy.STANDBY) {
+                    return nextStandbyId(timestamp);
+                } else if (strategy == ClockRollbackStrategy.WAIT) {
+                    continue;
+                }
+                timestamp = lastTimestamp;
+            }
+
+            long next;
+            if (timestamp > lastTimestamp) {
+                next = timestamp << sequenceBits;
+            } else if ((current & sequenceMask) < sequenceMask) {
+                next = current + 1;
+            } else if (canBorrow(lastTimestamp + 1, clock)) {
+                next = (lastTimestamp + 1) << sequenceBits;
+            } else if (wait) {
+                // Sequence of this tick is exhausted, wait for the next one.
+                awaitToNextTick(lastTimestamp);
+                continue;
+            } else {
+                return EXHAUSTED;
+            }
+
+            checkTicks(next >>> sequenceBits);
+            if (state.compareAndSet(current, next)) {
+                if ((next >>> sequenceBits) > clock) {
+                    rollbackStatistics.borrowed();
+                }
+                return settings.layout.compose(next >>> sequenceBits, settings.node, next & sequenceMask);
+            }
+        }
+    }
+
+    /**
+     * Get a batch of unique ids. Each compare-and-set claims the whole remaining sequence range of the current tick,
+     * therefore a batch costs one atomic operation per tick it spans rather than one per id.
+     *
+     * @param n The count of ids required.
+     * @return An array contains {@code n} unique ids.
+     */
+    public long[] nextIds(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Count of ids can not be less than 0.");
+        }
+
+        long[] ids = new long[n];
+        fill(ids, 0, true);
+        return ids;
+    }
+
+    /**
+     * Fill the array with unique ids in batches, see {@link #nextIds(int)}.
+     *
+     * @param ids    The array to fill.
+     * @param filled The count of ids already in the array.
+     * @param wait   Whether to wait for the next tick if the sequence of the current tick is exhausted.
+     * @return The count of ids in the array, less than its length only if the sequence is exhausted and
+     * {@code wait} is {@code false}.
+     */
+    int fill(long[] ids, int filled, boolean wait) {
+        settings.checkLease();
+        int n = ids.length;
+        while (filled < n) {
+            long current = state.get();
+            long lastTimestamp = current >>> sequenceBits;
+            long timestamp = currentTicks();
+            long clock = timestamp;
+
+            if (timestamp < lastTimestamp) {
+                ClockRollbackStrategy strategy = onClockRollback(lastTimestamp, timestamp);
+                if (strategy == ClockRollbackStrategy.STANDBY) {
+                    ids[filled++] = nextStandbyId(timestamp);
+                    continue;
+                } else if (strategy == ClockRollbackStrategy.WAIT) {
+                    continue;
+                }
+                timestamp = lastTimestamp;
+            }
+
+            long first;
+            if (timestamp > lastTimestamp) {
+                first = 0L;
+            } else if ((current & sequenceMask) < sequenceMask) {
+                first = (current & sequenceMask) + 1;
+            } else if (canBorrow(lastTimestamp + 1, clock)) {
+                timestamp = lastTimestamp + 1;
+                first = 0L;
+            } else if (wait) {
+                awaitToNextTick(lastTimestamp);
+                continue;
+            } else {
+                break;
+            }
+
+            checkTicks(timestamp);
+            long count = Math.min(n - filled, sequenceMask - first + 1);
+            long last = first + count - 1;
+            if (state.compareAndSet(current, (timestamp << sequenceBits) | last)) {
+                for (long sequence = first; sequence <= last; sequence++) {
+                    ids[filled++] = settings.layout.compose(timestamp, settings.node, sequence);
+                }
+                if (timestamp > clock) {
+                    rollbackStatistics.borrowed(count);
+                }
+            }
+        }
+        return filled;
+    }
+
+    /**
+     * Apply the clock rollback policy.
+     *
+     * @param lastTimestamp The ticks when id was created last time.
+     * @param timestamp     Current ticks.
+     * @return The strategy applied, the caller will retry if the strategy is {@link ClockRollbackStrategy#WAIT}.
+     * @throws SnowFlakeException If the policy refuses to generate id.
+     */
+    private ClockRollbackStrategy onClockRollback(long lastTimestamp, long timestamp) {
+        long drift = (lastTimestamp - timestamp) * tickMillis;
+        ClockRollbackStrategy strategy = rollbackPolicy.getStrategy();
+        if (strategy == ClockRollbackStrategy.THROW || drift > rollbackPolicy.getMaxDriftMillis()) {
+            rollbackStatistics.rejected();
+            throw new SnowFlakeException(
+                    String.format("Clock moved backwards. Refusing to generate id for %d milliseconds", drift));
+        }
+
+        if (strategy == ClockRollbackStrategy.WAIT) {
+            rollbackStatistics.waited();
+            awaitToNextTick(lastTimestamp - 1);
+        }
+        return strategy;
+    }
+
+    /**
+     * Check whether the generator is allowed to issue ids from a tick which the clock has not reached.
+     *
+     * @param timestamp The tick to borrow.
+     * @param clock     Current ticks.
+     * @return Value {@code true} if the tick can be borrowed.
+     */
+    private boolean canBorrow(long timestamp, long clock) {
+        return rollbackPolicy.getStrategy() == ClockRollbackStrategy.BORROW
+                && (timestamp - clock) * tickMillis <= rollbackPolicy.getMaxDriftMillis();
+    }
+
+    /**
+     * Check whether the ticks can be stored in the timestamp bits.
+     *
+     * @param ticks The ticks since the start epoch.
+     */
+    private void checkTicks(long ticks) {
+        if (ticks > settings.maxTicks) {
+            throw new SnowFlakeException("Timestamp bits are exhausted, consider a later start epoch.");
+        }
+    }
+
+    /**
+     * Get next unique id with the standby node.
+     *
+     * @param timestamp Current ticks.
+     * @return A unique id.
+     */
+    private long nextStandbyId(long timestamp) {
+        for (; ; ) {
+            long current = standbyState.get();
+            long lastTimestamp = current >>> sequenceBits;
+
+            if (timestamp < lastTimestamp) {
+                rollbackStatistics.rejected();
+                throw new SnowFlakeException(
+                        String.format("Clock moved backwards. Refusing to generate standby id for %d milliseconds",
+                                (lastTimestamp - timestamp) * tickMillis));
+            }
+
+            long next;
+            if (timestamp > lastTimestamp) {
+                next = timestamp << sequenceBits;
+            } else if ((current & sequenceMask) < sequenceMask) {
+                next = current + 1;
+            } else {
+                awaitToNextTick(lastTimestamp);
+                return nextId();
+            }
+
+            if (standbyState.compareAndSet(current, next)) {
+                rollbackStatistics.standby();
+                return settings.layout.compose(timestamp, settings.standbyNode, next & sequenceMask);
+            }
+        }
+    }
+
+    /**
+     * Park until the clock reaches the tick after the given one.
+     *
+     * @param lastTimestamp The ticks when id was created last time.
+     */
+    private void awaitToNextTick(long lastTimestamp) {
+        long target = startEpoch + (lastTimestamp + 1) * tickMillis;
+        long remaining = target - timeSource.currentTimeMillis();
+        while (remaining > 0) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(remaining));
+            remaining = target - timeSource.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Return current ticks since the start epoch.
+     *
+     * @return Current ticks.
+     */
+    private long currentTicks() {
+        return (timeSource.currentTimeMillis() - startEpoch) / tickMillis;
+    }
+    // endregion
+
+    /**
+     * An {@link AtomicLong} followed by a cache line of padding, so it never shares a cache line with the value of
+     * another one allocated next to it.
+     */
+    @SuppressWarnings("unused")
+    private static final class PaddedAtomicLong extends AtomicLong {
+
+        private long p1, p2, p3, p4, p5, p6, p7, p8;
+    }
+}
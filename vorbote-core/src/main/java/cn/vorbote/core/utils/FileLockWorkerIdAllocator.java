@@ -0,0 +1,247 @@
+package cn.vorbote.core.utils;
+
+import cn.vorbote.core.exceptions.SnowFlakeException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link WorkerIdAllocator} claims worker ids by locking files in a directory. Each worker id owns a lease file,
+ * the instance holding the lock of the file owns the worker id, and the operating system releases the lock as soon as
+ * the process exits.
+ * <p>
+ * Besides the lock, the owner writes a heartbeat into the lease file on every renewal. A file whose heartbeat is not
+ * older than the time-to-live is treated as taken even if it can be locked, which protects the ids on shared
+ * directories where locks are not reliable.
+ * <p>
+ * File locks are held by the whole JVM, and closing any channel of a file releases all of its locks held by the JVM.
+ * So lease files locked by an allocator in this JVM are tracked and skipped without being opened.
+ *
+ * @author vorbote
+ */
+@Slf4j
+public final class FileLockWorkerIdAllocator implements WorkerIdAllocator {
+
+    private final Path directory;
+
+    private final long dataCentreId;
+
+    private final long maxWorkerId;
+
+    private final long ttlMillis;
+
+    private final String owner;
+
+    private final Map<WorkerIdLease, Holder> holders = new ConcurrentHashMap<>();
+
+    /**
+     * Lease files held by the allocators in this JVM.
+     */
+    private static final Set<Path> HELD_FILES = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Channels of lease files locked by other code of this JVM, they are referenced here so they are never closed.
+     */
+    private static final Set<FileChannel> UNCLOSABLE = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Create an allocator.
+     *
+     * @param directory    The directory to store lease files.
+     * @param dataCentreId The id of the data centre.
+     * @param maxWorkerId  The max worker id can be claimed.
+     * @param ttl          The time-to-live of a lease without renewal.
+     */
+    public FileLockWorkerIdAllocator(Path directory, long dataCentreId, long maxWorkerId, Duration ttl) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory can not be null!");
+        }
+
+        if (dataCentreId < 0 || maxWorkerId < 0) {
+            throw new IllegalArgumentException("Ids can not be less than 0!");
+        }
+
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Time-to-live of a lease should be positive!");
+        }
+
+        this.directory = directory;
+        this.dataCentreId = dataCentreId;
+        this.maxWorkerId = maxWorkerId;
+        this.ttlMillis = ttl.toMillis();
+        this.owner = ProcessHandle.current().pid() + "@" + UUID.randomUUID();
+    }
+
+    @Override
+    public WorkerIdLease acquire() {
+        Path realDirectory;
+        try {
+            realDirectory = Files.createDirectories(directory).toRealPath();
+        } catch (IOException e) {
+            throw new SnowFlakeException("Cannot create the directory of lease files: " + directory, e);
+        }
+
+        for (long workerId = 0; workerId <= maxWorkerId; workerId++) {
+            WorkerIdLease lease = new WorkerIdLease(workerId, dataCentreId, owner);
+            Holder holder = tryLock(realDirectory, lease);
+            if (holder != null) {
+                holders.put(lease, holder);
+                log.info("Worker id [{}] of data centre [{}] has been claimed by [{}].", workerId, dataCentreId,
+                        owner);
+                return lease;
+            }
+        }
+
+        throw new SnowFlakeException(String.format("No free worker id in data centre %d, all %d ids are in use.",
+                dataCentreId, maxWorkerId + 1));
+    }
+
+    @Override
+    public boolean renew(WorkerIdLease lease) {
+        Holder holder = holders.get(lease);
+        if (holder == null || !holder.lock.isValid()) {
+            return false;
+        }
+
+        try {
+            writeHeartbeat(holder.channel);
+            return true;
+        } catch (IOException e) {
+            log.error("Failed to renew the lease of worker id [{}].", lease.getWorkerId(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public void release(WorkerIdLease lease) {
+        Holder holder = holders.remove(lease);
+        if (holder == null) {
+            return;
+        }
+
+        try (FileChannel channel = holder.channel) {
+            channel.truncate(0);
+            holder.lock.release();
+            log.info("Worker id [{}] of data centre [{}] has been released.", lease.getWorkerId(), dataCentreId);
+        } catch (IOException e) {
+            log.error("Failed to release the lease of worker id [{}].", lease.getWorkerId(), e);
+        } finally {
+            HELD_FILES.remove(holder.file);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (WorkerIdLease lease : holders.keySet()) {
+            release(lease);
+        }
+    }
+
+    /**
+     * Try to lock the lease file of the worker id.
+     *
+     * @param realDirectory The real path of the directory, so the same file always has the same path.
+     * @param lease         The lease to claim.
+     * @return The locked file, or {@code null} if the worker id is taken.
+     */
+    private Holder tryLock(Path realDirectory, WorkerIdLease lease) {
+        Path file = realDirectory.resolve(String.format("worker-%d-%d.lease", dataCentreId, lease.getWorkerId()));
+        if (!HELD_FILES.add(file)) {
+            // Held by an allocator in this JVM, opening and closing another channel would release its lock.
+            return null;
+        }
+
+        FileChannel channel = null;
+        boolean locked = false;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            FileLock lock = channel.tryLock();
+            if (lock != null) {
+                if (!isAlive(channel)) {
+                    writeHeartbeat(channel);
+                    locked = true;
+                    return new Holder(file, channel, lock);
+                }
+                lock.release();
+            }
+        } catch (OverlappingFileLockException e) {
+            // Locked by other code of this JVM, closing the channel would release that lock, so keep it open.
+            log.warn("The lease file [{}] is locked by other code of this JVM, skip it.", file);
+            UNCLOSABLE.add(channel);
+            return null;
+        } catch (IOException e) {
+            log.warn("Cannot lock the lease file [{}], skip it.", file, e);
+        } finally {
+            if (!locked) {
+                HELD_FILES.remove(file);
+            }
+        }
+
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Check whether the lease file carries a heartbeat of another owner within the time-to-live.
+     *
+     * @param channel The channel of the lease file.
+     * @return Value {@code true} if another owner is alive.
+     * @throws IOException If the file cannot be read.
+     */
+    private boolean isAlive(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        channel.read(buffer, 0);
+        String[] content = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8).split("\n");
+        if (content.length < 2 || owner.equals(content[0])) {
+            return false;
+        }
+
+        try {
+            return System.currentTimeMillis() - Long.parseLong(content[1].trim()) <= ttlMillis;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Write the owner and current time into the lease file.
+     *
+     * @param channel The channel of the lease file.
+     * @throws IOException If the file cannot be written.
+     */
+    private void writeHeartbeat(FileChannel channel) throws IOException {
+        byte[] content = (owner + "\n" + System.currentTimeMillis() + "\n").getBytes(StandardCharsets.UTF_8);
+        channel.truncate(0);
+        channel.write(ByteBuffer.wrap(content), 0);
+        channel.force(false);
+    }
+
+    /**
+     * The locked lease file.
+     *
+     * @param file    The path of the lease file.
+     * @param channel The channel of the lease file.
+     * @param lock    The lock of the lease file.
+     */
+    private record Holder(Path file, FileChannel channel, FileLock lock) {
+    }
+}
@@ -1,14 +1,29 @@
 package cn.vorbote.core.utils;
 
+import cn.vorbote.core.constants.Base64Mode;
 import cn.vorbote.core.constants.Hash;
 import cn.vorbote.core.exceptions.UnsupportedHashAlgorithmException;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.Base64;
-import java.util.Objects;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * HashUtil can help you hash arbitrary strings.
@@ -24,6 +39,95 @@ public final class HashUtil {
     private HashUtil() {
     }
 
+    /**
+     * Message digests of every hash algorithm, each thread owns its digests therefore they can be reused without
+     * locking.
+     */
+    private static final Map<Hash, ThreadLocal<MessageDigest>> DIGESTS = new EnumMap<>(Hash.class);
+
+    /**
+     * Size of the buffer used when reading streams and channels.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * The max size of the scratch array kept by each thread.
+     */
+    private static final int MAX_SCRATCH_SIZE = 1 << 16;
+
+    /**
+     * The scratch array of each thread, used to decode into buffers not spanning their backing arrays.
+     */
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    /**
+     * Files larger than this size will be mapped into memory instead of being read into buffers.
+     */
+    private static final long MAP_THRESHOLD = 1L << 20;
+
+    /**
+     * The max size of each mapped region of a file.
+     */
+    private static final long MAP_REGION_SIZE = 1L << 26;
+
+    /**
+     * Default chunk size of tree hashing.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 22;
+
+    static {
+        for (Hash method : Hash.values()) {
+            if (isDigest(method)) {
+                DIGESTS.put(method, ThreadLocal.withInitial(() -> newMessageDigest(method)));
+            }
+        }
+    }
+
+    /**
+     * Create a new message digest for the hash algorithm.
+     *
+     * @param method The hash algorithm.
+     * @return The message digest.
+     * @throws UnsupportedHashAlgorithmException If the method is not a hash algorithm.
+     */
+    private static MessageDigest newMessageDigest(Hash method) {
+        if (!isDigest(method)) {
+            throw new UnsupportedHashAlgorithmException(method.getValue());
+        }
+        try {
+            return MessageDigest.getInstance(method.getValue());
+        } catch (NoSuchAlgorithmException e) {
+            throw new UnsupportedHashAlgorithmException(method.getValue());
+        }
+    }
+
+    /**
+     * Check whether the method is a hash algorithm or an encryption algorithm.
+     *
+     * @param method The method.
+     * @return Value {@code true} if the method is a hash algorithm.
+     */
+    private static boolean isDigest(Hash method) {
+        return method != Hash.RC4 && method != Hash.AES && method != Hash.DES;
+    }
+
+    /**
+     * Get the message digest of current thread for the hash algorithm. The digest is reset before returned.
+     *
+     * @param method The hash algorithm.
+     * @return The message digest.
+     * @throws UnsupportedHashAlgorithmException If the method is not a hash algorithm.
+     */
+    static MessageDigest messageDigest(Hash method) {
+        ThreadLocal<MessageDigest> digest = DIGESTS.get(method);
+        if (digest == null) {
+            throw new UnsupportedHashAlgorithmException(method.getValue());
+        }
+        MessageDigest md = digest.get();
+        md.reset();
+        return md;
+    }
+
     /**
      * Encrypt the string via specified encrypt method. All supported method:
      * <ul>
@@ -44,250 +148,659 @@ public final class HashUtil {
      * @see MessageDigest#getInstance(String)
      */
     public static String encrypt(Hash method, String value) {
-        if (method == Hash.RC4 || method == Hash.AES || method == Hash.DES) {
-            throw new UnsupportedHashAlgorithmException(method.getValue());
+        return encrypt(method, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Hash the bytes via specified hash method, and encode the result to a lower case hex string.
+     *
+     * @param method Hash method.
+     * @param value  The bytes will be hashed.
+     * @return The hex string of the hash result.
+     * @throws UnsupportedHashAlgorithmException If the method is not a hash algorithm.
+     * @see #encrypt(Hash, String)
+     */
+    public static String encrypt(Hash method, byte[] value) {
+        return HexUtil.encode(digest(method, value));
+    }
+
+    /**
+     * Hash the remaining bytes of the buffer via specified hash method, and encode the result to a lower case hex
+     * string. The position of the buffer will be moved to its limit.
+     *
+     * @param method Hash method.
+     * @param value  The buffer will be hashed.
+     * @return The hex string of the hash result.
+     * @throws UnsupportedHashAlgorithmException If the method is not a hash algorithm.
+     * @see #encrypt(Hash, String)
+     */
+    public static String encrypt(Hash method, ByteBuffer value) {
+        return HexUtil.encode(digest(method, value));
+    }
+
+    /**
+     * Hash the bytes via specified hash method.
+     *
+     * @param method Hash method.
+     * @param value  The bytes will be hashed.
+     * @return The hash result.
+     * @throws UnsupportedHashAlgorithmException If the method is not a hash algorithm.
+     */
+    public static byte[] digest(Hash method, byte[] value) {
+        return messageDigest(method).digest(value);
+    }
+
+    /**
+     * Hash the remaining bytes of the buffer via specified hash method. The position of the buffer will be moved to
+     * its limit.
+     *
+     * @param method Hash method.
+     * @param value  The buffer will be hashed.
+     * @return The hash result.
+     * @throws UnsupportedHashAlgorithmException If the method is not a hash algorithm.
+     */
+    public static byte[] digest(Hash method, ByteBuffer value) {
+        MessageDigest md = messageDigest(method);
+        md.update(value);
+        return md.digest();
+    }
+
+    /**
+     * Hash all bytes of the stream via specified hash method. The stream will be read to its end but will not be
+     * closed.
+     *
+     * @param method Hash method.
+     * @param stream The stream will be hashed.
+     * @return The hash result.
+     * @throws IOException                       If an I/O error occurs.
+     * @throws UnsupportedHashAlgorithmException If the method is not a hash algorithm.
+     */
+    public static byte[] digest(Hash method, InputStream stream) throws IOException {
+        MessageDigest md = messageDigest(method);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            md.update(buffer, 0, read);
         }
+        return md.digest();
+    }
 
-        String result = "";
-        try {
-            MessageDigest md = MessageDigest.getInstance(method.toString());
-            md.update(value.getBytes(StandardCharsets.UTF_8));
-            byte[] bytes = md.digest();
-            StringBuilder builder = new StringBuilder();
-            for (byte b : bytes) {
-                String str = Integer.toHexString(b & 0xff);
-                if (str.length() == 1) {
-                    builder.append("0");
+    /**
+     * Hash all bytes of the channel via specified hash method. The channel will be read to its end but will not be
+     * closed.
+     *
+     * @param method  Hash method.
+     * @param channel The channel will be hashed.
+     * @return The hash result.
+     * @throws IOException                       If an I/O error occurs.
+     * @throws UnsupportedHashAlgorithmException If the method is not a hash algorithm.
+     */
+    public static byte[] digest(Hash method, ReadableByteChannel channel) throws IOException {
+        MessageDigest md = messageDigest(method);
+        update(md, channel);
+        return md.digest();
+    }
+
+    /**
+     * Hash the content of the file via specified hash method. Large files are mapped into memory region by region,
+     * therefore the content will not be copied into heap arrays.
+     *
+     * @param method Hash method.
+     * @param file   The file will be hashed.
+     * @return The hash result.
+     * @throws IOException                       If an I/O error occurs.
+     * @throws UnsupportedHashAlgorithmException If the method is not a hash algorithm.
+     */
+    public static byte[] digest(Hash method, Path file) throws IOException {
+        MessageDigest md = messageDigest(method);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < MAP_THRESHOLD) {
+                update(md, channel);
+            } else {
+                for (long position = 0; position < size; position += MAP_REGION_SIZE) {
+                    MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                            Math.min(MAP_REGION_SIZE, size - position));
+                    md.update(region);
                 }
-                builder.append(str);
             }
-            result = builder.toString();
-        } catch (NoSuchAlgorithmException e) {
-            // It will get no exception, so ignore it
         }
-        return result;
+        return md.digest();
     }
 
     /**
-     * Encrypt the string via Base64.
+     * Hash all bytes of the stream via specified hash method, and encode the result to a lower case hex string.
      *
-     * @param value The string will be encrypted.
-     * @return The encrypted String.
+     * @param method Hash method.
+     * @param stream The stream will be hashed.
+     * @return The hex string of the hash result.
+     * @throws IOException                       If an I/O error occurs.
+     * @throws UnsupportedHashAlgorithmException If the method is not a hash algorithm.
+     * @see #digest(Hash, InputStream)
      */
-    public static String base64Encode(String value) {
-        Base64.Encoder encoder = Base64.getEncoder();
-        byte[] encodedString = encoder.encode(value.getBytes(StandardCharsets.UTF_8));
+    public static String encrypt(Hash method, InputStream stream) throws IOException {
+        return HexUtil.encode(digest(method, stream));
+    }
 
-        return new String(encodedString);
+    /**
+     * Hash all bytes of the channel via specified hash method, and encode the result to a lower case hex string.
+     *
+     * @param method  Hash method.
+     * @param channel The channel will be hashed.
+     * @return The hex string of the hash result.
+     * @throws IOException                       If an I/O error occurs.
+     * @throws UnsupportedHashAlgorithmException If the method is not a hash algorithm.
+     * @see #digest(Hash, ReadableByteChannel)
+     */
+    public static String encrypt(Hash method, ReadableByteChannel channel) throws IOException {
+        return HexUtil.encode(digest(method, channel));
     }
 
     /**
-     * Decode the string via Base64.
+     * Hash the content of the file via specified hash method, and encode the result to a lower case hex string.
      *
-     * @param value The string will be encrypted.
-     * @return The encrypted String.
+     * @param method Hash method.
+     * @param file   The file will be hashed.
+     * @return The hex string of the hash result.
+     * @throws IOException                       If an I/O error occurs.
+     * @throws UnsupportedHashAlgorithmException If the method is not a hash algorithm.
+     * @see #digest(Hash, Path)
      */
-    public static String base64Decode(String value) {
-        Base64.Decoder decoder = Base64.getDecoder();
-        byte[] decodedString = decoder.decode(value.getBytes(StandardCharsets.UTF_8));
+    public static String encrypt(Hash method, Path file) throws IOException {
+        return HexUtil.encode(digest(method, file));
+    }
 
-        return new String(decodedString);
+    /**
+     * Hash the file in parallel with the default chunk size on the common pool.
+     *
+     * @param method Hash method.
+     * @param file   The file will be hashed.
+     * @return The tree digest.
+     * @throws IOException                       If an I/O error occurs.
+     * @throws UnsupportedHashAlgorithmException If the method is not a hash algorithm.
+     * @see #treeHash(Hash, Path, int, ForkJoinPool)
+     */
+    public static TreeDigest treeHash(Hash method, Path file) throws IOException {
+        return treeHash(method, file, DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool());
     }
 
     /**
-     * This method can decrypt a encrypted String(in byte mode).
+     * Hash the file in parallel on the common pool.
      *
-     * @param method The decrypt method type.
-     * @param key    The key to decrypt the String.
-     * @param data   The encrypted {@code String}.
-     * @return The original string.
+     * @param method    Hash method.
+     * @param file      The file will be hashed.
+     * @param chunkSize The size of each chunk.
+     * @return The tree digest.
+     * @throws IOException                       If an I/O error occurs.
+     * @throws UnsupportedHashAlgorithmException If the method is not a hash algorithm.
+     * @see #treeHash(Hash, Path, int, ForkJoinPool)
      */
-    public static String decrypt(Hash method, String key, byte[] data) {
-        if (method != Hash.RC4)
-            throw new UnsupportedHashAlgorithmException("This algorithm is unsupported yet.");
-        if (data == null || key == null) {
-            return null;
-        }
-        return asString(rc4Base(data, key));
+    public static TreeDigest treeHash(Hash method, Path file, int chunkSize) throws IOException {
+        return treeHash(method, file, chunkSize, ForkJoinPool.commonPool());
     }
 
     /**
-     * This method can decrypt an encrypted String(in byte mode).
+     * Split the file into chunks of fixed size, hash the chunks in parallel on the pool and combine them into a
+     * Merkle tree. The result is <b>NOT</b> equal to the sequential digest of the file, but it's reproducible by the
+     * same algorithm and chunk size.
      *
-     * @param method The decrypt method type.
-     * @param key    The key to decrypt the String.
-     * @param data   The encrypted {@code String}.
-     * @return The original string.
+     * @param method    Hash method.
+     * @param file      The file will be hashed.
+     * @param chunkSize The size of each chunk.
+     * @param pool      The pool which hashes the chunks.
+     * @return The tree digest.
+     * @throws IOException                       If an I/O error occurs.
+     * @throws UnsupportedHashAlgorithmException If the method is not a hash algorithm.
+     * @throws IllegalArgumentException          If the chunk size is not positive.
+     * @see TreeDigest
      */
-    public static String decrypt(Hash method, String key, String data) {
-        if (method != Hash.RC4)
-            throw new UnsupportedHashAlgorithmException("This algorithm is unsupported yet.");
-        if (data == null || key == null) {
-            return null;
+    public static TreeDigest treeHash(Hash method, Path file, int chunkSize, ForkJoinPool pool) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive.");
+        }
+        newMessageDigest(method);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            int count = (int) Math.max(1, (length + chunkSize - 1) / chunkSize);
+            byte[][] chunks = new byte[count][];
+            hashChunks(pool, new ChunkTask(method, channel, chunkSize, length, chunks, 0, count));
+            return new TreeDigest(method, chunkSize, length, chunks);
         }
-        return new String(rc4Base(castHexStringToBytes(data), key));
     }
 
     /**
-     * Encrypt the data through a key.
+     * Re-hash only the chunks overlapping the changed range of the file, other chunks are taken from the previous
+     * tree digest. Chunks appended or removed since the previous digest are handled as well.
      *
-     * @param method The method to encrypt the data.
-     * @param data   The data will be encrypt to rc4 string.
-     * @param key    The key to encrypt the string.
-     * @return The encrypted String by stream.
+     * @param previous The previous tree digest of the file.
+     * @param file     The file will be hashed.
+     * @param offset   The offset of the changed range.
+     * @param length   The length of the changed range.
+     * @return The new tree digest.
+     * @throws IOException If an I/O error occurs.
      */
-    public static byte[] encryptToByteStream(Hash method, String key, String data) {
-        if (method != Hash.RC4)
-            throw new UnsupportedHashAlgorithmException("This algorithm is unsupported yet.");
-        if (data == null || key == null) {
-            return null;
+    public static TreeDigest treeHash(TreeDigest previous, Path file, long offset, long length) throws IOException {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Offset and length of the changed range must not be negative.");
+        }
+        Hash method = previous.getMethod();
+        int chunkSize = previous.getChunkSize();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int count = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+            byte[][] chunks = Arrays.copyOf(previous.chunks(), count);
+
+            // 新旧文件中较短者的最后一个分块可能不完整，因此从它开始重新计算
+            int reuse = (int) Math.min(count, Math.min(previous.getLength(), size) / chunkSize);
+            int from = (int) Math.min(reuse, offset / chunkSize);
+            int to = length == 0 ? from : (int) Math.min(count, (offset + length - 1) / chunkSize + 1);
+            ChunkTask changed = new ChunkTask(method, channel, chunkSize, size, chunks, from, Math.max(from, to));
+            ChunkTask tail = new ChunkTask(method, channel, chunkSize, size, chunks, Math.max(reuse, to), count);
+            hashChunks(ForkJoinPool.commonPool(), changed);
+            hashChunks(ForkJoinPool.commonPool(), tail);
+            return new TreeDigest(method, chunkSize, size, chunks);
         }
-        byte[] b_data = data.getBytes();
-        return rc4Base(b_data, key);
     }
 
     /**
-     * Encrypt a string to a HexString
+     * Invoke the chunk task on the pool and unwrap the I/O error.
      *
-     * @param method The specified method.
-     * @param data   The origin data.
-     * @param key    The key.
-     * @return The encrypted string.
+     * @param pool The pool.
+     * @param task The task.
+     * @throws IOException If an I/O error occurs.
      */
-    public static String encrypt(Hash method, String key, String data) {
-        if (data == null || key == null) {
-            return null;
+    private static void hashChunks(ForkJoinPool pool, ChunkTask task) throws IOException {
+        try {
+            pool.invoke(task);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * ChunkTask hashes a range of chunks, the range will be split until it contains only one chunk.
+     */
+    private static final class ChunkTask extends RecursiveAction {
+
+        private final Hash method;
+        private final FileChannel channel;
+        private final int chunkSize;
+        private final long length;
+        private final byte[][] chunks;
+        private final int from;
+        private final int to;
+
+        ChunkTask(Hash method, FileChannel channel, int chunkSize, long length, byte[][] chunks, int from, int to) {
+            this.method = method;
+            this.channel = channel;
+            this.chunkSize = chunkSize;
+            this.length = length;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
         }
-        return castToHexString(asString(Objects.requireNonNull(encryptToByteStream(Hash.RC4, key, data))));
 
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ChunkTask(method, channel, chunkSize, length, chunks, from, middle),
+                        new ChunkTask(method, channel, chunkSize, length, chunks, middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                try {
+                    chunks[i] = hashChunk(i);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        private byte[] hashChunk(int index) throws IOException {
+            long position = (long) index * chunkSize;
+            int size = (int) Math.min(chunkSize, length - position);
+            MessageDigest md = messageDigest(method);
+            md.update(TreeDigest.LEAF);
+            if (size >= MAP_THRESHOLD) {
+                md.update(channel.map(FileChannel.MapMode.READ_ONLY, position, size));
+            } else if (size > 0) {
+                ByteBuffer buffer = ByteBuffer.allocate(size);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, position + buffer.position()) == -1) {
+                        break;
+                    }
+                }
+                md.update(buffer.flip());
+            }
+            return md.digest();
+        }
     }
 
     /**
-     * Transfer a byte array to string.
+     * Create an incremental hasher of the hash method.
      *
-     * @param buf The byte array.
-     * @return The string.
+     * @param method Hash method.
+     * @return A new hasher.
+     * @throws UnsupportedHashAlgorithmException If the method is not a hash algorithm.
      */
-    private static String asString(byte[] buf) {
-        StringBuilder sb = new StringBuilder(buf.length);
-        for (byte b : buf) {
-            sb.append((char) b);
-        }
-        return sb.toString();
+    public static Hasher hasher(Hash method) {
+        return new Hasher(method, newMessageDigest(method));
     }
 
     /**
-     * Load key and transfer to byte array.
+     * Read the channel to its end and update the digest.
      *
-     * @param key The key.
-     * @return The byte key.
+     * @param md      The digest.
+     * @param channel The channel.
+     * @throws IOException If an I/O error occurs.
      */
-    private static byte[] initKey(String key) {
-        byte[] b_key = key.getBytes(StandardCharsets.UTF_8);
-        byte[] state = new byte[256];
-        for (int i = 0; i < 256; i++) {
-            state[i] = (byte) i;
+    private static void update(MessageDigest md, ReadableByteChannel channel) throws IOException {
+        // 堆内缓冲区可被摘要直接读取，直接缓冲区需逐段复制到临时数组
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            md.update(buffer);
+            buffer.clear();
         }
+    }
 
-        int index1 = 0;
-        int index2 = 0;
-        if (b_key.length == 0) {
-            return null;
-        }
+    /**
+     * Encrypt the string via Base64.
+     *
+     * @param value The string will be encrypted.
+     * @return The encrypted String.
+     */
+    public static String base64Encode(String value) {
+        return base64Encode(Base64Mode.BASIC, value);
+    }
 
-        for (int i = 0; i < 256; i++) {
-            index2 = ((b_key[index1] & 0xff) + (state[i] & 0xff) + index2) & 0xff;
-            byte tmp = state[i];
-            state[i] = state[index2];
-            state[index2] = tmp;
-            index1 = (index1 + 1) % b_key.length;
-        }
-        return state;
+    /**
+     * Encode the UTF-8 bytes of the string via Base64.
+     *
+     * @param mode  The Base64 alphabet.
+     * @param value The string will be encoded.
+     * @return The encoded string.
+     */
+    public static String base64Encode(Base64Mode mode, String value) {
+        return base64Encode(mode, value.getBytes(StandardCharsets.UTF_8));
     }
 
     /**
-     * Transfer a string to HexString.
+     * Encode the bytes via Base64.
      *
-     * @param s The source string.
-     * @return The hex string of the origin.
+     * @param value The bytes will be encoded.
+     * @return The encoded string.
      */
-    private static String castToHexString(String s) {
-        StringBuilder str = new StringBuilder();
+    public static String base64Encode(byte[] value) {
+        return base64Encode(Base64Mode.BASIC, value);
+    }
 
-        for (int i = 0; i < s.length(); i++) {
-            int ch = s.charAt(i);
-            String s4 = Integer.toHexString(ch & 0xFF);
-            if (s4.length() == 1) {
-                s4 = '0' + s4;
-            }
-            str.append(s4);
+    /**
+     * Encode the bytes via Base64. The encoded bytes are all ASCII, so they are turned into the string as Latin-1
+     * without charset decoding.
+     *
+     * @param mode  The Base64 alphabet.
+     * @param value The bytes will be encoded.
+     * @return The encoded string.
+     */
+    public static String base64Encode(Base64Mode mode, byte[] value) {
+        return new String(mode.getEncoder().encode(value), StandardCharsets.ISO_8859_1);
+    }
 
-        }
+    /**
+     * Encode the bytes via Base64 into an existing array, the encoded bytes are written from the start of the array.
+     *
+     * @param mode The Base64 alphabet.
+     * @param src  The bytes will be encoded.
+     * @param dst  The array to write the encoded bytes.
+     * @return The count of written bytes.
+     * @throws IllegalArgumentException If the array is too small.
+     */
+    public static int base64Encode(Base64Mode mode, byte[] src, byte[] dst) {
+        return mode.getEncoder().encode(src, dst);
+    }
 
-        return str.toString();// 0x表示十六进制
+    /**
+     * Encode the remaining bytes of the buffer via Base64. The position of the buffer will be moved to its limit.
+     *
+     * @param mode  The Base64 alphabet.
+     * @param value The buffer will be encoded.
+     * @return A new buffer with the encoded bytes, its position is 0 and its limit is the count of encoded bytes.
+     */
+    public static ByteBuffer base64Encode(Base64Mode mode, ByteBuffer value) {
+        return mode.getEncoder().encode(value);
+    }
 
+    /**
+     * Wrap the stream, the bytes written to the returned stream will be encoded via Base64 and written to the
+     * underlying stream. Closing the returned stream will write the padding and close the underlying stream.
+     *
+     * @param mode   The Base64 alphabet.
+     * @param stream The underlying stream.
+     * @return The encoding stream.
+     */
+    public static OutputStream base64Encode(Base64Mode mode, OutputStream stream) {
+        return mode.getEncoder().wrap(stream);
     }
 
     /**
-     * Transfer a <b>hex</b> string to byte array.
+     * Decode the string via Base64.
      *
-     * @param src The hex string.
-     * @return The byte stream of this string.
+     * @param value The string will be encrypted.
+     * @return The encrypted String.
      */
-    private static byte[] castHexStringToBytes(String src) {
-        int size = src.length();
-        byte[] ret = new byte[size / 2];
-        byte[] tmp = src.getBytes();
-        for (int i = 0; i < size / 2; i++) {
-            ret[i] = uniteBytes(tmp[i * 2], tmp[i * 2 + 1]);
-        }
-        return ret;
+    public static String base64Decode(String value) {
+        return base64Decode(Base64Mode.BASIC, value);
     }
 
     /**
-     * Calc the unite result.
+     * Decode the string via Base64, and decode the result as an UTF-8 string.
      *
-     * @param src0 The first op num.
-     * @param src1 The second op num.
-     * @return The result.
+     * @param mode  The Base64 alphabet.
+     * @param value The string will be decoded.
+     * @return The decoded string.
+     * @throws IllegalArgumentException If the string is not a valid Base64 string.
      */
-    private static byte uniteBytes(byte src0, byte src1) {
-        char _b0 = (char) Byte.decode("0x" + new String(new byte[]{src0})).byteValue();
+    public static String base64Decode(Base64Mode mode, String value) {
+        return new String(base64DecodeToBytes(mode, value), StandardCharsets.UTF_8);
+    }
 
-        _b0 = (char) (_b0 << 4);
+    /**
+     * Decode the string via Base64.
+     *
+     * @param mode  The Base64 alphabet.
+     * @param value The string will be decoded.
+     * @return The decoded bytes.
+     * @throws IllegalArgumentException If the string is not a valid Base64 string.
+     */
+    public static byte[] base64DecodeToBytes(Base64Mode mode, String value) {
+        return mode.getDecoder().decode(value.getBytes(StandardCharsets.ISO_8859_1));
+    }
 
-        char _b1 = (char) Byte.decode("0x" + new String(new byte[]{src1})).byteValue();
+    /**
+     * Decode the bytes via Base64.
+     *
+     * @param mode  The Base64 alphabet.
+     * @param value The bytes will be decoded.
+     * @return The decoded bytes.
+     * @throws IllegalArgumentException If the bytes are not valid Base64 bytes.
+     */
+    public static byte[] base64Decode(Base64Mode mode, byte[] value) {
+        return mode.getDecoder().decode(value);
+    }
 
-        return (byte) (_b0 ^ _b1);
+    /**
+     * Decode the bytes via Base64 into an existing array, the decoded bytes are written from the start of the array.
+     *
+     * @param mode The Base64 alphabet.
+     * @param src  The bytes will be decoded.
+     * @param dst  The array to write the decoded bytes.
+     * @return The count of written bytes.
+     * @throws IllegalArgumentException If the bytes are not valid Base64 bytes or the array is too small.
+     */
+    public static int base64Decode(Base64Mode mode, byte[] src, byte[] dst) {
+        return mode.getDecoder().decode(src, dst);
+    }
 
+    /**
+     * Decode the remaining bytes of the buffer via Base64. The position of the buffer will be moved to its limit.
+     *
+     * @param mode  The Base64 alphabet.
+     * @param value The buffer will be decoded.
+     * @return A new buffer with the decoded bytes, its position is 0 and its limit is the count of decoded bytes.
+     * @throws IllegalArgumentException If the bytes are not valid Base64 bytes.
+     */
+    public static ByteBuffer base64Decode(Base64Mode mode, ByteBuffer value) {
+        return mode.getDecoder().decode(value);
     }
 
     /**
-     * Generate a RC4 base.
+     * Decode the remaining bytes of the source buffer via Base64 into the destination buffer. The position of the
+     * source will be moved to its limit and the position of the destination will be moved after the decoded bytes.
+     * A source spanning its whole backing array is decoded without copying, and a destination spanning its whole
+     * backing array receives the decoded bytes directly; other buffers go through a scratch array reused by the
+     * current thread.
      *
-     * @param input The input string bytes.
-     * @param m_key The key.
-     * @return The byte stream.
+     * @param mode The Base64 alphabet.
+     * @param src  The buffer will be decoded.
+     * @param dst  The buffer to write the decoded bytes.
+     * @return The count of written bytes.
+     * @throws IllegalArgumentException If the bytes are not valid Base64 bytes or the destination is too small.
      */
-    private static byte[] rc4Base(byte[] input, String m_key) {
-        int x = 0;
-        int y = 0;
-        byte[] key = initKey(m_key);
-        int xorIndex;
-        byte[] result = new byte[input.length];
+    public static int base64Decode(Base64Mode mode, ByteBuffer src, ByteBuffer dst) {
+        Base64.Decoder decoder = mode.getDecoder();
+        // Base64.Decoder 只能从数组起点解码整个数组
+        byte[] in;
+        if (src.hasArray() && src.arrayOffset() + src.position() == 0 && src.remaining() == src.array().length) {
+            in = src.array();
+        } else {
+            in = new byte[src.remaining()];
+            src.duplicate().get(in);
+        }
 
-        for (int i = 0; i < input.length; i++) {
-            x = (x + 1) & 0xff;
-            assert key != null;
-            y = ((key[x] & 0xff) + y) & 0xff;
-            byte tmp = key[x];
-            key[x] = key[y];
-            key[y] = tmp;
-            xorIndex = ((key[x] & 0xff) + (key[y] & 0xff)) & 0xff;
-            result[i] = (byte) (input[i] ^ key[xorIndex]);
+        int written;
+        if (dst.hasArray() && !dst.isReadOnly()
+                && dst.arrayOffset() + dst.position() == 0 && dst.remaining() == dst.array().length) {
+            written = decoder.decode(in, dst.array());
+            dst.position(written);
+        } else {
+            byte[] out = scratch((in.length + 3) / 4 * 3);
+            written = decoder.decode(in, out);
+            if (dst.remaining() < written) {
+                throw new IllegalArgumentException("Output buffer is too small.");
+            }
+            dst.put(out, 0, written);
         }
+        src.position(src.limit());
+        return written;
+    }
 
-        return result;
+    /**
+     * Get the scratch array of the current thread. Arrays up to {@link #MAX_SCRATCH_SIZE} are kept for later calls.
+     *
+     * @param length The least length required.
+     * @return The scratch array, its content is undefined.
+     */
+    private static byte[] scratch(int length) {
+        byte[] scratch = SCRATCH.get();
+        if (scratch.length >= length) {
+            return scratch;
+        }
+        scratch = new byte[Math.max(length, scratch.length << 1)];
+        if (scratch.length <= MAX_SCRATCH_SIZE) {
+            SCRATCH.set(scratch);
+        }
+        return scratch;
+    }
+
+    /**
+     * Wrap the stream, the bytes read from the returned stream are decoded via Base64 from the underlying stream.
+     *
+     * @param mode   The Base64 alphabet.
+     * @param stream The underlying stream.
+     * @return The decoding stream.
+     */
+    public static InputStream base64Decode(Base64Mode mode, InputStream stream) {
+        return mode.getDecoder().wrap(stream);
+    }
+
+    /**
+     * Create a reusable cipher engine, the key is prepared once and can be used to encrypt and decrypt many times.
+     *
+     * @param method The encryption algorithm, {@link Hash#RC4}, {@link Hash#AES} or {@link Hash#DES}.
+     * @param key    The key.
+     * @return The cipher engine.
+     * @throws UnsupportedHashAlgorithmException If the method is not an encryption algorithm.
+     * @throws IllegalArgumentException          If the key is empty.
+     * @see CipherEngine
+     */
+    public static CipherEngine cipher(Hash method, String key) {
+        return CipherEngine.of(method, key);
+    }
+
+    /**
+     * This method can decrypt a encrypted String(in byte mode).
+     *
+     * @param method The decrypt method type.
+     * @param key    The key to decrypt the String.
+     * @param data   The encrypted {@code String}.
+     * @return The original string.
+     * @see CipherEngine#decrypt(byte[])
+     */
+    public static String decrypt(Hash method, String key, byte[] data) {
+        if (data == null || key == null) {
+            return null;
+        }
+        return new String(cipher(method, key).decrypt(data), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * This method can decrypt an encrypted String(in byte mode).
+     *
+     * @param method The decrypt method type.
+     * @param key    The key to decrypt the String.
+     * @param data   The encrypted hex {@code String}.
+     * @return The original string.
+     * @see CipherEngine#decrypt(byte[])
+     */
+    public static String decrypt(Hash method, String key, String data) {
+        if (data == null || key == null) {
+            return null;
+        }
+        return new String(cipher(method, key).decrypt(HexUtil.decode(data)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Encrypt the data through a key.
+     *
+     * @param method The method to encrypt the data.
+     * @param data   The data will be encrypted.
+     * @param key    The key to encrypt the string.
+     * @return The encrypted String by stream.
+     * @see CipherEngine#encrypt(byte[])
+     */
+    public static byte[] encryptToByteStream(Hash method, String key, String data) {
+        if (data == null || key == null) {
+            return null;
+        }
+        return cipher(method, key).encrypt(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Encrypt a string to a HexString
+     *
+     * @param method The specified method.
+     * @param data   The origin data.
+     * @param key    The key.
+     * @return The encrypted string.
+     * @see CipherEngine#encrypt(byte[])
+     */
+    public static String encrypt(Hash method, String key, String data) {
+        if (data == null || key == null) {
+            return null;
+        }
+        return HexUtil.encode(cipher(method, key).encrypt(data.getBytes(StandardCharsets.UTF_8)));
     }
 
 }
@@ -0,0 +1,123 @@
+package cn.vorbote.core.utils;
+
+import cn.vorbote.core.constants.Hash;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Hasher is an incremental digest of one hash algorithm. Feed it the data piece by piece by {@link #update(byte[])}
+ * and get the result by {@link #finish()} or {@link #finishHex()}, so the whole data never needs to be in memory.
+ * After finished, the hasher is reset and can be used again.
+ * <p>
+ * A hasher is <b>NOT</b> thread-safe, please create one for each thread via {@link HashUtil#hasher(Hash)}.
+ *
+ * @author vorbote
+ */
+public final class Hasher {
+
+    /**
+     * The hash algorithm.
+     */
+    private final Hash method;
+
+    /**
+     * The message digest of the hash algorithm.
+     */
+    private final MessageDigest digest;
+
+    /**
+     * Create a hasher.
+     *
+     * @param method The hash algorithm.
+     * @param digest The message digest of the hash algorithm.
+     */
+    Hasher(Hash method, MessageDigest digest) {
+        this.method = method;
+        this.digest = digest;
+    }
+
+    /**
+     * Get the hash algorithm of this hasher.
+     *
+     * @return The hash algorithm.
+     */
+    public Hash getMethod() {
+        return method;
+    }
+
+    /**
+     * Append the bytes.
+     *
+     * @param bytes The bytes.
+     * @return This hasher.
+     */
+    public Hasher update(byte[] bytes) {
+        digest.update(bytes);
+        return this;
+    }
+
+    /**
+     * Append a range of the bytes.
+     *
+     * @param bytes  The bytes.
+     * @param offset The offset of the first byte to append.
+     * @param length The count of bytes to append.
+     * @return This hasher.
+     */
+    public Hasher update(byte[] bytes, int offset, int length) {
+        digest.update(bytes, offset, length);
+        return this;
+    }
+
+    /**
+     * Append the remaining bytes of the buffer. The position of the buffer will be moved to its limit.
+     *
+     * @param buffer The buffer.
+     * @return This hasher.
+     */
+    public Hasher update(ByteBuffer buffer) {
+        digest.update(buffer);
+        return this;
+    }
+
+    /**
+     * Append the UTF-8 bytes of the string.
+     *
+     * @param value The string.
+     * @return This hasher.
+     */
+    public Hasher update(String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        return this;
+    }
+
+    /**
+     * Complete the hash computation and reset this hasher.
+     *
+     * @return The hash result.
+     */
+    public byte[] finish() {
+        return digest.digest();
+    }
+
+    /**
+     * Complete the hash computation and reset this hasher.
+     *
+     * @return The lower case hex string of the hash result.
+     */
+    public String finishHex() {
+        return HexUtil.encode(digest.digest());
+    }
+
+    /**
+     * Discard all appended bytes.
+     *
+     * @return This hasher.
+     */
+    public Hasher reset() {
+        digest.reset();
+        return this;
+    }
+}
@@ -0,0 +1,101 @@
+package cn.vorbote.core.utils;
+
+import java.util.Arrays;
+
+/**
+ * HexUtil can help you encode bytes to hex strings and decode hex strings to bytes. Both directions look up tables
+ * and write into pre-sized arrays, so no intermediate object is created for each byte.
+ *
+ * @author vorbote
+ */
+public final class HexUtil {
+
+    /**
+     * Lower case hex digits.
+     */
+    private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Values of hex digits indexed by the character, {@code -1} for non-hex characters.
+     */
+    private static final byte[] VALUES = new byte[128];
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            VALUES['a' + i] = (byte) (10 + i);
+            VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    /**
+     * Private constructor will prevent other coder create an instance of this class.
+     */
+    private HexUtil() {
+    }
+
+    /**
+     * Encode the bytes to a lower case hex string.
+     *
+     * @param bytes The bytes.
+     * @return The hex string, 2 characters for each byte.
+     */
+    public static String encode(byte[] bytes) {
+        return encode(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Encode a range of the bytes to a lower case hex string.
+     *
+     * @param bytes  The bytes.
+     * @param offset The offset of the first byte to encode.
+     * @param length The count of bytes to encode.
+     * @return The hex string, 2 characters for each byte.
+     */
+    public static String encode(byte[] bytes, int offset, int length) {
+        char[] chars = new char[length << 1];
+        for (int i = 0, j = 0; i < length; i++) {
+            int b = bytes[offset + i] & 0xff;
+            chars[j++] = DIGITS[b >>> 4];
+            chars[j++] = DIGITS[b & 0x0f];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Decode a hex string to bytes, both upper and lower case digits are accepted.
+     *
+     * @param hex The hex string.
+     * @return The bytes.
+     * @throws IllegalArgumentException If the length is odd or the string contains non-hex characters.
+     */
+    public static byte[] decode(CharSequence hex) {
+        int length = hex.length();
+        if ((length & 1) != 0) {
+            throw new IllegalArgumentException("Length of a hex string must be even.");
+        }
+        byte[] bytes = new byte[length >>> 1];
+        for (int i = 0, j = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (value(hex.charAt(j++)) << 4 | value(hex.charAt(j++)));
+        }
+        return bytes;
+    }
+
+    /**
+     * Get the value of a hex digit.
+     *
+     * @param c The hex digit.
+     * @return The value.
+     * @throws IllegalArgumentException If the character is not a hex digit.
+     */
+    private static int value(char c) {
+        int value = c < VALUES.length ? VALUES[c] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException(String.format("Illegal hex character '%s'.", c));
+        }
+        return value;
+    }
+}
@@ -0,0 +1,31 @@
+package cn.vorbote.core.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link TimeSource} reads {@link System#nanoTime()} anchored to the wall clock at creation.
+ *
+ * @author vorbote
+ */
+final class MonotonicTimeSource implements TimeSource {
+
+    /**
+     * The wall clock time when this time source was created.
+     */
+    private final long anchorMillis;
+
+    /**
+     * The value of {@link System#nanoTime()} when this time source was created.
+     */
+    private final long anchorNanos;
+
+    MonotonicTimeSource() {
+        this.anchorMillis = System.currentTimeMillis();
+        this.anchorNanos = System.nanoTime();
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return anchorMillis + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - anchorNanos);
+    }
+}
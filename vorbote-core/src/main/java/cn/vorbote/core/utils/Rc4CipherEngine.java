@@ -0,0 +1,173 @@
+package cn.vorbote.core.utils;
+
+import cn.vorbote.core.constants.Hash;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Rc4CipherEngine is the {@link CipherEngine} of RC4. The key schedule is computed once when the engine is created
+ * and copied for every operation. RC4 is a stream cipher, so encryption and decryption are the same operation and the
+ * data can be processed in place.
+ *
+ * @author vorbote
+ */
+public final class Rc4CipherEngine extends CipherEngine {
+
+    /**
+     * The state after the key schedule.
+     */
+    private final byte[] schedule;
+
+    /**
+     * Create an engine and compute the key schedule.
+     *
+     * @param key The key, must not be empty.
+     */
+    Rc4CipherEngine(byte[] key) {
+        schedule = new byte[256];
+        for (int i = 0; i < 256; i++) {
+            schedule[i] = (byte) i;
+        }
+
+        int j = 0;
+        for (int i = 0; i < 256; i++) {
+            j = ((key[i % key.length] & 0xff) + (schedule[i] & 0xff) + j) & 0xff;
+            byte tmp = schedule[i];
+            schedule[i] = schedule[j];
+            schedule[j] = tmp;
+        }
+    }
+
+    @Override
+    public Hash getMethod() {
+        return Hash.RC4;
+    }
+
+    @Override
+    public int encryptedSize(int length) {
+        return length;
+    }
+
+    @Override
+    public int decryptedSize(int length) {
+        return length;
+    }
+
+    /**
+     * Encrypt or decrypt a range of the array in place.
+     *
+     * @param data   The data.
+     * @param offset The offset of the first byte.
+     * @param length The count of bytes.
+     */
+    public void apply(byte[] data, int offset, int length) {
+        new Stream().apply(data, offset, data, offset, length);
+    }
+
+    /**
+     * Encrypt or decrypt the remaining bytes of the buffer in place. The position of the buffer is not changed.
+     *
+     * @param buffer The buffer.
+     */
+    public void apply(ByteBuffer buffer) {
+        new Stream().apply(buffer.duplicate(), buffer.duplicate());
+    }
+
+    @Override
+    public byte[] encrypt(byte[] data) {
+        byte[] result = new byte[data.length];
+        new Stream().apply(data, 0, result, 0, data.length);
+        return result;
+    }
+
+    @Override
+    public byte[] decrypt(byte[] data) {
+        return encrypt(data);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The input and output may be the same buffer, in which case the data is encrypted in place.
+     */
+    @Override
+    public int encrypt(ByteBuffer input, ByteBuffer output) {
+        return new Stream().apply(input, output);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The input and output may be the same buffer, in which case the data is decrypted in place.
+     */
+    @Override
+    public int decrypt(ByteBuffer input, ByteBuffer output) {
+        return new Stream().apply(input, output);
+    }
+
+    @Override
+    public long encrypt(ReadableByteChannel input, WritableByteChannel output) throws IOException {
+        Stream stream = new Stream();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long written = 0;
+        while (input.read(buffer) != -1) {
+            buffer.flip();
+            stream.apply(buffer.array(), 0, buffer.array(), 0, buffer.limit());
+            written += writeFully(output, buffer);
+            buffer.clear();
+        }
+        return written;
+    }
+
+    @Override
+    public long decrypt(ReadableByteChannel input, WritableByteChannel output) throws IOException {
+        return encrypt(input, output);
+    }
+
+    /**
+     * Stream is the key stream of one operation, it starts from a copy of the key schedule.
+     */
+    private final class Stream {
+
+        private final byte[] state = schedule.clone();
+        private int x;
+        private int y;
+
+        private byte next() {
+            x = (x + 1) & 0xff;
+            y = ((state[x] & 0xff) + y) & 0xff;
+            byte tmp = state[x];
+            state[x] = state[y];
+            state[y] = tmp;
+            return state[((state[x] & 0xff) + (state[y] & 0xff)) & 0xff];
+        }
+
+        void apply(byte[] input, int inputOffset, byte[] output, int outputOffset, int length) {
+            for (int i = 0; i < length; i++) {
+                output[outputOffset + i] = (byte) (input[inputOffset + i] ^ next());
+            }
+        }
+
+        int apply(ByteBuffer input, ByteBuffer output) {
+            int length = input.remaining();
+            if (output.remaining() < length) {
+                throw new IllegalArgumentException("Output buffer is too small.");
+            }
+            int in = input.position();
+            int out = output.position();
+            if (input.hasArray() && output.hasArray() && !output.isReadOnly()) {
+                apply(input.array(), input.arrayOffset() + in, output.array(), output.arrayOffset() + out, length);
+            } else {
+                for (int i = 0; i < length; i++) {
+                    output.put(out + i, (byte) (input.get(in + i) ^ next()));
+                }
+            }
+            input.position(in + length);
+            output.position(out + length);
+            return length;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package cn.vorbote.core.utils;
+
+import cn.vorbote.core.constants.ClockRollbackStrategy;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sharded Distributed Sequence Generator.
+ * <p>
+ * This generator holds a fixed pool of {@link ConcurrentSnowFlake} shards, and each thread is given a home shard in
+ * turn on its first call, so the first threads never share a shard. The highest bits of the sequence are given to the
+ * index of the shard, so the shards never issue the same id while each shard advances its own padded state only, and
+ * the ids are still ordered by time at the precision of a tick.
+ * <p>
+ * A shard owns only a part of the sequence of a tick. When the part of the home shard is exhausted, the caller takes
+ * ids from the other shards before waiting for the next tick, so a single hot thread can still use the whole sequence
+ * of every tick.
+ * <p>
+ * The ids keep the shape of the layout in use, therefore {@link #decode(long)} reports the index of the shard in the
+ * highest bits of the sequence.
+ *
+ * @author vorbote
+ */
+public final class ShardedSnowFlake {
+
+    private final long startEpoch;
+
+    private final SnowFlakeLayout layout;
+
+    private final ConcurrentSnowFlake[] shards;
+
+    private final int shardMask;
+
+    private final ClockRollbackStatistics rollbackStatistics = new ClockRollbackStatistics();
+
+    /**
+     * The index of the home shard of the next new thread.
+     */
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    /**
+     * The index of the home shard of each thread.
+     */
+    private final ThreadLocal<Integer> homeShard = ThreadLocal.withInitial(() -> nextShard.getAndIncrement());
+
+    /**
+     * Constructor can build a new ShardedSnowFlake instance.
+     *
+     * @param startEpoch     The start epoch to calculate.
+     * @param workerId       The id of the server.
+     * @param dataCentreId   The id of the data centre.
+     * @param layout         The bit layout of ids.
+     * @param timeSource     The source of current time.
+     * @param rollbackPolicy The policy to take when the clock moves backwards.
+     * @param leaseKeeper    The keeper of the lease of the ids, {@code null} if the ids are not leased.
+     * @param shardCount     The count of shards, should be a power of 2.
+     */
+    ShardedSnowFlake(long startEpoch, long workerId, long dataCentreId, SnowFlakeLayout layout,
+                     TimeSource timeSource, ClockRollbackPolicy rollbackPolicy, WorkerIdLeaseKeeper leaseKeeper,
+                     int shardCount) {
+        // Validate the arguments with the layout in use before widening the worker id.
+        new SnowFlake.Settings(startEpoch, workerId, dataCentreId, layout, timeSource, rollbackPolicy, leaseKeeper);
+
+        if (shardCount < 1 || Integer.bitCount(shardCount) != 1) {
+            throw new IllegalArgumentException("Count of shards should be a power of 2!");
+        }
+
+        int shardBits = Integer.numberOfTrailingZeros(shardCount);
+        if (shardBits >= layout.getSequenceBits()) {
+            throw new IllegalArgumentException(String.format(
+                    "Count of shards should be less than %d!", 1L << layout.getSequenceBits()));
+        }
+
+        // The worker id of a shard is the worker id followed by the index of the shard.
+        SnowFlakeLayout shardLayout = new SnowFlakeLayout(layout.getDataCentreIdBits(),
+                layout.getWorkerIdBits() + shardBits, layout.getSequenceBits() - shardBits, layout.getTickMillis());
+
+        this.startEpoch = startEpoch;
+        this.layout = layout;
+        this.shardMask = shardCount - 1;
+        this.shards = new ConcurrentSnowFlake[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new ConcurrentSnowFlake(startEpoch, (workerId << shardBits) | i, dataCentreId, shardLayout,
+                    timeSource, shardPolicy(rollbackPolicy, shardBits, i), leaseKeeper, rollbackStatistics);
+        }
+    }
+
+    /**
+     * Widen the standby worker id of the policy for a shard.
+     *
+     * @param rollbackPolicy The policy to take when the clock moves backwards.
+     * @param shardBits      Bits occupied by the index of the shard.
+     * @param shard          The index of the shard.
+     * @return The policy of the shard.
+     */
+    private static ClockRollbackPolicy shardPolicy(ClockRollbackPolicy rollbackPolicy, int shardBits, int shard) {
+        if (rollbackPolicy.getStrategy() != ClockRollbackStrategy.STANDBY) {
+            return rollbackPolicy;
+        }
+        return ClockRollbackPolicy.builder()
+                .strategy(rollbackPolicy.getStrategy())
+                .maxDriftMillis(rollbackPolicy.getMaxDriftMillis())
+                .standbyWorkerId((rollbackPolicy.getStandbyWorkerId() << shardBits) | shard)
+                .standbyDataCentreId(rollbackPolicy.getStandbyDataCentreId())
+                .build();
+    }
+
+    /**
+     * Get the count of shards.
+     *
+     * @return The count of shards.
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Get the counters of how often each clock rollback strategy was applied by all shards.
+     *
+     * @return The statistics of this generator.
+     */
+    public ClockRollbackStatistics getRollbackStatistics() {
+        return rollbackStatistics;
+    }
+
+    /**
+     * Decode an id generated by this generator.
+     *
+     * @param id The id.
+     * @return The parts of the id.
+     */
+    public SnowFlakeId decode(long id) {
+        return layout.decode(id, startEpoch);
+    }
+
+    /**
+     * Get next unique id from the home shard of current thread, or from the other shards if the home shard has
+     * exhausted its part of the current tick.
+     *
+     * @return A unique id.
+     */
+    public long nextId() {
+        int home = homeShard.get();
+        for (int i = 0; i < shards.length; i++) {
+            long id = shards[(home + i) & shardMask].tryNextId();
+            if (id != ConcurrentSnowFlake.EXHAUSTED) {
+                return id;
+            }
+        }
+        // 所有分片的本时间刻度序列均已耗尽，在本分片等待下一个时间刻度
+        return shards[home & shardMask].nextId();
+    }
+
+    /**
+     * Get a batch of unique ids from the home shard of current thread, and from the other shards if the home shard has
+     * exhausted its part of the current tick.
+     *
+     * @param n The count of ids required.
+     * @return An array contains {@code n} unique ids.
+     * @see ConcurrentSnowFlake#nextIds(int)
+     */
+    public long[] nextIds(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Count of ids can not be less than 0.");
+        }
+
+        long[] ids = new long[n];
+        int home = homeShard.get();
+        int filled = 0;
+        for (int i = 0; i < shards.length && filled < n; i++) {
+            filled = shards[(home + i) & shardMask].fill(ids, filled, false);
+        }
+        if (filled < n) {
+            shards[home & shardMask].fill(ids, filled, true);
+        }
+        return ids;
+    }
+}
@@ -1,10 +1,17 @@
 package cn.vorbote.core.utils;
 
 
+import cn.vorbote.core.constants.ClockRollbackStrategy;
 import cn.vorbote.core.exceptions.SnowFlakeException;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
 /**
  * Distributed Sequence Generator.
+ * <p>
+ * The constructors build a generator with the {@link SnowFlakeLayout#DEFAULT default layout} reading the wall clock,
+ * use {@link #builder()} to customise the bit layout, the tick and the time source.
  */
 public final class SnowFlake {
 
@@ -13,39 +20,43 @@ public final class SnowFlake {
     /**
      * 开始时间截 (2022-6-1)
      */
-    private static final long DEFAULT_START_EPOCH = 1_654_012_800_000L;
+    static final long DEFAULT_START_EPOCH = 1_654_012_800_000L;
 
     private final long startEpoch;
 
     /**
-     * 机器id所占的位数
+     * id 的位布局及由其计算出的常量
      */
-    private final long workerIdBits = 5L;
+    private final Settings settings;
 
     /**
-     * 数据标识id所占的位数
+     * 时间来源
      */
-    private final long dataCentreIdBits = 5L;
+    private final TimeSource timeSource;
 
     /**
-     * 工作机器ID(0~31)
+     * 时间刻度内序列
      */
-    private final long workerId;
+    private long sequence = 0L;
 
     /**
-     * 数据中心ID(0~31)
+     * 上次生成ID的时间刻度
      */
-    private final long dataCentreId;
+    private long lastTimestamp = -1L;
 
     /**
-     * 毫秒内序列(0~4095)
+     * 备用节点时间刻度内序列
      */
-    private long sequence = 0L;
+    private long standbySequence = 0L;
 
     /**
-     * 上次生成ID的时间截
+     * 备用节点上次生成ID的时间刻度
      */
-    private long lastTimestamp = -1L;
+    private long standbyLastTimestamp = -1L;
+
+    private final ClockRollbackPolicy rollbackPolicy;
+
+    private final ClockRollbackStatistics rollbackStatistics = new ClockRollbackStatistics();
     // endregion
 
     // region Constructor
@@ -68,94 +79,444 @@ public final class SnowFlake {
      * @param dataCentreId The id of the data centre. (Should between 0 and 31)
      */
     public SnowFlake(long startEpoch, long workerId, long dataCentreId) {
-        if (startEpoch > currentTimestamp()) {
-            throw new IllegalArgumentException("Start Epoch can not be greater than current timestamp!");
-        }
-
-        long maxWorkerId = ~(-1L << workerIdBits);
-        if (workerId > maxWorkerId || workerId < 0) {
-            throw new IllegalArgumentException(String.format("Worker Id can't be greater than %d or less than 0",
-                    maxWorkerId));
-        }
+        this(startEpoch, workerId, dataCentreId, ClockRollbackPolicy.reject());
+    }
 
-        long maxDataCentreId = ~(-1L << dataCentreIdBits);
-        if (dataCentreId > maxDataCentreId || dataCentreId < 0) {
-            throw new IllegalArgumentException(String.format("Data Centre Id can't be greater than %d or less than 0",
-                    maxDataCentreId));
-        }
+    /**
+     * Constructor can build a new SnowFlake instance.
+     *
+     * @param startEpoch     The start epoch to calculate.
+     * @param workerId       The id of the server. (Should between 0 and 31)
+     * @param dataCentreId   The id of the data centre. (Should between 0 and 31)
+     * @param rollbackPolicy The policy to take when the clock moves backwards.
+     */
+    public SnowFlake(long startEpoch, long workerId, long dataCentreId, ClockRollbackPolicy rollbackPolicy) {
+        this(startEpoch, workerId, dataCentreId, SnowFlakeLayout.DEFAULT, TimeSource.system(), rollbackPolicy, null);
+    }
 
+    /**
+     * Constructor can build a new SnowFlake instance.
+     *
+     * @param startEpoch     The start epoch to calculate.
+     * @param workerId       The id of the server.
+     * @param dataCentreId   The id of the data centre.
+     * @param layout         The bit layout of ids.
+     * @param timeSource     The source of current time.
+     * @param rollbackPolicy The policy to take when the clock moves backwards.
+     * @param leaseKeeper    The keeper of the lease of the ids, {@code null} if the ids are not leased.
+     */
+    private SnowFlake(long startEpoch, long workerId, long dataCentreId, SnowFlakeLayout layout,
+                      TimeSource timeSource, ClockRollbackPolicy rollbackPolicy, WorkerIdLeaseKeeper leaseKeeper) {
+        this.settings = new Settings(startEpoch, workerId, dataCentreId, layout, timeSource, rollbackPolicy,
+                leaseKeeper);
         this.startEpoch = startEpoch;
-        this.workerId = workerId;
-        this.dataCentreId = dataCentreId;
+        this.timeSource = timeSource;
+        this.rollbackPolicy = rollbackPolicy;
     }
     // endregion
 
     // region Methods
 
+    /**
+     * Generate a builder of {@code SnowFlake}.
+     *
+     * @return A builder of {@code SnowFlake}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Get the counters of how often each clock rollback strategy was applied.
+     *
+     * @return The statistics of this generator.
+     */
+    public ClockRollbackStatistics getRollbackStatistics() {
+        return rollbackStatistics;
+    }
+
+    /**
+     * Decode an id generated by this generator.
+     *
+     * @param id The id.
+     * @return The parts of the id.
+     */
+    public SnowFlakeId decode(long id) {
+        return settings.layout.decode(id, startEpoch);
+    }
+
     /**
      * Get next unique id.
      *
      * @return A unique id.
      */
     public synchronized long nextId() {
-        long timestamp = currentTimestamp();
+        settings.checkLease();
+        long timestamp = currentTicks();
+        long clock = timestamp;
 
-        // 如果当前时间小于上一次ID生成的时间戳，说明系统时钟回退过这个时候应当抛出异常
+        // 如果当前时间小于上一次ID生成的时间戳，说明系统时钟回退过，这个时候根据回退策略处理
         if (timestamp < lastTimestamp) {
-            throw new SnowFlakeException(
-                    String.format("Clock moved backwards. Refusing to generate id for %d milliseconds",
-                            lastTimestamp - timestamp));
+            long drift = (lastTimestamp - timestamp) * settings.layout.getTickMillis();
+            ClockRollbackStrategy strategy = rollbackPolicy.getStrategy();
+            if (strategy == ClockRollbackStrategy.THROW || drift > rollbackPolicy.getMaxDriftMillis()) {
+                rollbackStatistics.rejected();
+                throw new SnowFlakeException(
+                        String.format("Clock moved backwards. Refusing to generate id for %d milliseconds", drift));
+            }
+
+            switch (strategy) {
+                case STANDBY -> {
+                    return nextStandbyId(timestamp);
+                }
+                case WAIT -> {
+                    rollbackStatistics.waited();
+                    timestamp = awaitToNextTick(lastTimestamp - 1);
+                    clock = timestamp;
+                }
+                default -> timestamp = lastTimestamp;
+            }
         }
 
-        // 如果是同一时间生成的，则进行毫秒内序列
-        long sequenceBits = 12L;
+        // 如果是同一时间生成的，则进行时间刻度内序列
         if (lastTimestamp == timestamp) {
-            long sequenceMask = ~(-1L << sequenceBits);
-            sequence = (sequence + 1) & sequenceMask;
-            // 毫秒内序列溢出
+            sequence = (sequence + 1) & settings.sequenceMask;
+            // 时间刻度内序列溢出
             if (sequence == 0) {
-                // 阻塞到下一个毫秒,获得新的时间戳
-                timestamp = awaitToNextMillis(lastTimestamp);
+                if (rollbackPolicy.getStrategy() == ClockRollbackStrategy.BORROW
+                        && (lastTimestamp + 1 - clock) * settings.layout.getTickMillis()
+                        <= rollbackPolicy.getMaxDriftMillis()) {
+                    // 借用下一个时间刻度
+                    timestamp = lastTimestamp + 1;
+                } else {
+                    // 阻塞到下一个时间刻度,获得新的时间戳
+                    timestamp = awaitToNextTick(lastTimestamp);
+                    clock = timestamp;
+                }
             }
         }
-        // 时间戳改变，毫秒内序列重置
+        // 时间戳改变，时间刻度内序列重置
         else {
             sequence = 0L;
         }
 
+        if (timestamp > settings.maxTicks) {
+            throw new SnowFlakeException("Timestamp bits are exhausted, consider a later start epoch.");
+        }
+
+        if (timestamp > clock) {
+            rollbackStatistics.borrowed();
+        }
+
         // 上次生成ID的时间截
         lastTimestamp = timestamp;
 
         // 移位并通过或运算拼到一起组成64位的ID
-        long timestampLeftShift = sequenceBits + workerIdBits + dataCentreIdBits;
-        long dataCentreIdShift = sequenceBits + workerIdBits;
-        return ((timestamp - startEpoch) << timestampLeftShift)
-                | (dataCentreId << dataCentreIdShift)
-                | (workerId << sequenceBits)
-                | sequence;
+        return settings.layout.compose(timestamp, settings.node, sequence);
+    }
+
+    /**
+     * Get next unique id with the standby worker id and data centre id.
+     *
+     * @param timestamp Current ticks since the start epoch.
+     * @return A unique id.
+     */
+    private long nextStandbyId(long timestamp) {
+        if (timestamp < standbyLastTimestamp) {
+            rollbackStatistics.rejected();
+            throw new SnowFlakeException(
+                    String.format("Clock moved backwards. Refusing to generate standby id for %d milliseconds",
+                            (standbyLastTimestamp - timestamp) * settings.layout.getTickMillis()));
+        }
+
+        if (standbyLastTimestamp == timestamp) {
+            standbySequence = (standbySequence + 1) & settings.sequenceMask;
+            if (standbySequence == 0) {
+                awaitToNextTick(standbyLastTimestamp);
+                return nextId();
+            }
+        } else {
+            standbySequence = 0L;
+        }
+
+        standbyLastTimestamp = timestamp;
+        rollbackStatistics.standby();
+        return settings.layout.compose(timestamp, settings.standbyNode, standbySequence);
     }
 
     /**
-     * Block until the next millisecond until a new timestamp is obtained.
+     * Park until the clock reaches the tick after the given one. The thread parks rather than spins, since it holds the
+     * monitor of the generator and a clock rollback may take as long as the max drift to wait out.
      *
-     * @param lastTimestamp The timestamp when id was created last time.
-     * @return Current timestamp.
+     * @param lastTimestamp The ticks when id was created last time.
+     * @return Current ticks.
      */
-    private long awaitToNextMillis(long lastTimestamp) {
-        long timestamp = currentTimestamp();
-        while (timestamp <= lastTimestamp) {
-            timestamp = currentTimestamp();
+    private long awaitToNextTick(long lastTimestamp) {
+        long target = startEpoch + (lastTimestamp + 1) * settings.layout.getTickMillis();
+        long remaining = target - timeSource.currentTimeMillis();
+        while (remaining > 0) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(remaining));
+            remaining = target - timeSource.currentTimeMillis();
         }
-        return timestamp;
+        return currentTicks();
     }
 
     /**
-     * Return current timestamp with the unit of millisecond.
+     * Return current ticks since the start epoch.
      *
-     * @return Current time.
+     * @return Current ticks.
      */
-    private long currentTimestamp() {
-        return System.currentTimeMillis();
+    private long currentTicks() {
+        return (timeSource.currentTimeMillis() - startEpoch) / settings.layout.getTickMillis();
     }
     // endregion
-}
\ No newline at end of file
+
+    /**
+     * The validated layout of a generator, with the values used on every generation computed once.
+     */
+    static final class Settings {
+
+        final SnowFlakeLayout layout;
+
+        final long sequenceMask;
+
+        final long maxTicks;
+
+        final long node;
+
+        final long standbyNode;
+
+        /**
+         * The keeper of the lease of the ids, {@code null} if the ids are not leased.
+         */
+        final WorkerIdLeaseKeeper leaseKeeper;
+
+        /**
+         * Validate the arguments of a generator and compute the values of the layout.
+         *
+         * @param startEpoch     The start epoch to calculate.
+         * @param workerId       The id of the server.
+         * @param dataCentreId   The id of the data centre.
+         * @param layout         The bit layout of ids.
+         * @param timeSource     The source of current time.
+         * @param rollbackPolicy The policy to take when the clock moves backwards.
+         * @param leaseKeeper    The keeper of the lease of the ids, {@code null} if the ids are not leased.
+         */
+        Settings(long startEpoch, long workerId, long dataCentreId, SnowFlakeLayout layout, TimeSource timeSource,
+                 ClockRollbackPolicy rollbackPolicy, WorkerIdLeaseKeeper leaseKeeper) {
+            if (layout == null) {
+                throw new IllegalArgumentException("Layout can not be null!");
+            }
+
+            if (timeSource == null) {
+                throw new IllegalArgumentException("Time source can not be null!");
+            }
+
+            if (startEpoch > timeSource.currentTimeMillis()) {
+                throw new IllegalArgumentException("Start Epoch can not be greater than current timestamp!");
+            }
+
+            long maxWorkerId = layout.getMaxWorkerId();
+            if (workerId > maxWorkerId || workerId < 0) {
+                throw new IllegalArgumentException(String.format("Worker Id can't be greater than %d or less than 0",
+                        maxWorkerId));
+            }
+
+            long maxDataCentreId = layout.getMaxDataCentreId();
+            if (dataCentreId > maxDataCentreId || dataCentreId < 0) {
+                throw new IllegalArgumentException(String.format(
+                        "Data Centre Id can't be greater than %d or less than 0", maxDataCentreId));
+            }
+
+            if (rollbackPolicy == null) {
+                throw new IllegalArgumentException("Clock rollback policy can not be null!");
+            }
+            rollbackPolicy.validate(workerId, dataCentreId, maxWorkerId, maxDataCentreId);
+
+            this.layout = layout;
+            this.sequenceMask = layout.getMaxSequence();
+            this.maxTicks = layout.getMaxTicks();
+            this.node = layout.node(dataCentreId, workerId);
+            this.standbyNode = rollbackPolicy.getStrategy() == ClockRollbackStrategy.STANDBY
+                    ? layout.node(rollbackPolicy.getStandbyDataCentreId(), rollbackPolicy.getStandbyWorkerId())
+                    : node;
+            this.leaseKeeper = leaseKeeper;
+        }
+
+        /**
+         * Refuse to generate ids once the lease of the ids is lost, since another instance may hold them by now.
+         *
+         * @throws SnowFlakeException If the lease is lost.
+         */
+        void checkLease() {
+            if (leaseKeeper != null && !leaseKeeper.isValid()) {
+                throw new SnowFlakeException(String.format("The lease of worker id %d has been lost, refusing to "
+                        + "generate ids which may be duplicated.", leaseKeeper.getLease().getWorkerId()));
+            }
+        }
+    }
+
+    /**
+     * Inner class {@code Builder} of {@code SnowFlake}.
+     */
+    public static class Builder {
+
+        private long startEpoch = DEFAULT_START_EPOCH;
+
+        private long workerId;
+
+        private long dataCentreId;
+
+        private SnowFlakeLayout layout = SnowFlakeLayout.DEFAULT;
+
+        private TimeSource timeSource = TimeSource.system();
+
+        private ClockRollbackPolicy rollbackPolicy = ClockRollbackPolicy.reject();
+
+        private WorkerIdLeaseKeeper leaseKeeper;
+
+        /**
+         * Generate a new {@code Builder}, use protected to prevent other coders use it.
+         */
+        protected Builder() {
+        }
+
+        /**
+         * Set the start epoch to calculate.
+         *
+         * @param startEpoch The start epoch (unit: millisecond).
+         * @return {@code Builder} instance itself.
+         */
+        public Builder startEpoch(long startEpoch) {
+            this.startEpoch = startEpoch;
+            return this;
+        }
+
+        /**
+         * Set the id of the server.
+         *
+         * @param workerId The id of the server.
+         * @return {@code Builder} instance itself.
+         */
+        public Builder workerId(long workerId) {
+            this.workerId = workerId;
+            return this;
+        }
+
+        /**
+         * Set the id of the data centre.
+         *
+         * @param dataCentreId The id of the data centre.
+         * @return {@code Builder} instance itself.
+         */
+        public Builder dataCentreId(long dataCentreId) {
+            this.dataCentreId = dataCentreId;
+            return this;
+        }
+
+        /**
+         * Set the bit layout of ids.
+         *
+         * @param layout The bit layout.
+         * @return {@code Builder} instance itself.
+         */
+        public Builder layout(SnowFlakeLayout layout) {
+            this.layout = layout;
+            return this;
+        }
+
+        /**
+         * Set the bit layout of ids.
+         *
+         * @param dataCentreIdBits Bits occupied by the data centre id.
+         * @param workerIdBits     Bits occupied by the worker id.
+         * @param sequenceBits     Bits occupied by the sequence in one tick.
+         * @param tickMillis       The length (unit: millisecond) of one tick.
+         * @return {@code Builder} instance itself.
+         */
+        public Builder layout(int dataCentreIdBits, int workerIdBits, int sequenceBits, long tickMillis) {
+            return layout(new SnowFlakeLayout(dataCentreIdBits, workerIdBits, sequenceBits, tickMillis));
+        }
+
+        /**
+         * Set the source of current time.
+         *
+         * @param timeSource The time source.
+         * @return {@code Builder} instance itself.
+         * @see TimeSource#monotonic()
+         */
+        public Builder timeSource(TimeSource timeSource) {
+            this.timeSource = timeSource;
+            return this;
+        }
+
+        /**
+         * Set the policy to take when the clock moves backwards.
+         *
+         * @param rollbackPolicy The policy.
+         * @return {@code Builder} instance itself.
+         */
+        public Builder rollbackPolicy(ClockRollbackPolicy rollbackPolicy) {
+            this.rollbackPolicy = rollbackPolicy;
+            return this;
+        }
+
+        /**
+         * Use the worker id and the data centre id leased by the keeper. Generators built afterwards refuse to generate
+         * ids once the lease is lost.
+         *
+         * @param leaseKeeper The keeper of the lease.
+         * @return {@code Builder} instance itself.
+         */
+        public Builder leaseKeeper(WorkerIdLeaseKeeper leaseKeeper) {
+            this.leaseKeeper = leaseKeeper;
+            this.workerId = leaseKeeper.getLease().getWorkerId();
+            this.dataCentreId = leaseKeeper.getLease().getDataCentreId();
+            return this;
+        }
+
+        /**
+         * Build a {@code SnowFlake} instance.
+         *
+         * @return A {@code SnowFlake} instance with specified data.
+         */
+        public SnowFlake build() {
+            return new SnowFlake(startEpoch, workerId, dataCentreId, layout, timeSource, rollbackPolicy, leaseKeeper);
+        }
+
+        /**
+         * Build a lock-free {@code ConcurrentSnowFlake} instance.
+         *
+         * @return A {@code ConcurrentSnowFlake} instance with specified data.
+         */
+        public ConcurrentSnowFlake buildConcurrent() {
+            return new ConcurrentSnowFlake(startEpoch, workerId, dataCentreId, layout, timeSource, rollbackPolicy,
+                    leaseKeeper);
+        }
+
+        /**
+         * Build a {@code ShardedSnowFlake} instance with one shard for each available processor.
+         *
+         * @return A {@code ShardedSnowFlake} instance with specified data.
+         */
+        public ShardedSnowFlake buildSharded() {
+            int processors = Runtime.getRuntime().availableProcessors();
+            int shardCount = Integer.highestOneBit(processors) == processors
+                    ? processors
+                    : Integer.highestOneBit(processors) << 1;
+            int maxShardCount = 1 << (layout.getSequenceBits() - 1);
+            return buildSharded(Math.min(shardCount, maxShardCount));
+        }
+
+        /**
+         * Build a {@code ShardedSnowFlake} instance.
+         *
+         * @param shardCount The count of shards, should be a power of 2.
+         * @return A {@code ShardedSnowFlake} instance with specified data.
+         */
+        public ShardedSnowFlake buildSharded(int shardCount) {
+            return new ShardedSnowFlake(startEpoch, workerId, dataCentreId, layout, timeSource, rollbackPolicy,
+                    leaseKeeper, shardCount);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package cn.vorbote.core.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The parts of an id generated by {@code SnowFlake} generators.
+ *
+ * @author vorbote
+ * @see SnowFlakeLayout#decode(long, long)
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public final class SnowFlakeId {
+
+    /**
+     * The id itself.
+     */
+    private final long id;
+
+    /**
+     * The timestamp (unit: millisecond) of the tick when the id was generated.
+     */
+    private final long timestamp;
+
+    /**
+     * The id of the data centre.
+     */
+    private final long dataCentreId;
+
+    /**
+     * The id of the server.
+     */
+    private final long workerId;
+
+    /**
+     * The sequence in the tick.
+     */
+    private final long sequence;
+}
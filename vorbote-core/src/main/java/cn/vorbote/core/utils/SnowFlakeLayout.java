@@ -0,0 +1,160 @@
+package cn.vorbote.core.utils;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The bit layout of ids generated by {@code SnowFlake} generators. From the highest bit to the lowest bit, an id
+ * consists of a sign bit (always 0), the timestamp, the data centre id, the worker id and the sequence. The timestamp
+ * takes all bits left by the other parts, and counts ticks of {@code tickMillis} milliseconds since the start epoch.
+ *
+ * @author vorbote
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public final class SnowFlakeLayout {
+
+    /**
+     * The default layout, 41 bits of millisecond timestamp, 5 bits of data centre id, 5 bits of worker id and 12 bits
+     * of sequence.
+     */
+    public static final SnowFlakeLayout DEFAULT = new SnowFlakeLayout(5, 5, 12, 1L);
+
+    /**
+     * Bits occupied by the data centre id.
+     */
+    private final int dataCentreIdBits;
+
+    /**
+     * Bits occupied by the worker id.
+     */
+    private final int workerIdBits;
+
+    /**
+     * Bits occupied by the sequence in one tick.
+     */
+    private final int sequenceBits;
+
+    /**
+     * The length (unit: millisecond) of one tick of the timestamp.
+     */
+    private final long tickMillis;
+
+    /**
+     * Create a layout.
+     *
+     * @param dataCentreIdBits Bits occupied by the data centre id.
+     * @param workerIdBits     Bits occupied by the worker id.
+     * @param sequenceBits     Bits occupied by the sequence in one tick.
+     * @param tickMillis       The length (unit: millisecond) of one tick, such as {@code 1}, {@code 10} or
+     *                         {@code 1000}.
+     */
+    public SnowFlakeLayout(int dataCentreIdBits, int workerIdBits, int sequenceBits, long tickMillis) {
+        if (dataCentreIdBits < 0 || workerIdBits < 0) {
+            throw new IllegalArgumentException("Bits of ids can not be less than 0!");
+        }
+
+        if (sequenceBits < 1) {
+            throw new IllegalArgumentException("Bits of sequence can not be less than 1!");
+        }
+
+        if (dataCentreIdBits + workerIdBits + sequenceBits > 62) {
+            throw new IllegalArgumentException("There must be at least 1 bit left for the timestamp!");
+        }
+
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("Tick can not be shorter than 1 millisecond!");
+        }
+
+        this.dataCentreIdBits = dataCentreIdBits;
+        this.workerIdBits = workerIdBits;
+        this.sequenceBits = sequenceBits;
+        this.tickMillis = tickMillis;
+    }
+
+    /**
+     * Get the bits occupied by the timestamp.
+     *
+     * @return Bits occupied by the timestamp.
+     */
+    public int getTimestampBits() {
+        return 63 - dataCentreIdBits - workerIdBits - sequenceBits;
+    }
+
+    /**
+     * Get the max value of the data centre id.
+     *
+     * @return The max data centre id.
+     */
+    public long getMaxDataCentreId() {
+        return ~(-1L << dataCentreIdBits);
+    }
+
+    /**
+     * Get the max value of the worker id.
+     *
+     * @return The max worker id.
+     */
+    public long getMaxWorkerId() {
+        return ~(-1L << workerIdBits);
+    }
+
+    /**
+     * Get the max value of the sequence.
+     *
+     * @return The max sequence, also the mask of the sequence.
+     */
+    public long getMaxSequence() {
+        return ~(-1L << sequenceBits);
+    }
+
+    /**
+     * Get the max count of ticks can be stored in the timestamp.
+     *
+     * @return The max ticks.
+     */
+    public long getMaxTicks() {
+        return ~(-1L << getTimestampBits());
+    }
+
+    /**
+     * Shift the data centre id and the worker id into place.
+     *
+     * @param dataCentreId The id of the data centre.
+     * @param workerId     The id of the server.
+     * @return The shifted node bits.
+     */
+    long node(long dataCentreId, long workerId) {
+        return (dataCentreId << (workerIdBits + sequenceBits)) | (workerId << sequenceBits);
+    }
+
+    /**
+     * Compose the id with its parts.
+     *
+     * @param ticks    The ticks since the start epoch.
+     * @param node     The shifted node bits.
+     * @param sequence The sequence in the tick.
+     * @return The id.
+     */
+    long compose(long ticks, long node, long sequence) {
+        return (ticks << (dataCentreIdBits + workerIdBits + sequenceBits)) | node | sequence;
+    }
+
+    /**
+     * Decode an id generated with this layout.
+     *
+     * @param id         The id.
+     * @param startEpoch The start epoch used by the generator.
+     * @return The parts of the id.
+     */
+    public SnowFlakeId decode(long id, long startEpoch) {
+        long ticks = id >>> (dataCentreIdBits + workerIdBits + sequenceBits);
+        return new SnowFlakeId(id,
+                startEpoch + ticks * tickMillis,
+                (id >>> (workerIdBits + sequenceBits)) & getMaxDataCentreId(),
+                (id >>> sequenceBits) & getMaxWorkerId(),
+                id & getMaxSequence());
+    }
+}
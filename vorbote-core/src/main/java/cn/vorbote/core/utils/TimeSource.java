@@ -0,0 +1,37 @@
+package cn.vorbote.core.utils;
+
+/**
+ * The source of current time used by {@code SnowFlake} generators.
+ *
+ * @author vorbote
+ */
+@FunctionalInterface
+public interface TimeSource {
+
+    /**
+     * Return current timestamp with the unit of millisecond.
+     *
+     * @return Current time.
+     */
+    long currentTimeMillis();
+
+    /**
+     * Get the time source reads the wall clock by {@link System#currentTimeMillis()}.
+     *
+     * @return The wall clock time source.
+     */
+    static TimeSource system() {
+        return System::currentTimeMillis;
+    }
+
+    /**
+     * Get a time source reads {@link System#nanoTime()} and anchors it to the wall clock once at creation. This time
+     * source never moves backwards in the same JVM and makes no wall clock call while reading time, but it does not
+     * follow any later correction of the wall clock.
+     *
+     * @return A monotonic time source.
+     */
+    static TimeSource monotonic() {
+        return new MonotonicTimeSource();
+    }
+}
@@ -0,0 +1,229 @@
+package cn.vorbote.core.utils;
+
+import cn.vorbote.core.constants.Hash;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * TreeDigest is the result of {@link HashUtil#treeHash(Hash, java.nio.file.Path, int)}. The file is split into chunks
+ * of a fixed size, every chunk is hashed as a leaf and the leaves are combined into a Merkle tree.
+ * <p>
+ * To keep the result reproducible, the root mixes the hash algorithm, the chunk size and the length of the file with
+ * the top node of the tree, therefore two tree digests are equal only if they are produced by the same parameters.
+ * The digests of the chunks are kept, so the changed ranges of a file can be found by {@link #changedChunks(TreeDigest)}
+ * and re-hashed by {@link HashUtil#treeHash(TreeDigest, java.nio.file.Path, long, long)}.
+ *
+ * @author vorbote
+ */
+public final class TreeDigest {
+
+    /**
+     * Prefix of the leaves.
+     */
+    static final byte LEAF = 0x00;
+
+    /**
+     * Prefix of the inner nodes.
+     */
+    static final byte NODE = 0x01;
+
+    /**
+     * Prefix of the root.
+     */
+    static final byte ROOT = 0x02;
+
+    /**
+     * The hash algorithm.
+     */
+    private final Hash method;
+
+    /**
+     * The size of each chunk.
+     */
+    private final int chunkSize;
+
+    /**
+     * The length of the file.
+     */
+    private final long length;
+
+    /**
+     * The digests of the chunks.
+     */
+    private final byte[][] chunks;
+
+    /**
+     * The root of the tree.
+     */
+    private final byte[] root;
+
+    /**
+     * Create a tree digest and compute its root.
+     *
+     * @param method    The hash algorithm.
+     * @param chunkSize The size of each chunk.
+     * @param length    The length of the file.
+     * @param chunks    The digests of the chunks, will not be copied.
+     */
+    TreeDigest(Hash method, int chunkSize, long length, byte[][] chunks) {
+        this.method = method;
+        this.chunkSize = chunkSize;
+        this.length = length;
+        this.chunks = chunks;
+        this.root = computeRoot();
+    }
+
+    /**
+     * Combine the chunks level by level, an odd node at the end of a level is promoted to the next level.
+     *
+     * @return The root of the tree.
+     */
+    private byte[] computeRoot() {
+        MessageDigest md = HashUtil.messageDigest(method);
+        byte[][] level = chunks;
+        while (level.length > 1) {
+            byte[][] next = new byte[(level.length + 1) >>> 1][];
+            for (int i = 0; i < next.length; i++) {
+                int left = i << 1;
+                if (left + 1 < level.length) {
+                    md.update(NODE);
+                    md.update(level[left]);
+                    md.update(level[left + 1]);
+                    next[i] = md.digest();
+                } else {
+                    next[i] = level[left];
+                }
+            }
+            level = next;
+        }
+
+        md.update(ROOT);
+        md.update(method.getValue().toUpperCase().getBytes(StandardCharsets.US_ASCII));
+        md.update(ByteBuffer.allocate(Long.BYTES << 1).putLong(chunkSize).putLong(length).flip());
+        md.update(level[0]);
+        return md.digest();
+    }
+
+    /**
+     * Get the hash algorithm.
+     *
+     * @return The hash algorithm.
+     */
+    public Hash getMethod() {
+        return method;
+    }
+
+    /**
+     * Get the size of each chunk.
+     *
+     * @return The size of each chunk in bytes.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Get the length of the hashed file.
+     *
+     * @return The length in bytes.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Get the count of chunks, an empty file has one empty chunk.
+     *
+     * @return The count of chunks.
+     */
+    public int getChunkCount() {
+        return chunks.length;
+    }
+
+    /**
+     * Get the digest of a chunk.
+     *
+     * @param index The index of the chunk.
+     * @return A copy of the digest.
+     */
+    public byte[] getChunkDigest(int index) {
+        return chunks[index].clone();
+    }
+
+    /**
+     * Get the root of the tree.
+     *
+     * @return A copy of the root.
+     */
+    public byte[] getRoot() {
+        return root.clone();
+    }
+
+    /**
+     * Get the root of the tree as a lower case hex string.
+     *
+     * @return The hex string of the root.
+     */
+    public String getRootHex() {
+        return HexUtil.encode(root);
+    }
+
+    /**
+     * Find the chunks which are different from another tree digest. If the other one was produced with a different
+     * algorithm or chunk size, all chunks are considered changed.
+     *
+     * @param other The other tree digest.
+     * @return The indexes of the changed chunks in ascending order, including chunks existing in only one of them.
+     */
+    public int[] changedChunks(TreeDigest other) {
+        int count = Math.max(chunks.length, other.chunks.length);
+        if (method != other.method || chunkSize != other.chunkSize) {
+            int[] all = new int[count];
+            Arrays.setAll(all, i -> i);
+            return all;
+        }
+
+        int[] changed = new int[count];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (i >= chunks.length || i >= other.chunks.length
+                    || !MessageDigest.isEqual(chunks[i], other.chunks[i])) {
+                changed[size++] = i;
+            }
+        }
+        return Arrays.copyOf(changed, size);
+    }
+
+    /**
+     * Get the digests of all chunks, the arrays are shared.
+     *
+     * @return The digests of all chunks.
+     */
+    byte[][] chunks() {
+        return chunks;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TreeDigest that)) {
+            return false;
+        }
+        return Arrays.equals(root, that.root);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(root);
+    }
+
+    @Override
+    public String toString() {
+        return method.getValue().toUpperCase() + ":" + chunkSize + ":" + getRootHex();
+    }
+}
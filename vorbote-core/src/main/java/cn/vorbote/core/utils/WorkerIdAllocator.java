@@ -0,0 +1,45 @@
+package cn.vorbote.core.utils;
+
+/**
+ * The SPI to claim a worker id and data centre id for a {@code SnowFlake} generator, so that instances started at the
+ * same time never use the same ids. An implementation can coordinate through a shared directory, a database, a
+ * ZooKeeper ensemble and so on.
+ * <p>
+ * A lease has to be renewed periodically, or the allocator is free to give the ids to another instance after the
+ * lease expires. {@link WorkerIdLeaseKeeper} renews the lease in the background.
+ *
+ * @author vorbote
+ * @see FileLockWorkerIdAllocator
+ */
+public interface WorkerIdAllocator extends AutoCloseable {
+
+    /**
+     * Claim a free worker id.
+     *
+     * @return The lease of the claimed ids.
+     * @throws cn.vorbote.core.exceptions.SnowFlakeException If there is no free worker id.
+     */
+    WorkerIdLease acquire();
+
+    /**
+     * Renew a lease claimed by this allocator.
+     *
+     * @param lease The lease.
+     * @return Value {@code true} if the lease is still held by this allocator, or {@code false} if the lease has
+     * been lost and the ids must not be used any more.
+     */
+    boolean renew(WorkerIdLease lease);
+
+    /**
+     * Release a lease claimed by this allocator, the ids can be claimed by other instances afterwards.
+     *
+     * @param lease The lease.
+     */
+    void release(WorkerIdLease lease);
+
+    /**
+     * Release all leases claimed by this allocator.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,34 @@
+package cn.vorbote.core.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A worker id and data centre id claimed from a {@link WorkerIdAllocator}. The ids belong to the owner until the lease
+ * is released or expires without renewal.
+ *
+ * @author vorbote
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public final class WorkerIdLease {
+
+    /**
+     * The id of the server.
+     */
+    private final long workerId;
+
+    /**
+     * The id of the data centre.
+     */
+    private final long dataCentreId;
+
+    /**
+     * The owner of this lease.
+     */
+    private final String owner;
+}
@@ -0,0 +1,105 @@
+package cn.vorbote.core.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Claims a worker id from a {@link WorkerIdAllocator} and renews the lease in a background daemon thread until it is
+ * closed.
+ * <p>
+ * The lease is lost once the allocator reports a failed renewal, or no renewal has succeeded for two intervals, which
+ * is before the time-to-live of the lease expires if the interval is at most a third of it. Generators built with
+ * {@link SnowFlake.Builder#leaseKeeper(WorkerIdLeaseKeeper)} refuse to generate ids once the lease is lost.
+ *
+ * @author vorbote
+ */
+@Slf4j
+public final class WorkerIdLeaseKeeper implements AutoCloseable {
+
+    private final WorkerIdAllocator allocator;
+
+    private final WorkerIdLease lease;
+
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean valid = true;
+
+    /**
+     * The longest time in nanoseconds without a successful renewal before the lease is treated as lost.
+     */
+    private final long graceNanos;
+
+    /**
+     * {@link System#nanoTime()} of the last successful renewal.
+     */
+    private volatile long lastRenewal;
+
+    /**
+     * Claim a worker id and start renewing it.
+     *
+     * @param allocator     The allocator to claim the worker id from.
+     * @param renewInterval The interval between two renewals, should be shorter than the time-to-live of the lease.
+     */
+    public WorkerIdLeaseKeeper(WorkerIdAllocator allocator, Duration renewInterval) {
+        if (renewInterval == null || renewInterval.isNegative() || renewInterval.isZero()) {
+            throw new IllegalArgumentException("Interval of renewals should be positive!");
+        }
+
+        this.allocator = allocator;
+        this.lease = allocator.acquire();
+        this.graceNanos = renewInterval.toNanos() << 1;
+        this.lastRenewal = System.nanoTime();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "worker-id-lease-keeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = renewInterval.toMillis();
+        scheduler.scheduleAtFixedRate(this::renew, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Get the lease claimed.
+     *
+     * @return The lease.
+     */
+    public WorkerIdLease getLease() {
+        return lease;
+    }
+
+    /**
+     * Check whether the lease is still held.
+     *
+     * @return Value {@code false} if the lease is lost and the ids must not be used any more.
+     */
+    public boolean isValid() {
+        return valid && System.nanoTime() - lastRenewal <= graceNanos;
+    }
+
+    private void renew() {
+        try {
+            if (allocator.renew(lease)) {
+                lastRenewal = System.nanoTime();
+            } else {
+                valid = false;
+                log.error("The lease of worker id [{}] has been lost, generators using it refuse to generate ids.",
+                        lease.getWorkerId());
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to renew the lease of worker id [{}].", lease.getWorkerId(), e);
+        }
+    }
+
+    /**
+     * Stop renewing and release the lease.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        allocator.release(lease);
+    }
+}
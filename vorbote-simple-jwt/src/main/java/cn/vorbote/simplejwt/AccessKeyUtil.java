@@ -1,20 +1,26 @@
 package cn.vorbote.simplejwt;
 
 import cn.vorbote.core.time.DateTime;
+import cn.vorbote.core.exceptions.UnsupportedHashAlgorithmException;
 import cn.vorbote.core.time.TimeSpan;
-import cn.vorbote.core.utils.MapUtil;
-import cn.vorbote.simplejwt.annotations.JwtIgnore;
 import cn.vorbote.simplejwt.choices.JwtAlgorithm;
+import cn.vorbote.simplejwt.exceptions.TokenRevokedException;
+import cn.vorbote.simplejwt.keys.JwtKeySet;
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.JWTCreator;
 import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTCreationException;
+import com.auth0.jwt.exceptions.TokenExpiredException;
 import com.auth0.jwt.interfaces.Claim;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
-import java.lang.reflect.Field;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
@@ -34,34 +40,222 @@ public class AccessKeyUtil {
         jti: jwt的唯一身份标识，主要用来作为一次性token，从而回避重放攻击。
     */
 
+    /**
+     * Parses and writes the header and payload when renewing tokens.
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     private final JwtAlgorithm algorithm;
-    private String secret;
-    private String issuer;
+
+    /**
+     * The asymmetric keys of RS and ES algorithms, {@code null} for HS algorithms.
+     */
+    private final JwtKeySet keySet;
+
+    /**
+     * The secret, issuer and the signer and verifier built from them. They are replaced as a whole when the secret or
+     * the issuer changes, so a request always signs and verifies with a consistent snapshot.
+     */
+    private volatile Keys keys;
+
+    /**
+     * The optional cache of verified tokens.
+     */
+    private volatile VerifiedTokenCache tokenCache;
+
+    /**
+     * The optional list of revoked tokens.
+     */
+    private volatile TokenRevocationList revocationList;
 
     protected String getSecret() {
-        return secret;
+        return keys.secret();
     }
 
-    protected void setSecret(String secret) {
-        this.secret = secret;
+    protected synchronized void setSecret(String secret) {
+        if (keySet != null) {
+            throw new IllegalStateException("Algorithm " + algorithm + " uses a key set instead of a secret.");
+        }
+        this.keys = buildKeys(secret, keys.issuer());
+        // 密钥轮换后，使用旧密钥验证过的令牌不再可信
+        VerifiedTokenCache cache = tokenCache;
+        if (cache != null) {
+            cache.invalidateAll();
+        }
     }
 
     protected String getIssuer() {
-        return issuer;
+        return keys.issuer();
     }
 
-    protected void setIssuer(String issuer) {
-        this.issuer = issuer;
+    protected synchronized void setIssuer(String issuer) {
+        this.keys = buildKeys(keys.secret(), issuer);
+        // 签发者变更后，按旧签发者验证过的令牌不再可信
+        VerifiedTokenCache cache = tokenCache;
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Replace the secret and the issuer at once without rebuilding this util, requests in flight keep using the keys
+     * they have read. The cached verified tokens are dropped if either changes, as they were verified against the
+     * previous secret and issuer.
+     *
+     * @param secret The new secret, ignored for RS and ES algorithms whose keys are rotated through the key set.
+     * @param issuer The new issuer.
+     */
+    public synchronized void reload(String secret, @NonNull String issuer) {
+        Keys current = this.keys;
+        String newSecret = keySet == null ? secret : null;
+        if (Objects.equals(current.secret(), newSecret) && current.issuer().equals(issuer)) {
+            return;
+        }
+        this.keys = buildKeys(newSecret, issuer);
+        VerifiedTokenCache cache = tokenCache;
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+        log.info("JSON Web Token keys reloaded, issuer: {}.", issuer);
     }
 
     protected JwtAlgorithm getAlgorithm() {
         return algorithm;
     }
 
+    /**
+     * Get the key set of RS and ES algorithms. Keys can be rotated through it at runtime.
+     *
+     * @return The key set, {@code null} for HS algorithms.
+     */
+    public JwtKeySet getKeySet() {
+        return keySet;
+    }
+
+    /**
+     * Get the cache of verified tokens.
+     *
+     * @return The cache, or {@code null} if tokens are verified every time.
+     */
+    public VerifiedTokenCache getTokenCache() {
+        return tokenCache;
+    }
+
+    /**
+     * Set the cache of verified tokens, then {@link #info(String)} and {@link #verify(String)} will only verify a token
+     * for the first time it is seen until the cached entry expires.
+     *
+     * @param tokenCache The cache, or {@code null} to verify tokens every time.
+     */
+    public void setTokenCache(VerifiedTokenCache tokenCache) {
+        this.tokenCache = tokenCache;
+    }
+
+    /**
+     * Get the list of revoked tokens.
+     *
+     * @return The revocation list, or {@code null} if tokens can't be revoked.
+     */
+    public TokenRevocationList getRevocationList() {
+        return revocationList;
+    }
+
+    /**
+     * Set the list of revoked tokens, then {@link #info(String)} and {@link #verify(String)} will reject the tokens
+     * revoked by {@link #revoke(String)}.
+     *
+     * @param revocationList The revocation list, or {@code null} if tokens can't be revoked.
+     */
+    public void setRevocationList(TokenRevocationList revocationList) {
+        this.revocationList = revocationList;
+    }
+
+    /**
+     * Create a token util of an HS algorithm.
+     *
+     * @param algorithm The HS algorithm.
+     * @param secret    The secret.
+     * @param issuer    The issuer.
+     * @throws IllegalArgumentException          If the algorithm is an RS or ES algorithm, which needs a key set.
+     * @throws UnsupportedHashAlgorithmException If the algorithm is a PS algorithm.
+     */
     public AccessKeyUtil(@NonNull JwtAlgorithm algorithm, @NonNull String secret, @NonNull String issuer) {
         this.algorithm = algorithm;
-        this.secret = secret;
-        this.issuer = issuer;
+        this.keySet = null;
+        this.keys = buildKeys(secret, issuer);
+    }
+
+    /**
+     * Create a token util of an RS or ES algorithm. Tokens are signed by the signing key of the key set and verified
+     * by the key selected by the {@code kid} in their headers, so keys can be rotated through the key set without
+     * rebuilding this util.
+     *
+     * @param algorithm The RS or ES algorithm.
+     * @param keySet    The key set.
+     * @param issuer    The issuer.
+     * @throws IllegalArgumentException          If the algorithm is an HS algorithm, which needs a secret.
+     * @throws UnsupportedHashAlgorithmException If the algorithm is a PS algorithm.
+     */
+    public AccessKeyUtil(@NonNull JwtAlgorithm algorithm, @NonNull JwtKeySet keySet, @NonNull String issuer) {
+        this.algorithm = algorithm;
+        this.keySet = keySet;
+        this.keys = buildKeys(null, issuer);
+        keySet.addRemovalListener(kid -> {
+            VerifiedTokenCache cache = tokenCache;
+            if (cache != null) {
+                cache.invalidateByKeyId(kid);
+            }
+        });
+    }
+
+    /**
+     * The immutable snapshot of the keys. Both {@link Algorithm} and {@link JWTVerifier} are thread-safe, so they are
+     * built once and shared by all requests.
+     *
+     * @param secret   The secret, {@code null} for RS and ES algorithms.
+     * @param issuer   The issuer.
+     * @param signer   The algorithm built from the secret or the key set.
+     * @param verifier The verifier built from the algorithm.
+     */
+    private record Keys(String secret, String issuer, Algorithm signer, JWTVerifier verifier) {
+    }
+
+    /**
+     * Build the algorithm and the verifier of the secret or the key set.
+     *
+     * @param secret The secret, {@code null} for RS and ES algorithms.
+     * @param issuer The issuer.
+     * @return The snapshot of the keys.
+     */
+    private Keys buildKeys(String secret, @NonNull String issuer) {
+        Algorithm signer = switch (algorithm) {
+            case HS256, HS384, HS512 -> {
+                if (secret == null) {
+                    throw new IllegalArgumentException("Algorithm " + algorithm + " requires a secret.");
+                }
+                yield switch (algorithm) {
+                    case HS384 -> Algorithm.HMAC384(secret);
+                    case HS512 -> Algorithm.HMAC512(secret);
+                    default -> Algorithm.HMAC256(secret);
+                };
+            }
+            case RS256, RS384, RS512, ES256, ES384, ES512 -> {
+                if (keySet == null) {
+                    throw new IllegalArgumentException("Algorithm " + algorithm + " requires a key set.");
+                }
+                yield switch (algorithm) {
+                    case RS256 -> Algorithm.RSA256(keySet.asRsaKeyProvider());
+                    case RS384 -> Algorithm.RSA384(keySet.asRsaKeyProvider());
+                    case RS512 -> Algorithm.RSA512(keySet.asRsaKeyProvider());
+                    case ES256 -> Algorithm.ECDSA256(keySet.asEcdsaKeyProvider());
+                    case ES384 -> Algorithm.ECDSA384(keySet.asEcdsaKeyProvider());
+                    default -> Algorithm.ECDSA512(keySet.asEcdsaKeyProvider());
+                };
+            }
+            // PS 系列算法暂未被 java-jwt 支持
+            default -> throw new UnsupportedHashAlgorithmException(algorithm.name());
+        };
+        return new Keys(secret, issuer, signer, JWT.require(signer).build());
     }
 
     /**
@@ -75,7 +269,7 @@ public class AccessKeyUtil {
     private void buildBasicInfo(String subject, String[] audience, TimeSpan expire, JWTCreator.Builder builder) {
         DateTime now = DateTime.now();
 
-        builder.withIssuer(issuer);
+        builder.withIssuer(keys.issuer());
         builder.withIssuedAt(now.toDate());
         builder.withNotBefore(now.toDate());
         builder.withAudience(audience);
@@ -106,19 +300,7 @@ public class AccessKeyUtil {
      * @return The built token.
      */
     private String buildToken(JWTCreator.Builder builder) {
-        String token;
-
-        switch (algorithm) {
-            case HS256 -> token = builder.sign(Algorithm.HMAC256(secret));
-            case HS384 -> token = builder.sign(Algorithm.HMAC384(secret));
-            case HS512 -> token = builder.sign(Algorithm.HMAC512(secret));
-            default -> {
-                token = builder.sign(Algorithm.HMAC256(secret));
-                log.error("This algorithm is not supported yet, will use HMAC256 by default.");
-            }
-        }
-
-        return token;
+        return builder.sign(keys.signer());
     }
 
     /**
@@ -153,9 +335,7 @@ public class AccessKeyUtil {
      *                                is enforcing Java language
      *                                access control and the underlying
      *                                field is inaccessible.
-     * @see Class#getDeclaredFields()
-     * @see Field#get(Object)
-     * @see Field#setAccessible(boolean)
+     * @see BeanClaimsMapper
      * @see JWTCreator.Builder#withClaim(String, Boolean)
      * @see JWTCreator.Builder#withClaim(String, Date)
      * @see JWTCreator.Builder#withClaim(String, Double)
@@ -169,45 +349,7 @@ public class AccessKeyUtil {
         final JWTCreator.Builder builder = JWT.create();
         buildBasicInfo(subject, audiences, expire, builder);
 
-        Class<?> beanClass = bean.getClass();
-        Field[] fields = beanClass.getDeclaredFields();
-        for (Field field : fields) {
-            if (field.isAnnotationPresent(JwtIgnore.class))
-                continue;
-            field.setAccessible(true);
-            var fieldName = field.getName();
-            var fieldValue = field.get(bean);
-            // 跳过空数据
-            if (fieldValue != null) {
-                // 经过实验，无法通过动态转换进行 withClaim 运算，因此只能一个一个进行 instanceof 运算
-                // 并进行强制转换
-                // region 强制转换
-                if (fieldValue instanceof Boolean v) {
-                    builder.withClaim(fieldName, v);
-                } else if (fieldValue instanceof Double v) {
-                    builder.withClaim(fieldName, v);
-                } else if (fieldValue instanceof Float v) {
-                    builder.withClaim(fieldName, v.doubleValue());
-                } else if (fieldValue instanceof Integer v) {
-                    builder.withClaim(fieldName, v);
-                } else if (fieldValue instanceof Long v) {
-                    builder.withClaim(fieldName, v);
-                } else if (fieldValue instanceof String v) {
-                    builder.withClaim(fieldName, v);
-                } else if (fieldValue instanceof Date v) {
-                    builder.withClaim(fieldName, v);
-                } else if (fieldValue instanceof DateTime v) {
-                    builder.withClaim(fieldName, v.toDate());
-                } else if (fieldValue instanceof List<?> v) {
-                    builder.withClaim(fieldName, v);
-                } else {
-                    log.error("The property [{}] is of an unsupported type and will be converted to String, please " +
-                            "ensure that the toString() method is overridden correctly! ", fieldName);
-                    builder.withClaim(fieldName, fieldValue.toString());
-                }
-                // endregion
-            }
-        }
+        BeanClaimsMapper.of(bean.getClass()).write(bean, builder);
 
         return buildToken(builder);
     }
@@ -244,7 +386,8 @@ public class AccessKeyUtil {
 
     /**
      * Decode the token, and you can easily get some info from
-     * this token.
+     * this token. If a {@link VerifiedTokenCache} is set, the verified
+     * result is cached.
      *
      * @param token The token.
      * @return The decoded jwt token.
@@ -255,50 +398,124 @@ public class AccessKeyUtil {
      * @throws com.auth0.jwt.exceptions.TokenExpiredException          If the token has expired.
      * @throws com.auth0.jwt.exceptions.InvalidClaimException          If a claim contained a different value
      *                                                                 than the expected one.
+     * @throws TokenRevokedException                                   If the token has been revoked.
      * @throws com.auth0.jwt.exceptions.JWTVerificationException       If any of the verification steps fail
      * @see JWTVerifier#verify(String)
      */
     public DecodedJWT info(String token) {
-        JWTVerifier verifier;
-        switch (algorithm) {
-            case HS256 -> verifier = JWT.require(Algorithm.HMAC256(secret)).build();
-            case HS384 -> verifier = JWT.require(Algorithm.HMAC384(secret)).build();
-            case HS512 -> verifier = JWT.require(Algorithm.HMAC512(secret)).build();
-            default -> {
-                // 这里理论上应该抛出异常的，但是实在是懒得做了，就先这样吧。
-                // 至于其他的算法，后续再考虑加上。
-                verifier = JWT.require(Algorithm.HMAC256(secret)).build();
-                log.error("This algorithm is not supported yet, will use HMAC256 by default.");
-            }
+        VerifiedTokenCache cache = tokenCache;
+        // 在缓存读取失效代数之后才读取密钥，验证期间密钥被替换或撤下时，结果不会被缓存
+        DecodedJWT jwt = cache == null
+                ? keys.verifier().verify(token)
+                : cache.get(token, t -> keys.verifier().verify(t));
+        TokenRevocationList revocations = revocationList;
+        if (revocations != null && revocations.isRevoked(jwt.getId())) {
+            throw new TokenRevokedException(jwt.getId());
+        }
+        return jwt;
+    }
+
+    /**
+     * Revoke the token, it will be rejected by {@link #info(String)} until it expires. Nothing happens if the token
+     * has expired already.
+     *
+     * @param token The token.
+     * @throws IllegalStateException                              If no revocation list is set.
+     * @throws com.auth0.jwt.exceptions.JWTVerificationException If the token is not a valid token of this util, so a
+     *                                                            forged token can't revoke others' tokens.
+     */
+    public void revoke(String token) {
+        TokenRevocationList revocations = revocationList;
+        if (revocations == null) {
+            throw new IllegalStateException("No revocation list is set, tokens can't be revoked.");
+        }
+        DecodedJWT jwt;
+        try {
+            jwt = keys.verifier().verify(token);
+        } catch (TokenExpiredException e) {
+            return;
+        }
+        revocations.revoke(jwt);
+        VerifiedTokenCache cache = tokenCache;
+        if (cache != null) {
+            cache.invalidate(token);
         }
-        return verifier.verify(token);
     }
 
     /**
-     * Renew the token.
+     * Renew the token. The token is verified once, then only its {@code iss}, {@code iat}, {@code nbf}, {@code exp}
+     * and {@code jti} are rewritten in the payload and the payload is signed again by the cached algorithm, so all
+     * other claims keep their original JSON types.
      *
      * @param token       The original token.
      * @param expireAfter The time period (seconds) when the new token expired.
      * @return The renewed token.
      */
     public String renew(String token, TimeSpan expireAfter) {
+        return resign(info(token), expireAfter);
+    }
+
+    /**
+     * Renew the token only if it will expire within the window, otherwise the original token is returned. This is
+     * the sliding session: active clients keep their sessions alive, while most requests don't mint a new token.
+     *
+     * @param token       The original token.
+     * @param expireAfter The time period when the new token expired.
+     * @param window      The token is renewed if it will expire within this time period.
+     * @return The renewed token, or the original token if it's not within the window.
+     */
+    public String renewIfExpiring(String token, TimeSpan expireAfter, TimeSpan window) {
         final DecodedJWT info = this.info(token);
-        final HashMap<String, Object> map = new HashMap<>();
-        // 排除一些JWT已经定义好用处的字段
-        List<String> keys = Arrays.asList("aud", "sub", "nbf", "iss", "exp", "iat", "jti");
-        for (Map.Entry<String, Claim> e : info.getClaims().entrySet()) {
-            if (!keys.contains(e.getKey())) {
-                map.put(e.getKey(), e.getValue().asString());
-            }
+        Date expiresAt = info.getExpiresAt();
+        if (expiresAt != null && expiresAt.getTime() - System.currentTimeMillis() > window.getTotalSeconds() * 1000) {
+            return token;
         }
+        return resign(info, expireAfter);
+    }
+
+    /**
+     * Rewrite the time claims and the id of the verified token and sign it again. The header is kept unless the key
+     * id has to change after a key rotation.
+     *
+     * @param info        The verified token.
+     * @param expireAfter The time period when the new token expired.
+     * @return The new token.
+     */
+    private String resign(DecodedJWT info, TimeSpan expireAfter) {
+        final Keys keys = this.keys;
+        final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        final Base64.Decoder decoder = Base64.getUrlDecoder();
+        try {
+            String header = info.getHeader();
+            // 通过签名算法读取签名密钥编号，随后的签名使用同一把密钥
+            String signingKid = keys.signer().getSigningKeyId();
+            if (keySet != null && !Objects.equals(info.getKeyId(), signingKid)) {
+                ObjectNode headerNode = (ObjectNode) MAPPER.readTree(decoder.decode(header));
+                headerNode.put("kid", signingKid);
+                header = encoder.encodeToString(MAPPER.writeValueAsBytes(headerNode));
+            }
 
-        String[] audiences = info.getAudience().toArray(new String[0]);
-        return createToken(expireAfter, info.getSubject(), audiences, map);
+            // 仅改写时间相关字段与令牌编号，其余字段保持原有类型
+            ObjectNode payloadNode = (ObjectNode) MAPPER.readTree(decoder.decode(info.getPayload()));
+            long now = System.currentTimeMillis() / 1000;
+            payloadNode.put("iss", keys.issuer());
+            payloadNode.put("iat", now);
+            payloadNode.put("nbf", now);
+            payloadNode.put("exp", now + expireAfter.getTotalSeconds());
+            payloadNode.put("jti", UUID.randomUUID().toString());
+            String payload = encoder.encodeToString(MAPPER.writeValueAsBytes(payloadNode));
+
+            byte[] signature = keys.signer().sign(header.getBytes(StandardCharsets.US_ASCII),
+                    payload.getBytes(StandardCharsets.US_ASCII));
+            return header + "." + payload + "." + encoder.encodeToString(signature);
+        } catch (IOException e) {
+            throw new JWTCreationException("Failed to renew the token.", e);
+        }
     }
 
     /**
      * Renew this token with the data in the bean. This method will auto distract
-     * the data needed by required type.
+     * the data needed by required type. The token is verified only once.
      *
      * @param token        The original token.
      * @param expireAfter  Expire after this time.
@@ -313,8 +530,8 @@ public class AccessKeyUtil {
     public String renewWithBean(String token, TimeSpan expireAfter, Class<?> requiredType)
             throws Exception {
         final DecodedJWT info = this.info(token);
-        Object bean = getBean(token, requiredType);
-        String[] audiences = info.getAudience().toArray(new String[0]);
+        Object bean = BeanClaimsMapper.of(requiredType).read(info.getClaims());
+        String[] audiences = info.getAudience() == null ? null : info.getAudience().toArray(new String[0]);
 
         return createTokenWithBean(expireAfter, info.getSubject(), audiences, bean);
     }
@@ -326,10 +543,10 @@ public class AccessKeyUtil {
      * the key must be the same with that field in the required
      * type (such as the field name in required is declared as
      * {@code private String name;}, then your key must be
-     * {@code name}). Meanwhile, the setter for this field is
-     * required either. Be advised, the field log and logger
-     * is thought as a helper field, thus, it will not be put
-     * into the token.
+     * {@code name}). The value is set through the setter of
+     * this field, or directly if there is no setter. Be advised,
+     * the field log and logger is thought as a helper field,
+     * thus, it will not be put into the token.
      *
      * @param token        The user token.
      * @param requiredType The class of user.
@@ -339,37 +556,12 @@ public class AccessKeyUtil {
      *                   could cause some exception, please
      *                   see its upriver methods.
      * @see Class#getConstructor(Class...)
-     * @see Class#getDeclaredFields()
-     * @see java.lang.reflect.Constructor#newInstance(Object...)
-     * @see Map#get(Object)
-     * @see MapUtil#setFieldValue(Object, String, Object)
+     * @see BeanClaimsMapper
      */
     public <T> T getBean(String token, Class<T> requiredType)
             throws Exception {
         // 创建token的解析对象
         Map<String, Claim> tokenInfo = info(token).getClaims();
-
-        // 获取默认无参构造并创建对象
-        T bean = requiredType.getConstructor().newInstance();
-
-        Field[] fields = requiredType.getDeclaredFields();
-        for (Field field : fields) {
-            if (field.isAnnotationPresent(JwtIgnore.class))
-                continue;
-            String fieldName = field.getName();
-            if (fieldName.equalsIgnoreCase("log") || fieldName.equalsIgnoreCase("logger"))
-                continue;
-            // 根据名字创建属性并设置值
-            Object fieldValue = Optional.ofNullable(tokenInfo.get(fieldName))
-                    .map(claim -> claim.as(field.getType()))
-                    .orElse(null);
-            if (fieldValue != null) {
-                log.debug("为{}注入数据：{}", fieldName, fieldValue);
-                log.debug("数据值：{}，数据类型：{}", fieldValue, fieldValue.getClass());
-                MapUtil.setFieldValue(bean, fieldName, fieldValue);
-            }
-        }
-
-        return bean;
+        return BeanClaimsMapper.of(requiredType).read(tokenInfo);
     }
 }
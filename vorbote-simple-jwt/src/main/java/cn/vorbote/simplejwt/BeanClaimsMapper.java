@@ -0,0 +1,322 @@
+package cn.vorbote.simplejwt;
+
+import cn.vorbote.core.time.DateTime;
+import cn.vorbote.simplejwt.annotations.JwtIgnore;
+import com.auth0.jwt.JWTCreator;
+import com.auth0.jwt.interfaces.Claim;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * BeanClaimsMapper maps the fields of a bean class to claims and back. A mapper is built once per class and cached in
+ * a {@link ClassValue}: the fields are resolved to {@link MethodHandle}s and each field gets a claim writer and reader
+ * chosen by its declared type, so mapping a bean does no reflection lookup.
+ * <p>
+ * Static fields and fields marked by {@link JwtIgnore} are skipped. A field is read back through its setter
+ * ({@code setName}) if there is one, otherwise the field is set directly unless it's final.
+ *
+ * @author vorbote
+ */
+@Slf4j
+final class BeanClaimsMapper {
+
+    /**
+     * Mappers of all mapped classes.
+     */
+    private static final ClassValue<BeanClaimsMapper> MAPPERS = new ClassValue<>() {
+        @Override
+        protected BeanClaimsMapper computeValue(Class<?> type) {
+            return new BeanClaimsMapper(type);
+        }
+    };
+
+    /**
+     * Writes a non-null value to the builder as a claim.
+     */
+    @FunctionalInterface
+    private interface ClaimWriter {
+        void write(JWTCreator.Builder builder, String name, Object value);
+    }
+
+    /**
+     * A mapped field.
+     *
+     * @param name   The name of the field and the claim.
+     * @param getter The getter of the field, of type {@code (Object)Object}.
+     * @param setter The setter of the field, of type {@code (Object,Object)void}, {@code null} if it can't be set.
+     * @param writer The claim writer of the field type.
+     * @param reader The claim reader of the field type.
+     * @param type   The declared type of the field.
+     */
+    private record Property(String name, MethodHandle getter, MethodHandle setter, ClaimWriter writer,
+                            BiFunction<Claim, Class<?>, Object> reader, Class<?> type) {
+    }
+
+    /**
+     * The mapped class.
+     */
+    private final Class<?> type;
+
+    /**
+     * The no-argument constructor, of type {@code ()Object}, {@code null} if there is no public one.
+     */
+    private final MethodHandle constructor;
+
+    /**
+     * The mapped fields.
+     */
+    private final Property[] properties;
+
+    /**
+     * Get the mapper of the class.
+     *
+     * @param type The bean class.
+     * @return The mapper.
+     */
+    static BeanClaimsMapper of(Class<?> type) {
+        return MAPPERS.get(type);
+    }
+
+    private BeanClaimsMapper(Class<?> type) {
+        this.type = type;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+        MethodHandle ctor;
+        try {
+            ctor = lookup.unreflectConstructor(type.getConstructor())
+                    .asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            ctor = null;
+        }
+        this.constructor = ctor;
+
+        List<Property> list = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || field.isAnnotationPresent(JwtIgnore.class)) {
+                continue;
+            }
+            try {
+                field.setAccessible(true);
+                MethodHandle getter = lookup.unreflectGetter(field)
+                        .asType(MethodType.methodType(Object.class, Object.class));
+                list.add(new Property(field.getName(), getter, setter(lookup, field), writer(field.getType()),
+                        reader(field.getType()), field.getType()));
+            } catch (IllegalAccessException | RuntimeException e) {
+                log.warn("The property [{}] of {} is inaccessible and will be skipped.", field.getName(),
+                        type.getName());
+            }
+        }
+        this.properties = list.toArray(new Property[0]);
+    }
+
+    /**
+     * Find the setter of the field, or set the field directly if it has no setter.
+     *
+     * @param lookup The lookup.
+     * @param field  The accessible field.
+     * @return The setter, {@code null} if the field can't be set.
+     */
+    private MethodHandle setter(MethodHandles.Lookup lookup, Field field) throws IllegalAccessException {
+        String name = field.getName();
+        String setterName = "set" + name.substring(0, 1).toUpperCase() + name.substring(1);
+        MethodHandle setter = null;
+        try {
+            Method method = type.getDeclaredMethod(setterName, field.getType());
+            method.setAccessible(true);
+            setter = lookup.unreflect(method);
+        } catch (NoSuchMethodException | RuntimeException e) {
+            if (!Modifier.isFinal(field.getModifiers())) {
+                setter = lookup.unreflectSetter(field);
+            }
+        }
+        return setter == null ? null : setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+    }
+
+    /**
+     * Choose the claim writer by the declared type. Fields declared as other types are written by the runtime type
+     * of their values.
+     *
+     * @param fieldType The declared type.
+     * @return The claim writer.
+     */
+    private static ClaimWriter writer(Class<?> fieldType) {
+        if (fieldType == boolean.class || fieldType == Boolean.class) {
+            return (builder, name, value) -> builder.withClaim(name, (Boolean) value);
+        } else if (fieldType == double.class || fieldType == Double.class) {
+            return (builder, name, value) -> builder.withClaim(name, (Double) value);
+        } else if (fieldType == float.class || fieldType == Float.class) {
+            return (builder, name, value) -> builder.withClaim(name, ((Float) value).doubleValue());
+        } else if (fieldType == int.class || fieldType == Integer.class) {
+            return (builder, name, value) -> builder.withClaim(name, (Integer) value);
+        } else if (fieldType == long.class || fieldType == Long.class) {
+            return (builder, name, value) -> builder.withClaim(name, (Long) value);
+        } else if (fieldType == String.class) {
+            return (builder, name, value) -> builder.withClaim(name, (String) value);
+        } else if (fieldType == DateTime.class) {
+            return (builder, name, value) -> builder.withClaim(name, ((DateTime) value).toDate());
+        } else if (Date.class.isAssignableFrom(fieldType)) {
+            return (builder, name, value) -> builder.withClaim(name, (Date) value);
+        } else if (List.class.isAssignableFrom(fieldType)) {
+            return (builder, name, value) -> builder.withClaim(name, (List<?>) value);
+        }
+        return BeanClaimsMapper::writeDynamic;
+    }
+
+    /**
+     * Write the value by its runtime type.
+     *
+     * @param builder The builder.
+     * @param name    The claim name.
+     * @param value   The value.
+     */
+    private static void writeDynamic(JWTCreator.Builder builder, String name, Object value) {
+        // region 按运行时类型转换
+        if (value instanceof Boolean v) {
+            builder.withClaim(name, v);
+        } else if (value instanceof Double v) {
+            builder.withClaim(name, v);
+        } else if (value instanceof Float v) {
+            builder.withClaim(name, v.doubleValue());
+        } else if (value instanceof Integer v) {
+            builder.withClaim(name, v);
+        } else if (value instanceof Long v) {
+            builder.withClaim(name, v);
+        } else if (value instanceof String v) {
+            builder.withClaim(name, v);
+        } else if (value instanceof Date v) {
+            builder.withClaim(name, v);
+        } else if (value instanceof DateTime v) {
+            builder.withClaim(name, v.toDate());
+        } else if (value instanceof List<?> v) {
+            builder.withClaim(name, v);
+        } else {
+            log.error("The property [{}] is of an unsupported type and will be converted to String, please " +
+                    "ensure that the toString() method is overridden correctly! ", name);
+            builder.withClaim(name, value.toString());
+        }
+        // endregion
+    }
+
+    /**
+     * Choose the claim reader by the declared type. The direct accessors of the claim are tried first, and the claim
+     * is converted by {@link Claim#as(Class)} if the stored value is of another JSON type.
+     *
+     * @param fieldType The declared type.
+     * @return The claim reader.
+     */
+    private static BiFunction<Claim, Class<?>, Object> reader(Class<?> fieldType) {
+        if (fieldType == String.class) {
+            return (claim, t) -> orConvert(claim.asString(), claim, t);
+        } else if (fieldType == int.class || fieldType == Integer.class) {
+            return (claim, t) -> orConvert(claim.asInt(), claim, t);
+        } else if (fieldType == long.class || fieldType == Long.class) {
+            return (claim, t) -> orConvert(claim.asLong(), claim, t);
+        } else if (fieldType == double.class || fieldType == Double.class) {
+            return (claim, t) -> orConvert(claim.asDouble(), claim, t);
+        } else if (fieldType == boolean.class || fieldType == Boolean.class) {
+            return (claim, t) -> orConvert(claim.asBoolean(), claim, t);
+        } else if (fieldType == Date.class) {
+            return (claim, t) -> claim.asDate();
+        } else if (fieldType == DateTime.class) {
+            return (claim, t) -> {
+                Date date = claim.asDate();
+                return date == null ? null : new DateTime(date);
+            };
+        }
+        return Claim::as;
+    }
+
+    private static Object orConvert(Object value, Claim claim, Class<?> type) {
+        return value != null || claim.isNull() ? value : claim.as(type);
+    }
+
+    /**
+     * Write all non-null fields of the bean as claims.
+     *
+     * @param bean    The bean, must be an instance of the mapped class.
+     * @param builder The builder.
+     */
+    void write(Object bean, JWTCreator.Builder builder) {
+        for (Property property : properties) {
+            Object value;
+            try {
+                value = property.getter().invoke(bean);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+            // 跳过空数据
+            if (value != null) {
+                property.writer().write(builder, property.name(), value);
+            }
+        }
+    }
+
+    /**
+     * Create a bean by its public no-argument constructor and fill its fields with the claims of the same names.
+     * Fields named {@code log} or {@code logger} are treated as helper fields and not filled.
+     *
+     * @param claims The claims.
+     * @param <T>    The type of the bean.
+     * @return The bean.
+     * @throws NoSuchMethodException If the class has no public no-argument constructor.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T read(Map<String, Claim> claims) throws NoSuchMethodException {
+        if (constructor == null) {
+            throw new NoSuchMethodException(type.getName() + ".<init>()");
+        }
+        Object bean;
+        try {
+            bean = constructor.invoke();
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+        for (Property property : properties) {
+            String name = property.name();
+            if (property.setter() == null || name.equalsIgnoreCase("log") || name.equalsIgnoreCase("logger")) {
+                continue;
+            }
+            Claim claim = claims.get(name);
+            if (claim == null) {
+                continue;
+            }
+            Object value = property.reader().apply(claim, property.type());
+            if (value != null) {
+                log.debug("为{}注入数据：{}", name, value);
+                try {
+                    property.setter().invoke(bean, value);
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+            }
+        }
+        return (T) bean;
+    }
+
+    /**
+     * Rethrow the throwable of a method handle, checked exceptions are wrapped.
+     *
+     * @param e The throwable.
+     * @return The runtime exception to throw.
+     */
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException r) {
+            return r;
+        }
+        if (e instanceof Error err) {
+            throw err;
+        }
+        return new IllegalStateException(e);
+    }
+}
@@ -0,0 +1,547 @@
+package cn.vorbote.simplejwt;
+
+import cn.vorbote.core.exceptions.UnsupportedHashAlgorithmException;
+import cn.vorbote.core.time.TimeSpan;
+import cn.vorbote.simplejwt.choices.JwtAlgorithm;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.AlgorithmMismatchException;
+import com.auth0.jwt.exceptions.InvalidClaimException;
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.auth0.jwt.exceptions.TokenExpiredException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import lombok.NonNull;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FastJwtCodec is a low-allocation codec of HS tokens for services minting many tokens of a fixed claim shape. The
+ * header is encoded once, the payload JSON is written straight into a reusable per-thread buffer, and the Base64URL
+ * output and the HMAC are produced over byte ranges, so creating a token allocates little more than the final string.
+ * <p>
+ * The tokens are wire-compatible with {@link AccessKeyUtil}: tokens created by this codec can be verified by an
+ * {@code AccessKeyUtil} with the same algorithm and secret, and vice versa.
+ *
+ * @author vorbote
+ */
+public final class FastJwtCodec {
+
+    private static final byte[] BASE64_URL =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The registered claims written by the codec itself, which can't be given as claims.
+     */
+    private static final Set<String> REGISTERED_CLAIMS = Set.of("iss", "sub", "aud", "iat", "nbf", "exp", "jti");
+
+    private final JwtAlgorithm algorithm;
+
+    private final String issuer;
+
+    /**
+     * The algorithm of java-jwt with the same secret, reported by {@link SignatureVerificationException}.
+     */
+    private final Algorithm signatureAlgorithm;
+
+    /**
+     * The Base64URL encoded header followed by a dot.
+     */
+    private final byte[] header;
+
+    /**
+     * The encoded and escaped issuer.
+     */
+    private final byte[] issuerJson;
+
+    private final ThreadLocal<Buffers> buffers;
+
+    /**
+     * Create a codec.
+     *
+     * @param algorithm The HS algorithm.
+     * @param secret    The secret.
+     * @param issuer    The issuer.
+     * @throws UnsupportedHashAlgorithmException If the algorithm is not an HS algorithm.
+     */
+    public FastJwtCodec(@NonNull JwtAlgorithm algorithm, @NonNull String secret, @NonNull String issuer) {
+        String macAlgorithm = switch (algorithm) {
+            case HS256 -> "HmacSHA256";
+            case HS384 -> "HmacSHA384";
+            case HS512 -> "HmacSHA512";
+            default -> throw new UnsupportedHashAlgorithmException(algorithm.name());
+        };
+        this.algorithm = algorithm;
+        this.issuer = issuer;
+        this.signatureAlgorithm = switch (algorithm) {
+            case HS384 -> Algorithm.HMAC384(secret);
+            case HS512 -> Algorithm.HMAC512(secret);
+            default -> Algorithm.HMAC256(secret);
+        };
+        String headerJson = "{\"typ\":\"JWT\",\"alg\":\"" + algorithm.name() + "\"}";
+        this.header = (Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(headerJson.getBytes(StandardCharsets.US_ASCII)) + ".")
+                .getBytes(StandardCharsets.US_ASCII);
+        Buffers scratch = new Buffers(null);
+        scratch.writeString(issuer);
+        this.issuerJson = Arrays.copyOf(scratch.json, scratch.jsonLength);
+
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), macAlgorithm);
+        this.buffers = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(macAlgorithm);
+                mac.init(key);
+                return new Buffers(mac);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Failed to initialize " + macAlgorithm + ".", e);
+            }
+        });
+    }
+
+    /**
+     * Create a token. Claims of type {@link String}, {@link Boolean} and the numbers of the JDK keep their JSON types,
+     * except that NaN and infinite numbers are written as strings. Other values are written as strings of their
+     * {@code toString()}, null values are skipped.
+     * <p>
+     * The registered claims {@code iss}, {@code sub}, {@code aud}, {@code iat}, {@code nbf}, {@code exp} and
+     * {@code jti} are written by the codec, so they can't be given as claims.
+     *
+     * @param expire   The token will expire after this time span.
+     * @param subject  The subject of this token.
+     * @param audience The audiences of this token.
+     * @param claims   The claims, may be {@code null}.
+     * @return The token.
+     * @throws IllegalArgumentException If a claim has the name of a registered claim.
+     */
+    public String encode(TimeSpan expire, String subject, String[] audience, Map<String, ?> claims) {
+        if (claims != null) {
+            for (String name : claims.keySet()) {
+                if (REGISTERED_CLAIMS.contains(name)) {
+                    throw new IllegalArgumentException("Claim " + name + " is set by the codec and can't be given.");
+                }
+            }
+        }
+        Buffers buf = buffers.get();
+        long now = System.currentTimeMillis() / 1000;
+
+        // region 写入载荷
+        buf.jsonLength = 0;
+        buf.raw((byte) '{');
+        buf.key("iss").raw(issuerJson);
+        if (subject != null) {
+            buf.raw((byte) ',').key("sub").writeString(subject);
+        }
+        if (audience != null && audience.length > 0) {
+            buf.raw((byte) ',').key("aud");
+            if (audience.length == 1) {
+                buf.writeString(audience[0]);
+            } else {
+                buf.raw((byte) '[');
+                for (int i = 0; i < audience.length; i++) {
+                    if (i > 0) {
+                        buf.raw((byte) ',');
+                    }
+                    buf.writeString(audience[i]);
+                }
+                buf.raw((byte) ']');
+            }
+        }
+        buf.raw((byte) ',').key("iat").writeLong(now);
+        buf.raw((byte) ',').key("nbf").writeLong(now);
+        buf.raw((byte) ',').key("exp").writeLong(now + expire.getTotalSeconds());
+        buf.raw((byte) ',').key("jti").writeUuid();
+        if (claims != null) {
+            for (Map.Entry<String, ?> e : claims.entrySet()) {
+                Object value = e.getValue();
+                if (value == null) {
+                    continue;
+                }
+                buf.raw((byte) ',').writeString(e.getKey()).raw((byte) ':');
+                if (value instanceof String v) {
+                    buf.writeString(v);
+                } else if (value instanceof Integer || value instanceof Long || value instanceof Short
+                        || value instanceof Byte) {
+                    buf.writeLong(((Number) value).longValue());
+                } else if (value instanceof Double || value instanceof Float) {
+                    double v = ((Number) value).doubleValue();
+                    // NaN 与无穷大不是合法的 JSON 数字，与 Jackson 一样写为字符串
+                    if (Double.isFinite(v)) {
+                        buf.raw(value.toString());
+                    } else {
+                        buf.writeString(value.toString());
+                    }
+                } else if (value instanceof BigDecimal || value instanceof BigInteger || value instanceof AtomicInteger
+                        || value instanceof AtomicLong || value instanceof Boolean) {
+                    buf.raw(value.toString());
+                } else {
+                    buf.writeString(value.toString());
+                }
+            }
+        }
+        buf.raw((byte) '}');
+        // endregion
+
+        // region 编码并签名
+        int macLength = buf.mac.getMacLength();
+        int length = header.length + base64Length(buf.jsonLength) + 1 + base64Length(macLength);
+        byte[] out = buf.out(length);
+        System.arraycopy(header, 0, out, 0, header.length);
+        int pos = base64(buf.json, 0, buf.jsonLength, out, header.length);
+        try {
+            buf.mac.update(out, 0, pos);
+            buf.mac.doFinal(buf.signature, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+        out[pos++] = '.';
+        pos = base64(buf.signature, 0, macLength, out, pos);
+        // endregion
+
+        return new String(out, 0, pos, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Create a token with one audience.
+     *
+     * @param expire   The token will expire after this time span.
+     * @param subject  The subject of this token.
+     * @param audience The audience of this token.
+     * @param claims   The claims, may be {@code null}.
+     * @return The token.
+     * @see #encode(TimeSpan, String, String[], Map)
+     */
+    public String encode(TimeSpan expire, String subject, String audience, Map<String, ?> claims) {
+        return encode(expire, subject, new String[]{audience}, claims);
+    }
+
+    /**
+     * Check the signature of the token by comparing the bytes of the computed signature with the decoded signature
+     * in the token, no string is created.
+     *
+     * @param token The token.
+     * @return Value {@code true} if the token is signed by this codec's algorithm and secret.
+     */
+    public boolean isSignatureValid(String token) {
+        Buffers buf = buffers.get();
+        int length = token.length();
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            return false;
+        }
+
+        byte[] in = buf.out(length);
+        for (int i = 0; i < length; i++) {
+            char c = token.charAt(i);
+            if (c > 0x7f) {
+                return false;
+            }
+            in[i] = (byte) c;
+        }
+
+        int macLength = buf.mac.getMacLength();
+        try {
+            buf.mac.update(in, 0, secondDot);
+            buf.mac.doFinal(buf.signature, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+        if (length - secondDot - 1 != base64Length(macLength)) {
+            return false;
+        }
+        return base64Equals(in, secondDot + 1, length, buf.signature, macLength);
+    }
+
+    /**
+     * Verify the token and decode it. The signature is checked over byte ranges first, then the payload of a signed
+     * token is decoded and the time claims are checked. Only a token failing the signature check is decoded to tell
+     * why it failed, so the exceptions thrown are the same as {@link AccessKeyUtil#info(String)}.
+     *
+     * @param token The token.
+     * @return The decoded token.
+     * @throws JWTDecodeException             If the token is malformed.
+     * @throws AlgorithmMismatchException     If the algorithm in the header is not this codec's.
+     * @throws SignatureVerificationException If the signature is invalid.
+     * @throws TokenExpiredException          If the token has expired.
+     * @throws InvalidClaimException          If the token can't be used yet.
+     */
+    public DecodedJWT verify(@NonNull String token) {
+        boolean signed = isSignatureValid(token);
+        DecodedJWT jwt = JWT.decode(token);
+        if (!algorithm.name().equals(jwt.getAlgorithm())) {
+            throw new AlgorithmMismatchException(
+                    "The provided Algorithm doesn't match the one defined in the JWT's Header.");
+        }
+        if (!signed) {
+            throw new SignatureVerificationException(signatureAlgorithm);
+        }
+
+        Date now = new Date(System.currentTimeMillis() / 1000 * 1000);
+        Date expiresAt = jwt.getExpiresAt();
+        if (expiresAt != null && now.after(expiresAt)) {
+            throw new TokenExpiredException(String.format("The Token has expired on %s.", expiresAt));
+        }
+        Date notBefore = jwt.getNotBefore();
+        if (notBefore != null && now.before(notBefore)) {
+            throw new InvalidClaimException(String.format("The Token can't be used before %s.", notBefore));
+        }
+        Date issuedAt = jwt.getIssuedAt();
+        if (issuedAt != null && now.before(issuedAt)) {
+            throw new InvalidClaimException(String.format("The Token can't be used before %s.", issuedAt));
+        }
+        return jwt;
+    }
+
+    /**
+     * Get the algorithm of this codec.
+     *
+     * @return The algorithm.
+     */
+    public JwtAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Get the issuer of this codec.
+     *
+     * @return The issuer.
+     */
+    public String getIssuer() {
+        return issuer;
+    }
+
+    // region Base64URL
+
+    private static int base64Length(int length) {
+        return (length / 3) * 4 + (length % 3 == 0 ? 0 : length % 3 + 1);
+    }
+
+    /**
+     * Encode the bytes to Base64URL without padding.
+     *
+     * @return The position after the written bytes.
+     */
+    private static int base64(byte[] src, int offset, int length, byte[] dst, int pos) {
+        int end = offset + length - length % 3;
+        int i = offset;
+        while (i < end) {
+            int bits = (src[i++] & 0xff) << 16 | (src[i++] & 0xff) << 8 | (src[i++] & 0xff);
+            dst[pos++] = BASE64_URL[bits >>> 18];
+            dst[pos++] = BASE64_URL[bits >>> 12 & 0x3f];
+            dst[pos++] = BASE64_URL[bits >>> 6 & 0x3f];
+            dst[pos++] = BASE64_URL[bits & 0x3f];
+        }
+        int remain = offset + length - end;
+        if (remain == 1) {
+            int bits = (src[i] & 0xff) << 16;
+            dst[pos++] = BASE64_URL[bits >>> 18];
+            dst[pos++] = BASE64_URL[bits >>> 12 & 0x3f];
+        } else if (remain == 2) {
+            int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8;
+            dst[pos++] = BASE64_URL[bits >>> 18];
+            dst[pos++] = BASE64_URL[bits >>> 12 & 0x3f];
+            dst[pos++] = BASE64_URL[bits >>> 6 & 0x3f];
+        }
+        return pos;
+    }
+
+    /**
+     * Compare the Base64URL text in the range with the encoding of the expected bytes in constant time.
+     */
+    private static boolean base64Equals(byte[] text, int from, int to, byte[] expected, int length) {
+        int diff = 0;
+        int pos = from;
+        for (int i = 0; i < length; i += 3) {
+            int remain = Math.min(3, length - i);
+            int bits = (expected[i] & 0xff) << 16
+                    | (remain > 1 ? (expected[i + 1] & 0xff) << 8 : 0)
+                    | (remain > 2 ? expected[i + 2] & 0xff : 0);
+            diff |= text[pos++] ^ BASE64_URL[bits >>> 18];
+            diff |= text[pos++] ^ BASE64_URL[bits >>> 12 & 0x3f];
+            if (remain > 1) {
+                diff |= text[pos++] ^ BASE64_URL[bits >>> 6 & 0x3f];
+            }
+            if (remain > 2) {
+                diff |= text[pos++] ^ BASE64_URL[bits & 0x3f];
+            }
+        }
+        return diff == 0 && pos == to;
+    }
+
+    // endregion
+
+    /**
+     * The reusable buffers and the initialized {@link Mac} of one thread.
+     */
+    private static final class Buffers {
+
+        private final Mac mac;
+        private final byte[] signature = new byte[64];
+        private byte[] json = new byte[512];
+        private int jsonLength;
+        private byte[] out = new byte[1024];
+
+        Buffers(Mac mac) {
+            this.mac = mac;
+        }
+
+        byte[] out(int length) {
+            if (out.length < length) {
+                out = new byte[Math.max(length, out.length << 1)];
+            }
+            return out;
+        }
+
+        private void ensure(int extra) {
+            if (jsonLength + extra > json.length) {
+                json = Arrays.copyOf(json, Math.max(jsonLength + extra, json.length << 1));
+            }
+        }
+
+        Buffers raw(byte b) {
+            ensure(1);
+            json[jsonLength++] = b;
+            return this;
+        }
+
+        Buffers raw(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, json, jsonLength, bytes.length);
+            jsonLength += bytes.length;
+            return this;
+        }
+
+        /**
+         * Write an ASCII string without escaping.
+         */
+        Buffers raw(String ascii) {
+            int length = ascii.length();
+            ensure(length);
+            for (int i = 0; i < length; i++) {
+                json[jsonLength++] = (byte) ascii.charAt(i);
+            }
+            return this;
+        }
+
+        /**
+         * Write a registered claim name and the colon.
+         */
+        Buffers key(String name) {
+            return raw((byte) '"').raw(name).raw((byte) '"').raw((byte) ':');
+        }
+
+        Buffers writeLong(long value) {
+            if (value == Long.MIN_VALUE) {
+                // 最小值取反后仍为负数
+                return raw(Long.toString(value));
+            }
+            ensure(20);
+            if (value < 0) {
+                json[jsonLength++] = '-';
+                value = -value;
+            }
+            int start = jsonLength;
+            do {
+                json[jsonLength++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value > 0);
+            for (int i = start, j = jsonLength - 1; i < j; i++, j--) {
+                byte tmp = json[i];
+                json[i] = json[j];
+                json[j] = tmp;
+            }
+            return this;
+        }
+
+        /**
+         * Write a random version 4 UUID as a JSON string.
+         */
+        Buffers writeUuid() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long high = random.nextLong() & 0xffffffffffff0fffL | 0x0000000000004000L;
+            long low = random.nextLong() & 0x3fffffffffffffffL | 0x8000000000000000L;
+            ensure(38);
+            json[jsonLength++] = '"';
+            writeHex(high >>> 32, 8);
+            json[jsonLength++] = '-';
+            writeHex(high >>> 16, 4);
+            json[jsonLength++] = '-';
+            writeHex(high, 4);
+            json[jsonLength++] = '-';
+            writeHex(low >>> 48, 4);
+            json[jsonLength++] = '-';
+            writeHex(low, 12);
+            json[jsonLength++] = '"';
+            return this;
+        }
+
+        private void writeHex(long value, int digits) {
+            for (int i = digits - 1; i >= 0; i--) {
+                json[jsonLength + i] = HEX[(int) (value & 0xf)];
+                value >>>= 4;
+            }
+            jsonLength += digits;
+        }
+
+        /**
+         * Write a JSON string, escaping the control characters, quotes and backslashes, and encoding other characters
+         * by UTF-8. Unpaired surrogates can't be encoded by UTF-8 and are replaced by {@code ?}, the same as
+         * {@link String#getBytes(java.nio.charset.Charset)} does for the payloads of java-jwt.
+         */
+        Buffers writeString(String value) {
+            int length = value.length();
+            ensure(length * 6 + 2);
+            json[jsonLength++] = '"';
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    json[jsonLength++] = '\\';
+                    json[jsonLength++] = (byte) c;
+                } else if (c < 0x20) {
+                    json[jsonLength++] = '\\';
+                    json[jsonLength++] = 'u';
+                    json[jsonLength++] = '0';
+                    json[jsonLength++] = '0';
+                    json[jsonLength++] = HEX[c >>> 4];
+                    json[jsonLength++] = HEX[c & 0xf];
+                } else if (c < 0x80) {
+                    json[jsonLength++] = (byte) c;
+                } else if (c < 0x800) {
+                    json[jsonLength++] = (byte) (0xc0 | c >>> 6);
+                    json[jsonLength++] = (byte) (0x80 | c & 0x3f);
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, value.charAt(++i));
+                    json[jsonLength++] = (byte) (0xf0 | cp >>> 18);
+                    json[jsonLength++] = (byte) (0x80 | cp >>> 12 & 0x3f);
+                    json[jsonLength++] = (byte) (0x80 | cp >>> 6 & 0x3f);
+                    json[jsonLength++] = (byte) (0x80 | cp & 0x3f);
+                } else if (Character.isSurrogate(c)) {
+                    json[jsonLength++] = '?';
+                } else {
+                    json[jsonLength++] = (byte) (0xe0 | c >>> 12);
+                    json[jsonLength++] = (byte) (0x80 | c >>> 6 & 0x3f);
+                    json[jsonLength++] = (byte) (0x80 | c & 0x3f);
+                }
+            }
+            json[jsonLength++] = '"';
+            return this;
+        }
+    }
+}
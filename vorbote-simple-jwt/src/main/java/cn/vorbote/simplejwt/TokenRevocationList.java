@@ -0,0 +1,371 @@
+package cn.vorbote.simplejwt;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A deny-list of revoked token ids ({@code jti}). Every revoked id is kept in an exact map until its token expires,
+ * and a Bloom filter in front of the map answers most lookups of tokens that were never revoked without touching the
+ * map, so checking a token costs a few bit reads in the common case.
+ * <p>
+ * The Bloom filter is sized by the expected count of live revocations and rebuilt from the map when expired ids are
+ * purged, or doubled when the revocations outgrow it, so its memory stays proportional to the live revocations.
+ * <p>
+ * The list can be saved to a snapshot file and loaded back, so a restarted instance keeps the revocations of its
+ * previous run. If a snapshot file is given to the constructor, it's loaded at once and saved by {@link #close()}.
+ *
+ * @author vorbote
+ */
+@Slf4j
+public final class TokenRevocationList implements Closeable {
+
+    /**
+     * Magic number of the snapshot file, {@code "VJRL"}.
+     */
+    private static final int MAGIC = 0x564A524C;
+
+    private static final int VERSION = 1;
+
+    /**
+     * Expired ids are purged at most once per this interval in milliseconds.
+     */
+    private static final long PURGE_INTERVAL = 60_000;
+
+    /**
+     * Revoked ids and the epoch milliseconds their tokens expire.
+     */
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private final double falsePositiveRate;
+
+    /**
+     * The snapshot file, {@code null} if the list is not persisted.
+     */
+    private final Path snapshot;
+
+    private volatile BloomFilter filter;
+
+    private volatile long nextPurge;
+
+    /**
+     * Create a revocation list kept in memory only.
+     *
+     * @param expectedSize      The expected count of revoked tokens not expired yet.
+     * @param falsePositiveRate The expected false positive rate of the Bloom filter, such as {@code 0.01}.
+     * @throws IllegalArgumentException If the expected size is not positive or the rate is not in (0, 1).
+     */
+    public TokenRevocationList(int expectedSize, double falsePositiveRate) {
+        this(expectedSize, falsePositiveRate, null);
+    }
+
+    /**
+     * Create a revocation list persisted to the snapshot file. The file is loaded if it exists.
+     *
+     * @param expectedSize      The expected count of revoked tokens not expired yet.
+     * @param falsePositiveRate The expected false positive rate of the Bloom filter, such as {@code 0.01}.
+     * @param snapshot          The snapshot file, {@code null} if the list is not persisted.
+     * @throws IllegalArgumentException If the expected size is not positive or the rate is not in (0, 1).
+     * @throws UncheckedIOException     If the snapshot file exists but can't be read.
+     */
+    public TokenRevocationList(int expectedSize, double falsePositiveRate, Path snapshot) {
+        if (expectedSize <= 0) {
+            throw new IllegalArgumentException("Expected size of the revocation list must be positive.");
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("False positive rate of the revocation list must be in (0, 1).");
+        }
+        this.falsePositiveRate = falsePositiveRate;
+        this.snapshot = snapshot;
+        this.filter = new BloomFilter(expectedSize, falsePositiveRate);
+        this.nextPurge = System.currentTimeMillis() + PURGE_INTERVAL;
+        if (snapshot != null && Files.exists(snapshot)) {
+            try {
+                load(snapshot);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to load the revocation list from " + snapshot + ".", e);
+            }
+        }
+    }
+
+    /**
+     * Revoke the token, it will be kept in this list until it expires.
+     *
+     * @param jwt The decoded token.
+     * @throws IllegalArgumentException If the token has no id.
+     */
+    public void revoke(DecodedJWT jwt) {
+        revoke(jwt.getId(), jwt.getExpiresAt());
+    }
+
+    /**
+     * Revoke the token by its id.
+     *
+     * @param jti       The id of the token.
+     * @param expiresAt The expiry of the token, {@code null} if it never expires.
+     * @throws IllegalArgumentException If the id is {@code null}.
+     */
+    public void revoke(String jti, Date expiresAt) {
+        if (jti == null) {
+            throw new IllegalArgumentException("Only tokens with an id (jti) can be revoked.");
+        }
+        long now = System.currentTimeMillis();
+        long deadline = expiresAt == null ? Long.MAX_VALUE : expiresAt.getTime();
+        if (deadline <= now) {
+            return;
+        }
+        synchronized (this) {
+            revoked.merge(jti, deadline, Math::max);
+            BloomFilter current = filter;
+            if (revoked.size() > current.capacity()) {
+                // 吊销数量超过预期容量，扩容以维持误判率
+                filter = rebuild(current.capacity() << 1);
+                log.warn("Revocation list has grown to {} tokens, the Bloom filter is enlarged.", revoked.size());
+            } else {
+                current.put(jti);
+            }
+        }
+        if (now >= nextPurge) {
+            purge();
+        }
+    }
+
+    /**
+     * Check whether the token has been revoked and not expired yet.
+     *
+     * @param jti The id of the token, may be {@code null}.
+     * @return Value {@code true} if the token has been revoked.
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null || !filter.mightContain(jti)) {
+            return false;
+        }
+        Long deadline = revoked.get(jti);
+        return deadline != null && System.currentTimeMillis() < deadline;
+    }
+
+    /**
+     * Remove the revocation of the token.
+     *
+     * @param jti The id of the token.
+     * @return Value {@code true} if the token was revoked.
+     */
+    public boolean restore(String jti) {
+        // 布隆过滤器不支持删除，残留的位只会造成一次多余的精确查询，在下次清理时重建
+        return revoked.remove(jti) != null;
+    }
+
+    /**
+     * Remove the ids of expired tokens and rebuild the Bloom filter from the remaining ids.
+     *
+     * @return The count of removed ids.
+     */
+    public synchronized int purge() {
+        long now = System.currentTimeMillis();
+        nextPurge = now + PURGE_INTERVAL;
+        int before = revoked.size();
+        revoked.values().removeIf(deadline -> deadline <= now);
+        int purged = before - revoked.size();
+        if (purged > 0 || filter.count() > revoked.size()) {
+            filter = rebuild(filter.capacity());
+        }
+        if (purged > 0) {
+            log.debug("Revocation list purged {} expired tokens.", purged);
+        }
+        return purged;
+    }
+
+    private BloomFilter rebuild(int capacity) {
+        BloomFilter rebuilt = new BloomFilter(Math.max(capacity, revoked.size()), falsePositiveRate);
+        revoked.keySet().forEach(rebuilt::put);
+        return rebuilt;
+    }
+
+    /**
+     * Get the count of revoked tokens, expired tokens which have not been purged are included.
+     *
+     * @return The count of revoked tokens.
+     */
+    public int size() {
+        return revoked.size();
+    }
+
+    /**
+     * Save the revocations not expired yet to the file. The file is written to a temporary file first and then moved
+     * into place, so a crash never leaves a partial snapshot.
+     *
+     * @param file The snapshot file.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void save(Path file) throws IOException {
+        long now = System.currentTimeMillis();
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            int count = 0;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                for (Map.Entry<String, Long> e : revoked.entrySet()) {
+                    if (e.getValue() > now) {
+                        out.writeUTF(e.getKey());
+                        out.writeLong(e.getValue());
+                        count++;
+                    }
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Saved {} revoked tokens to {}.", count, file);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Load the revocations in the file into this list, expired revocations are skipped.
+     *
+     * @param file The snapshot file.
+     * @return The count of loaded revocations.
+     * @throws IOException If an I/O error occurs or the file is not a snapshot of revocation list.
+     */
+    public int load(Path file) throws IOException {
+        long now = System.currentTimeMillis();
+        int count = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(file + " is not a snapshot of revocation list.");
+            }
+            while (true) {
+                String jti;
+                try {
+                    jti = in.readUTF();
+                } catch (EOFException e) {
+                    break;
+                }
+                long deadline = in.readLong();
+                if (deadline > now) {
+                    revoke(jti, deadline == Long.MAX_VALUE ? null : new Date(deadline));
+                    count++;
+                }
+            }
+        }
+        log.info("Loaded {} revoked tokens from {}.", count, file);
+        return count;
+    }
+
+    /**
+     * Save this list to the snapshot file given to the constructor, nothing happens if there is none.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        if (snapshot != null) {
+            save(snapshot);
+        }
+    }
+
+    @Override
+    public String toString() {
+        BloomFilter current = filter;
+        return "TokenRevocationList(size=" + revoked.size() + ", capacity=" + current.capacity()
+                + ", bits=" + current.bitCount() + ")";
+    }
+
+    /**
+     * A fixed size Bloom filter. Bits are set atomically, so lookups never lock and may run during insertions.
+     */
+    private static final class BloomFilter {
+
+        private final AtomicLongArray bits;
+        private final int bitCount;
+        private final int hashes;
+        private final int capacity;
+        private int count;
+
+        BloomFilter(int capacity, double falsePositiveRate) {
+            // m = -n * ln(p) / (ln 2)^2, k = m / n * ln 2
+            long m = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            m = Math.max(64, Math.min(m, Integer.MAX_VALUE - 63));
+            this.capacity = capacity;
+            this.bitCount = (int) ((m + 63) & ~63L);
+            this.hashes = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+            this.bits = new AtomicLongArray(bitCount >>> 6);
+        }
+
+        /**
+         * Add the id, the caller must hold the lock of the revocation list.
+         */
+        void put(String jti) {
+            long hash = hash(jti);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashes; i++) {
+                int index = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+                long mask = 1L << index;
+                int word = index >>> 6;
+                long value;
+                while (((value = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, value, value | mask)) {
+                    Thread.onSpinWait();
+                }
+            }
+            count++;
+        }
+
+        boolean mightContain(String jti) {
+            long hash = hash(jti);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashes; i++) {
+                int index = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+                if ((bits.get(index >>> 6) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int capacity() {
+            return capacity;
+        }
+
+        int bitCount() {
+            return bitCount;
+        }
+
+        int count() {
+            return count;
+        }
+
+        /**
+         * FNV-1a over the chars, finished by the mixer of SplitMix64 to spread both halves.
+         */
+        private static long hash(String value) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0, length = value.length(); i < length; i++) {
+                h = (h ^ value.charAt(i)) * 0x100000001b3L;
+            }
+            h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+            h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+            return h ^ (h >>> 31);
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package cn.vorbote.simplejwt;
+
+import cn.vorbote.core.constants.Hash;
+import cn.vorbote.core.utils.HashUtil;
+import cn.vorbote.core.utils.HexUtil;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * A bounded cache of verified tokens. Tokens are keyed by their SHA-256 digest, so repeated verifications of the same
+ * token only cost a hash lookup instead of decoding, parsing and checking the signature again.
+ * <p>
+ * An entry lives for the configured time to live, but never longer than the {@code exp} of its token. When the cache
+ * is full, the oldest entries are evicted, stale entries are dropped when they are looked up or in batches as the
+ * insertion queue is trimmed. Every insert costs amortized constant time.
+ *
+ * @author vorbote
+ */
+@Slf4j
+public final class VerifiedTokenCache {
+
+    /**
+     * Max count of entries.
+     */
+    private final int maxSize;
+
+    /**
+     * Time to live of entries in milliseconds.
+     */
+    private final long ttlMillis;
+
+    /**
+     * Cached entries keyed by the digest of the token.
+     */
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Entries in insertion order, used to evict the oldest entries. Entries invalidated or replaced stay in the queue
+     * until they are polled or trimmed.
+     */
+    private final Queue<Entry> order = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Length of the order queue.
+     */
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * Generation of the cache, it's increased before every invalidation, so a verification that started before the
+     * invalidation doesn't cache its result afterwards.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Held by the thread trimming the order queue.
+     */
+    private final ReentrantLock trimLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Create a cache.
+     *
+     * @param maxSize Max count of entries.
+     * @param ttl     Time to live of entries, capped by the expiry of each token.
+     * @throws IllegalArgumentException If the max size or the time to live is not positive.
+     */
+    public VerifiedTokenCache(int maxSize, Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size of the token cache must be positive.");
+        }
+        if (ttl.isZero() || ttl.isNegative()) {
+            throw new IllegalArgumentException("Time to live of the token cache must be positive.");
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    /**
+     * A verified token and the time it should be evicted. Entries are compared by identity, so an entry polled from
+     * the order queue only removes itself, never a newer entry of the same token.
+     */
+    private static final class Entry {
+
+        private final String key;
+
+        private final DecodedJWT jwt;
+
+        /**
+         * Epoch milliseconds after which the entry is stale.
+         */
+        private final long deadline;
+
+        private Entry(String key, DecodedJWT jwt, long deadline) {
+            this.key = key;
+            this.jwt = jwt;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * Get the verified token from the cache, or verify it by the verifier and cache the result. Exceptions thrown by
+     * the verifier are not cached, neither are results of verifications overlapped by an invalidation, so the
+     * verifier should read its keys when it's called, not before.
+     *
+     * @param token    The token.
+     * @param verifier The function verifies the token.
+     * @return The verified token.
+     */
+    public DecodedJWT get(String token, Function<String, DecodedJWT> verifier) {
+        String key = key(token);
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (now < entry.deadline) {
+                hits.increment();
+                return entry.jwt;
+            }
+            entries.remove(key, entry);
+        }
+        misses.increment();
+
+        long current = generation.get();
+        DecodedJWT jwt = verifier.apply(token);
+        put(key, jwt, now, current);
+        return jwt;
+    }
+
+    /**
+     * Get the verified token from the cache.
+     *
+     * @param token The token.
+     * @return The verified token, or {@code null} if the token is not cached or has been stale.
+     */
+    public DecodedJWT getIfPresent(String token) {
+        String key = key(token);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (System.currentTimeMillis() < entry.deadline) {
+                hits.increment();
+                return entry.jwt;
+            }
+            entries.remove(key, entry);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Put a verified token into the cache.
+     *
+     * @param token The token.
+     * @param jwt   The verified token.
+     */
+    public void put(String token, DecodedJWT jwt) {
+        put(key(token), jwt, System.currentTimeMillis(), generation.get());
+    }
+
+    /**
+     * Put the entry, and evict the oldest entries until the cache is back within its size. Each entry is offered to
+     * and polled from the order queue once, so the eviction costs amortized constant time.
+     *
+     * @param generation The generation read before the token was verified.
+     */
+    private void put(String key, DecodedJWT jwt, long now, long generation) {
+        long deadline = now + ttlMillis;
+        Date expiresAt = jwt.getExpiresAt();
+        if (expiresAt != null) {
+            deadline = Math.min(deadline, expiresAt.getTime());
+        }
+        if (deadline <= now) {
+            return;
+        }
+
+        Entry entry = new Entry(key, jwt, deadline);
+        entries.put(key, entry);
+        order.offer(entry);
+        int length = queued.incrementAndGet();
+        // 验证期间发生过失效操作，验证结果可能基于已撤下的密钥，不能缓存
+        if (this.generation.get() != generation) {
+            entries.remove(key, entry);
+            return;
+        }
+
+        int evicted = 0;
+        Entry oldest;
+        while (entries.size() > maxSize && (oldest = order.poll()) != null) {
+            queued.decrementAndGet();
+            if (entries.remove(oldest.key, oldest)) {
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            evictions.add(evicted);
+        }
+        if (length > maxSize << 1) {
+            trim(now);
+        }
+    }
+
+    /**
+     * Drop the invalidated, replaced and stale entries from the order queue, when the queue has grown to twice the max
+     * size. One pass examines at most the whole queue and shrinks it by at least half the max size, live entries are
+     * moved to the tail, so the trimming costs amortized constant time per insert as well.
+     *
+     * @param now Current epoch milliseconds.
+     */
+    private void trim(long now) {
+        if (!trimLock.tryLock()) {
+            return;
+        }
+        try {
+            int swept = 0;
+            int target = maxSize + (maxSize >> 1);
+            for (int examined = queued.get(); examined > 0 && queued.get() > target; examined--) {
+                Entry entry = order.poll();
+                if (entry == null) {
+                    break;
+                }
+                if (entries.get(entry.key) != entry) {
+                    queued.decrementAndGet();
+                } else if (entry.deadline <= now) {
+                    queued.decrementAndGet();
+                    if (entries.remove(entry.key, entry)) {
+                        swept++;
+                    }
+                } else {
+                    order.offer(entry);
+                }
+            }
+            evictions.add(swept);
+            log.debug("Token cache swept {} stale entries.", swept);
+        } finally {
+            trimLock.unlock();
+        }
+    }
+
+    /**
+     * Invalidate the token.
+     *
+     * @param token The token.
+     */
+    public void invalidate(String token) {
+        generation.incrementAndGet();
+        entries.remove(key(token));
+    }
+
+    /**
+     * Invalidate all tokens with the id.
+     *
+     * @param jti The id of tokens.
+     */
+    public void invalidateById(String jti) {
+        generation.incrementAndGet();
+        entries.values().removeIf(entry -> Objects.equals(jti, entry.jwt.getId()));
+    }
+
+    /**
+     * Invalidate all tokens of the subject.
+     *
+     * @param subject The subject of tokens.
+     */
+    public void invalidateBySubject(String subject) {
+        generation.incrementAndGet();
+        entries.values().removeIf(entry -> Objects.equals(subject, entry.jwt.getSubject()));
+    }
+
+    /**
+     * Invalidate all tokens signed by the key.
+     *
+     * @param kid The key id in the header of tokens.
+     */
+    public void invalidateByKeyId(String kid) {
+        generation.incrementAndGet();
+        entries.values().removeIf(entry -> Objects.equals(kid, entry.jwt.getKeyId()));
+    }
+
+    /**
+     * Invalidate all tokens.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+        order.clear();
+        queued.set(0);
+    }
+
+    /**
+     * Get the count of cached tokens, stale tokens which have not been swept are included.
+     *
+     * @return The count of cached tokens.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Get the count of lookups found a fresh entry.
+     *
+     * @return The count of hits.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the count of lookups found no fresh entry.
+     *
+     * @return The count of misses.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the count of entries removed to keep the cache within its size, stale entries swept at the same time are
+     * included.
+     *
+     * @return The count of evictions.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Get the max count of entries.
+     *
+     * @return The max count of entries.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Get the key of the token.
+     *
+     * @param token The token.
+     * @return The hex string of the SHA-256 of the token.
+     */
+    private static String key(String token) {
+        return HexUtil.encode(HashUtil.digest(Hash.SHA_256, token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Override
+    public String toString() {
+        return "VerifiedTokenCache(size=" + entries.size() + ", maxSize=" + maxSize
+                + ", hits=" + hits.sum() + ", misses=" + misses.sum() + ", evictions=" + evictions.sum() + ")";
+    }
+}
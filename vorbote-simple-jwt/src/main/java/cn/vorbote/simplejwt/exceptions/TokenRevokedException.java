@@ -0,0 +1,35 @@
+package cn.vorbote.simplejwt.exceptions;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+
+/**
+ * This exception means the token is valid but has been revoked before it expires.
+ *
+ * @author vorbote
+ */
+public class TokenRevokedException extends JWTVerificationException {
+
+    /**
+     * The id of the revoked token.
+     */
+    private final String tokenId;
+
+    /**
+     * Create a {@code TokenRevokedException} with the id of the revoked token.
+     *
+     * @param tokenId the {@code jti} of the revoked token
+     */
+    public TokenRevokedException(String tokenId) {
+        super(String.format("The Token [%s] has been revoked.", tokenId));
+        this.tokenId = tokenId;
+    }
+
+    /**
+     * Get the id of the revoked token.
+     *
+     * @return the {@code jti} of the revoked token
+     */
+    public String getTokenId() {
+        return tokenId;
+    }
+}
@@ -0,0 +1,216 @@
+package cn.vorbote.simplejwt.keys;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPrivateKeySpec;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPrivateCrtKeySpec;
+import java.security.spec.RSAPrivateKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JwkKeyLoader can help you load keys from JSON Web Keys (RFC 7517). Both a single key and a key set
+ * ({@code {"keys": [...]}}) are accepted, RSA keys and EC keys on the curves P-256, P-384 and P-521 are supported.
+ * A key with the private parameter {@code d} is added with its private key.
+ *
+ * @author vorbote
+ */
+public final class JwkKeyLoader {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Private constructor will prevent other coder create an instance of this class.
+     */
+    private JwkKeyLoader() {
+    }
+
+    /**
+     * Load all keys of the JWK file into a new key set. If exactly one key has a private key, it will be used to sign
+     * tokens.
+     *
+     * @param file The JWK or JWKS file.
+     * @return The key set.
+     * @throws IOException              If an I/O error occurs.
+     * @throws IllegalArgumentException If any key is invalid.
+     */
+    public static JwtKeySet read(Path file) throws IOException {
+        JwtKeySet keySet = new JwtKeySet();
+        load(Files.readString(file), keySet);
+        return keySet;
+    }
+
+    /**
+     * Parse all keys of the JWK text into the key set. If exactly one key has a private key, it will be used to sign
+     * tokens. All keys are parsed before the key set is changed, so an invalid key leaves the key set untouched.
+     *
+     * @param json   The JWK or JWKS text.
+     * @param keySet The key set to add keys into.
+     * @return The key set.
+     * @throws IllegalArgumentException If the text is not valid JSON or any key is invalid.
+     */
+    public static JwtKeySet load(String json, JwtKeySet keySet) {
+        apply(parse(json), keySet);
+        return keySet;
+    }
+
+    /**
+     * Replace the keys of the key set with the keys of the JWK text. Keys absent from the text are removed after the
+     * new keys are added and the new signing key is used, so tokens signed by them can no longer be verified.
+     *
+     * @param json   The JWK or JWKS text.
+     * @param keySet The key set to reload.
+     * @return The key set.
+     * @throws IllegalArgumentException If the text is not valid JSON or any key is invalid.
+     */
+    public static JwtKeySet reload(String json, JwtKeySet keySet) {
+        Map<String, ParsedKey> keys = parse(json);
+        apply(keys, keySet);
+        for (String kid : keySet.getKeyIds()) {
+            if (!keys.containsKey(kid)) {
+                keySet.remove(kid);
+            }
+        }
+        return keySet;
+    }
+
+    /**
+     * Parse all keys of the JWK text.
+     *
+     * @param json The JWK or JWKS text.
+     * @return The keys by their ids, in the order of the text.
+     */
+    private static Map<String, ParsedKey> parse(String json) {
+        JsonNode root;
+        try {
+            root = MAPPER.readTree(json);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid JSON Web Key.", e);
+        }
+        JsonNode keys = root.has("keys") ? root.get("keys") : MAPPER.createArrayNode().add(root);
+
+        Map<String, ParsedKey> parsed = new LinkedHashMap<>();
+        for (JsonNode jwk : keys) {
+            parsed.put(text(jwk, "kid"), new ParsedKey(publicKey(jwk), jwk.has("d") ? privateKey(jwk) : null));
+        }
+        return parsed;
+    }
+
+    /**
+     * Put the parsed keys into the key set. If exactly one key has a private key, it will be used to sign tokens.
+     *
+     * @param keys   The parsed keys.
+     * @param keySet The key set.
+     */
+    private static void apply(Map<String, ParsedKey> keys, JwtKeySet keySet) {
+        String signingKid = null;
+        int signingKeys = 0;
+        for (Map.Entry<String, ParsedKey> key : keys.entrySet()) {
+            keySet.put(key.getKey(), key.getValue().publicKey(), key.getValue().privateKey());
+            if (key.getValue().privateKey() != null) {
+                signingKid = key.getKey();
+                signingKeys++;
+            }
+        }
+        if (signingKeys == 1) {
+            keySet.use(signingKid);
+        }
+    }
+
+    /**
+     * A parsed JWK.
+     *
+     * @param publicKey  The public key.
+     * @param privateKey The private key, {@code null} if absent.
+     */
+    private record ParsedKey(PublicKey publicKey, PrivateKey privateKey) {
+    }
+
+    /**
+     * Parse the public key of a JWK.
+     *
+     * @param jwk The JWK.
+     * @return The public key.
+     */
+    public static PublicKey publicKey(JsonNode jwk) {
+        String kty = text(jwk, "kty");
+        try {
+            if ("RSA".equals(kty)) {
+                return KeyFactory.getInstance("RSA")
+                        .generatePublic(new RSAPublicKeySpec(number(jwk, "n"), number(jwk, "e")));
+            } else if ("EC".equals(kty)) {
+                ECPoint point = new ECPoint(number(jwk, "x"), number(jwk, "y"));
+                return KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(point, curve(jwk)));
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException(String.format("Invalid %s key [%s].", kty, jwk.path("kid").asText()), e);
+        }
+        throw new IllegalArgumentException(String.format("Unsupported key type %s.", kty));
+    }
+
+    /**
+     * Parse the private key of a JWK.
+     *
+     * @param jwk The JWK.
+     * @return The private key.
+     */
+    private static PrivateKey privateKey(JsonNode jwk) {
+        String kty = text(jwk, "kty");
+        try {
+            if ("RSA".equals(kty)) {
+                KeyFactory factory = KeyFactory.getInstance("RSA");
+                if (jwk.has("p") && jwk.has("q") && jwk.has("dp") && jwk.has("dq") && jwk.has("qi")) {
+                    return factory.generatePrivate(new RSAPrivateCrtKeySpec(number(jwk, "n"), number(jwk, "e"),
+                            number(jwk, "d"), number(jwk, "p"), number(jwk, "q"), number(jwk, "dp"),
+                            number(jwk, "dq"), number(jwk, "qi")));
+                }
+                return factory.generatePrivate(new RSAPrivateKeySpec(number(jwk, "n"), number(jwk, "d")));
+            }
+            return KeyFactory.getInstance("EC").generatePrivate(new ECPrivateKeySpec(number(jwk, "d"), curve(jwk)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException(String.format("Invalid %s private key [%s].", kty,
+                    jwk.path("kid").asText()), e);
+        }
+    }
+
+    private static ECParameterSpec curve(JsonNode jwk) throws GeneralSecurityException {
+        String crv = text(jwk, "crv");
+        String name = switch (crv) {
+            case "P-256" -> "secp256r1";
+            case "P-384" -> "secp384r1";
+            case "P-521" -> "secp521r1";
+            default -> throw new IllegalArgumentException(String.format("Unsupported curve %s.", crv));
+        };
+        AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+        parameters.init(new ECGenParameterSpec(name));
+        return parameters.getParameterSpec(ECParameterSpec.class);
+    }
+
+    private static String text(JsonNode jwk, String name) {
+        JsonNode node = jwk.get(name);
+        if (node == null || !node.isTextual()) {
+            throw new IllegalArgumentException(String.format("Parameter [%s] is required in a JSON Web Key.", name));
+        }
+        return node.asText();
+    }
+
+    private static BigInteger number(JsonNode jwk, String name) {
+        return new BigInteger(1, Base64.getUrlDecoder().decode(text(jwk, name)));
+    }
+}
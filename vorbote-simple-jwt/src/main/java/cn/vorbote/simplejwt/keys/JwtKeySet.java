@@ -0,0 +1,357 @@
+package cn.vorbote.simplejwt.keys;
+
+import com.auth0.jwt.interfaces.ECDSAKeyProvider;
+import com.auth0.jwt.interfaces.RSAKeyProvider;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * JwtKeySet holds the parsed asymmetric keys of JSON Web Tokens by their key ids ({@code kid}). Tokens are signed by
+ * the private key of the signing key id, whose id is written into the header of the token, and verified by the public
+ * key selected by the {@code kid} in the header.
+ * <p>
+ * Keys can be added, rotated and removed at runtime without rebuilding the signer or verifier, which look up the key
+ * set on every call. The keys are replaced as an immutable snapshot, so readers never need a lock. Removal listeners
+ * are notified after the new snapshot is published, outside the lock of the key set.
+ *
+ * @author vorbote
+ */
+@Slf4j
+public final class JwtKeySet {
+
+    /**
+     * A public key and its optional private key.
+     *
+     * @param publicKey  The public key.
+     * @param privateKey The private key, {@code null} if this key can only verify tokens.
+     */
+    private record KeyEntry(PublicKey publicKey, PrivateKey privateKey) {
+    }
+
+    /**
+     * An immutable snapshot of the keys.
+     *
+     * @param keys       The keys by their ids.
+     * @param signingKid The id of the signing key, {@code null} if no key can sign tokens.
+     */
+    private record Snapshot(Map<String, KeyEntry> keys, String signingKid) {
+    }
+
+    /**
+     * The id and the private key of the signing key, read from one snapshot.
+     *
+     * @param kid        The key id, {@code null} if no key can sign tokens.
+     * @param privateKey The private key, {@code null} if no key can sign tokens.
+     */
+    private record SigningKey(String kid, PrivateKey privateKey) {
+
+        static final SigningKey NONE = new SigningKey(null, null);
+    }
+
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), null);
+
+    /**
+     * The signing key whose id was handed to the signer of the current thread, and whose private key will sign the
+     * token. The signer asks for the key id before the private key, and a rotation in between must not make the token
+     * carry the id of one key and the signature of another.
+     */
+    private final ThreadLocal<SigningKey> pinnedSigningKey = new ThreadLocal<>();
+
+    /**
+     * Listeners notified with the id of removed keys.
+     */
+    private final List<Consumer<String>> removalListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Create a key set with one key, the key will be used to sign tokens if the private key is present.
+     *
+     * @param kid        The key id.
+     * @param publicKey  The public key.
+     * @param privateKey The private key, {@code null} if tokens are only verified.
+     * @return The key set.
+     */
+    public static JwtKeySet of(String kid, PublicKey publicKey, PrivateKey privateKey) {
+        JwtKeySet keySet = new JwtKeySet();
+        if (privateKey != null) {
+            keySet.rotate(kid, publicKey, privateKey);
+        } else {
+            keySet.put(kid, publicKey, null);
+        }
+        return keySet;
+    }
+
+    /**
+     * Add or replace a key, the signing key is not changed unless it's the replaced one. Replacing the public key of
+     * an existing key id notifies the removal listeners, as tokens verified by the old key are no longer valid.
+     *
+     * @param kid        The key id.
+     * @param publicKey  The public key.
+     * @param privateKey The private key, {@code null} if tokens are only verified by this key.
+     * @return This key set.
+     */
+    public JwtKeySet put(@NonNull String kid, @NonNull PublicKey publicKey, PrivateKey privateKey) {
+        boolean replaced;
+        synchronized (this) {
+            replaced = replace(kid, publicKey, privateKey);
+        }
+        if (replaced) {
+            notifyRemoval(kid);
+        }
+        return this;
+    }
+
+    /**
+     * Add or replace a key, the caller must hold the lock of this key set.
+     *
+     * @param kid        The key id.
+     * @param publicKey  The public key.
+     * @param privateKey The private key, {@code null} if tokens are only verified by this key.
+     * @return Value {@code true} if another public key of the key id was replaced.
+     */
+    private boolean replace(String kid, PublicKey publicKey, PrivateKey privateKey) {
+        Snapshot current = snapshot;
+        Map<String, KeyEntry> keys = new HashMap<>(current.keys());
+        KeyEntry previous = keys.put(kid, new KeyEntry(publicKey, privateKey));
+        String signingKid = current.signingKid();
+        if (kid.equals(signingKid) && privateKey == null) {
+            signingKid = null;
+        }
+        snapshot = new Snapshot(Map.copyOf(keys), signingKid);
+        return previous != null && !previous.publicKey().equals(publicKey);
+    }
+
+    /**
+     * Sign the following tokens by the key.
+     *
+     * @param kid The key id, the key must have a private key.
+     * @return This key set.
+     * @throws IllegalArgumentException If the key is absent or has no private key.
+     */
+    public synchronized JwtKeySet use(@NonNull String kid) {
+        Snapshot current = snapshot;
+        KeyEntry entry = current.keys().get(kid);
+        if (entry == null || entry.privateKey() == null) {
+            throw new IllegalArgumentException(String.format("Key [%s] has no private key to sign tokens.", kid));
+        }
+        snapshot = new Snapshot(current.keys(), kid);
+        log.info("JSON Web Tokens will be signed by key [{}].", kid);
+        return this;
+    }
+
+    /**
+     * Add a key and sign the following tokens by it. Tokens signed by the previous keys can still be verified until
+     * those keys are removed.
+     *
+     * @param kid        The key id.
+     * @param publicKey  The public key.
+     * @param privateKey The private key.
+     * @return This key set.
+     */
+    public JwtKeySet rotate(@NonNull String kid, @NonNull PublicKey publicKey, @NonNull PrivateKey privateKey) {
+        boolean replaced;
+        synchronized (this) {
+            replaced = replace(kid, publicKey, privateKey);
+            use(kid);
+        }
+        if (replaced) {
+            notifyRemoval(kid);
+        }
+        return this;
+    }
+
+    /**
+     * Remove a key, tokens signed by it can no longer be verified. If it's the signing key, no token can be signed
+     * until another key is used.
+     *
+     * @param kid The key id.
+     * @return Value {@code true} if the key was present.
+     */
+    public boolean remove(@NonNull String kid) {
+        synchronized (this) {
+            Snapshot current = snapshot;
+            if (!current.keys().containsKey(kid)) {
+                return false;
+            }
+            Map<String, KeyEntry> keys = new HashMap<>(current.keys());
+            keys.remove(kid);
+            snapshot = new Snapshot(Map.copyOf(keys), kid.equals(current.signingKid()) ? null : current.signingKid());
+        }
+        notifyRemoval(kid);
+        return true;
+    }
+
+    /**
+     * Notify the removal listeners, the caller must not hold the lock of this key set.
+     *
+     * @param kid The id of the removed or replaced key.
+     */
+    private void notifyRemoval(String kid) {
+        for (Consumer<String> listener : removalListeners) {
+            listener.accept(kid);
+        }
+    }
+
+    /**
+     * Add a listener which will be notified with the id of every removed key.
+     *
+     * @param listener The listener.
+     */
+    public void addRemovalListener(@NonNull Consumer<String> listener) {
+        removalListeners.add(listener);
+    }
+
+    /**
+     * Get the public key to verify a token. If the token has no key id, the signing key is used, or the only key if
+     * there is only one.
+     *
+     * @param kid The key id in the header of the token, may be {@code null}.
+     * @return The public key, {@code null} if absent.
+     */
+    public PublicKey getPublicKey(String kid) {
+        Snapshot current = snapshot;
+        KeyEntry entry;
+        if (kid != null) {
+            entry = current.keys().get(kid);
+        } else if (current.signingKid() != null) {
+            entry = current.keys().get(current.signingKid());
+        } else {
+            entry = current.keys().size() == 1 ? current.keys().values().iterator().next() : null;
+        }
+        return entry == null ? null : entry.publicKey();
+    }
+
+    /**
+     * Get the id of the signing key.
+     *
+     * @return The key id, {@code null} if no key can sign tokens.
+     */
+    public String getSigningKeyId() {
+        return snapshot.signingKid();
+    }
+
+    /**
+     * Get the private key of the signing key.
+     *
+     * @return The private key, {@code null} if no key can sign tokens.
+     */
+    public PrivateKey getSigningKey() {
+        return signingKey().privateKey();
+    }
+
+    /**
+     * Read the id and the private key of the signing key from one snapshot.
+     *
+     * @return The signing key.
+     */
+    private SigningKey signingKey() {
+        Snapshot current = snapshot;
+        return current.signingKid() == null
+                ? SigningKey.NONE
+                : new SigningKey(current.signingKid(), current.keys().get(current.signingKid()).privateKey());
+    }
+
+    /**
+     * Read the signing key and pin it to the current thread, so the following {@link #takePinnedSigningKey()} gets the
+     * private key of the same key.
+     *
+     * @return The id of the signing key.
+     */
+    private String pinSigningKey() {
+        SigningKey key = signingKey();
+        pinnedSigningKey.set(key);
+        return key.kid();
+    }
+
+    /**
+     * Take the private key pinned by {@link #pinSigningKey()}, or the current one if the signer didn't ask for the
+     * key id first.
+     *
+     * @return The private key, {@code null} if no key can sign tokens.
+     */
+    private PrivateKey takePinnedSigningKey() {
+        SigningKey key = pinnedSigningKey.get();
+        if (key == null) {
+            return getSigningKey();
+        }
+        pinnedSigningKey.remove();
+        return key.privateKey();
+    }
+
+    /**
+     * Get the ids of all keys.
+     *
+     * @return The key ids.
+     */
+    public Set<String> getKeyIds() {
+        return snapshot.keys().keySet();
+    }
+
+    /**
+     * View this key set as an RSA key provider, only RSA keys will be returned. The signing key id and the private key
+     * returned to one signing on a thread are read from the same snapshot.
+     *
+     * @return The RSA key provider.
+     */
+    public RSAKeyProvider asRsaKeyProvider() {
+        return new RSAKeyProvider() {
+            @Override
+            public RSAPublicKey getPublicKeyById(String keyId) {
+                return getPublicKey(keyId) instanceof RSAPublicKey key ? key : null;
+            }
+
+            @Override
+            public RSAPrivateKey getPrivateKey() {
+                return takePinnedSigningKey() instanceof RSAPrivateKey key ? key : null;
+            }
+
+            @Override
+            public String getPrivateKeyId() {
+                return pinSigningKey();
+            }
+        };
+    }
+
+    /**
+     * View this key set as an ECDSA key provider, only EC keys will be returned. The signing key id and the private
+     * key returned to one signing on a thread are read from the same snapshot.
+     *
+     * @return The ECDSA key provider.
+     */
+    public ECDSAKeyProvider asEcdsaKeyProvider() {
+        return new ECDSAKeyProvider() {
+            @Override
+            public ECPublicKey getPublicKeyById(String keyId) {
+                return getPublicKey(keyId) instanceof ECPublicKey key ? key : null;
+            }
+
+            @Override
+            public ECPrivateKey getPrivateKey() {
+                return takePinnedSigningKey() instanceof ECPrivateKey key ? key : null;
+            }
+
+            @Override
+            public String getPrivateKeyId() {
+                return pinSigningKey();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        Snapshot current = snapshot;
+        return "JwtKeySet(keyIds=" + current.keys().keySet() + ", signingKeyId=" + current.signingKid() + ")";
+    }
+}
@@ -0,0 +1,126 @@
+package cn.vorbote.simplejwt.keys;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.CertificateFactory;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * PemKeyLoader can help you load keys from PEM files. Supported blocks:
+ * <ul>
+ *     <li>{@code PUBLIC KEY} - X.509 SubjectPublicKeyInfo.</li>
+ *     <li>{@code CERTIFICATE} - X.509 certificate, its public key is used.</li>
+ *     <li>{@code PRIVATE KEY} - PKCS#8 private key.</li>
+ * </ul>
+ * Traditional {@code RSA PRIVATE KEY} and {@code EC PRIVATE KEY} blocks are not supported, please convert them to
+ * PKCS#8 by {@code openssl pkcs8 -topk8 -nocrypt}.
+ *
+ * @author vorbote
+ */
+public final class PemKeyLoader {
+
+    private static final Pattern BLOCK = Pattern.compile(
+            "-----BEGIN ([A-Z0-9 ]+)-----([A-Za-z0-9+/=\\s]+)-----END \\1-----");
+
+    /**
+     * Private constructor will prevent other coder create an instance of this class.
+     */
+    private PemKeyLoader() {
+    }
+
+    /**
+     * Load the public key from the first {@code PUBLIC KEY} or {@code CERTIFICATE} block of the file.
+     *
+     * @param file         The PEM file.
+     * @param keyAlgorithm The key algorithm, {@code RSA} or {@code EC}.
+     * @return The public key.
+     * @throws IOException              If an I/O error occurs.
+     * @throws IllegalArgumentException If the file contains no valid public key.
+     */
+    public static PublicKey readPublicKey(Path file, String keyAlgorithm) throws IOException {
+        return parsePublicKey(Files.readString(file, StandardCharsets.US_ASCII), keyAlgorithm);
+    }
+
+    /**
+     * Load the private key from the first {@code PRIVATE KEY} block of the file.
+     *
+     * @param file         The PEM file.
+     * @param keyAlgorithm The key algorithm, {@code RSA} or {@code EC}.
+     * @return The private key.
+     * @throws IOException              If an I/O error occurs.
+     * @throws IllegalArgumentException If the file contains no valid private key.
+     */
+    public static PrivateKey readPrivateKey(Path file, String keyAlgorithm) throws IOException {
+        return parsePrivateKey(Files.readString(file, StandardCharsets.US_ASCII), keyAlgorithm);
+    }
+
+    /**
+     * Parse the public key from the first {@code PUBLIC KEY} or {@code CERTIFICATE} block.
+     *
+     * @param pem          The PEM text.
+     * @param keyAlgorithm The key algorithm, {@code RSA} or {@code EC}.
+     * @return The public key.
+     * @throws IllegalArgumentException If the text contains no valid public key.
+     */
+    public static PublicKey parsePublicKey(String pem, String keyAlgorithm) {
+        Matcher matcher = BLOCK.matcher(pem);
+        while (matcher.find()) {
+            String type = matcher.group(1);
+            try {
+                if ("PUBLIC KEY".equals(type)) {
+                    return KeyFactory.getInstance(keyAlgorithm)
+                            .generatePublic(new X509EncodedKeySpec(decode(matcher.group(2))));
+                } else if ("CERTIFICATE".equals(type)) {
+                    return CertificateFactory.getInstance("X.509")
+                            .generateCertificate(new ByteArrayInputStream(decode(matcher.group(2))))
+                            .getPublicKey();
+                }
+            } catch (GeneralSecurityException e) {
+                throw new IllegalArgumentException("Invalid " + type + " block.", e);
+            }
+        }
+        throw new IllegalArgumentException("No PUBLIC KEY or CERTIFICATE block found.");
+    }
+
+    /**
+     * Parse the private key from the first {@code PRIVATE KEY} block.
+     *
+     * @param pem          The PEM text.
+     * @param keyAlgorithm The key algorithm, {@code RSA} or {@code EC}.
+     * @return The private key.
+     * @throws IllegalArgumentException If the text contains no valid private key.
+     */
+    public static PrivateKey parsePrivateKey(String pem, String keyAlgorithm) {
+        Matcher matcher = BLOCK.matcher(pem);
+        while (matcher.find()) {
+            String type = matcher.group(1);
+            if ("PRIVATE KEY".equals(type)) {
+                try {
+                    return KeyFactory.getInstance(keyAlgorithm)
+                            .generatePrivate(new PKCS8EncodedKeySpec(decode(matcher.group(2))));
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalArgumentException("Invalid PRIVATE KEY block.", e);
+                }
+            } else if (type.endsWith(" PRIVATE KEY")) {
+                throw new IllegalArgumentException(type + " block is not supported, please convert it to PKCS#8 " +
+                        "by 'openssl pkcs8 -topk8 -nocrypt'.");
+            }
+        }
+        throw new IllegalArgumentException("No PRIVATE KEY block found.");
+    }
+
+    private static byte[] decode(String body) {
+        return Base64.getMimeDecoder().decode(body.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,73 @@
+package cn.vorbote.webdev;
+
+import cn.vorbote.core.utils.*;
+import cn.vorbote.webdev.snowflake.SnowFlakeProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * SnowFlake id generator auto configurer. If no worker id is configured, each instance claims a free worker id from
+ * the {@link WorkerIdAllocator} at startup and releases it at shutdown.
+ *
+ * @author vorbote
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(value = {SnowFlakeProperties.class})
+@ConditionalOnProperty(name = "vorbote.web-dev.snow-flake.enabled", havingValue = "true")
+public class SnowFlakeAutoConfigure {
+
+    private static final String WORKER_ID_NOT_SET = "'${vorbote.web-dev.snow-flake.worker-id:}' == ''";
+
+    private final SnowFlakeProperties snowFlakeProperties;
+
+    @Autowired
+    public SnowFlakeAutoConfigure(SnowFlakeProperties snowFlakeProperties) {
+        this.snowFlakeProperties = snowFlakeProperties;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnExpression(WORKER_ID_NOT_SET)
+    public WorkerIdAllocator workerIdAllocator() {
+        log.debug("Building worker id allocator in [{}].", snowFlakeProperties.getLeaseDirectory());
+        return new FileLockWorkerIdAllocator(Path.of(snowFlakeProperties.getLeaseDirectory()),
+                snowFlakeProperties.getDataCentreId(), SnowFlakeLayout.DEFAULT.getMaxWorkerId(),
+                snowFlakeProperties.getLeaseTtl());
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    @ConditionalOnExpression(WORKER_ID_NOT_SET)
+    public WorkerIdLeaseKeeper workerIdLeaseKeeper(WorkerIdAllocator workerIdAllocator) {
+        return new WorkerIdLeaseKeeper(workerIdAllocator, snowFlakeProperties.getLeaseTtl().dividedBy(3));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ConcurrentSnowFlake concurrentSnowFlake(ObjectProvider<WorkerIdLeaseKeeper> workerIdLeaseKeeper) {
+        log.debug("Building SnowFlake id generator...");
+        SnowFlake.Builder builder = SnowFlake.builder();
+        if (snowFlakeProperties.getStartEpoch() != null) {
+            builder.startEpoch(snowFlakeProperties.getStartEpoch());
+        }
+
+        WorkerIdLeaseKeeper keeper = workerIdLeaseKeeper.getIfAvailable();
+        if (snowFlakeProperties.getWorkerId() != null || keeper == null) {
+            builder.workerId(snowFlakeProperties.getWorkerId() != null ? snowFlakeProperties.getWorkerId() : 0L)
+                    .dataCentreId(snowFlakeProperties.getDataCentreId());
+        } else {
+            builder.leaseKeeper(keeper);
+        }
+        return builder.buildConcurrent();
+    }
+}
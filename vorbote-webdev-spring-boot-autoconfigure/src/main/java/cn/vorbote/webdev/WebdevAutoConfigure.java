@@ -1,16 +1,50 @@
 package cn.vorbote.webdev;
 
+import cn.vorbote.core.utils.ConcurrentSnowFlake;
 import cn.vorbote.simplejwt.AccessKeyUtil;
+import cn.vorbote.simplejwt.TokenRevocationList;
+import cn.vorbote.simplejwt.VerifiedTokenCache;
 import cn.vorbote.simplejwt.choices.JwtAlgorithm;
+import cn.vorbote.simplejwt.keys.JwkKeyLoader;
+import cn.vorbote.simplejwt.keys.JwtKeySet;
+import cn.vorbote.simplejwt.keys.PemKeyLoader;
+import cn.vorbote.web.exceptions.ErrorResponseWriter;
 import cn.vorbote.web.filter.CorsFilter;
+import cn.vorbote.web.filter.ExceptionHandlingFilter;
+import cn.vorbote.web.filter.JwtAuthenticationFilter;
+import cn.vorbote.web.filter.PathPatterns;
+import cn.vorbote.web.filter.RequestIdFilter;
 import cn.vorbote.webdev.cors.CorsProperties;
+import cn.vorbote.webdev.exception.ErrorResponseExceptionResolver;
+import cn.vorbote.webdev.exception.ExceptionHandlerProperties;
 import cn.vorbote.webdev.jwt.JwtProperties;
+import cn.vorbote.webdev.reload.ReloadProperties;
+import cn.vorbote.webdev.reload.WebdevConfigurationReloader;
+import cn.vorbote.webdev.requestid.RequestIdProperties;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.PrivateKey;
+import java.security.PublicKey;
 
 /**
  * Web Dev Suite auto configurer.
@@ -19,7 +53,8 @@ import org.springframework.context.annotation.Configuration;
  */
 @Slf4j
 @Configuration
-@EnableConfigurationProperties(value = {JwtProperties.class, CorsProperties.class})
+@EnableConfigurationProperties(value = {JwtProperties.class, CorsProperties.class, ReloadProperties.class,
+        RequestIdProperties.class, ExceptionHandlerProperties.class})
 public class WebdevAutoConfigure {
 
     private final JwtProperties jwtProperties;
@@ -34,14 +69,102 @@ public class WebdevAutoConfigure {
 
     @Bean
     @ConditionalOnProperty(name = "vorbote.web-dev.jwt.enabled", havingValue = "true")
-    public AccessKeyUtil accessKeyUtil() {
+    public AccessKeyUtil accessKeyUtil(ObjectProvider<VerifiedTokenCache> tokenCache,
+                                       ObjectProvider<TokenRevocationList> revocationList) {
         log.debug("Building JSON Web Token handler.");
         JwtProperties info = this.jwtProperties;
         JwtAlgorithm algorithm = info.getAlgorithm();
         if (algorithm == null) {
             algorithm = JwtAlgorithm.HS256;
         }
-        return new AccessKeyUtil(algorithm, info.getSecret(), info.getIssuer());
+        AccessKeyUtil accessKeyUtil = switch (algorithm) {
+            case RS256, RS384, RS512, ES256, ES384, ES512 ->
+                    new AccessKeyUtil(algorithm, jwtKeySet(algorithm), info.getIssuer());
+            default -> new AccessKeyUtil(algorithm, info.getSecret(), info.getIssuer());
+        };
+        accessKeyUtil.setTokenCache(tokenCache.getIfAvailable());
+        accessKeyUtil.setRevocationList(revocationList.getIfAvailable());
+        return accessKeyUtil;
+    }
+
+    /**
+     * Load the key set of an RS or ES algorithm from the JWK file or the PEM files.
+     *
+     * @param algorithm The algorithm.
+     * @return The key set.
+     */
+    private JwtKeySet jwtKeySet(JwtAlgorithm algorithm) {
+        JwtProperties info = this.jwtProperties;
+        try {
+            if (StringUtils.hasText(info.getJwksLocation())) {
+                log.debug("Loading JSON Web Keys from {}.", info.getJwksLocation());
+                return JwkKeyLoader.read(Path.of(info.getJwksLocation()));
+            }
+            if (!StringUtils.hasText(info.getPublicKeyLocation())) {
+                throw new IllegalStateException("Algorithm " + algorithm + " requires vorbote.web-dev.jwt." +
+                        "jwks-location or vorbote.web-dev.jwt.public-key-location.");
+            }
+            String keyAlgorithm = algorithm.name().startsWith("RS") ? "RSA" : "EC";
+            PublicKey publicKey = PemKeyLoader.readPublicKey(Path.of(info.getPublicKeyLocation()), keyAlgorithm);
+            PrivateKey privateKey = StringUtils.hasText(info.getPrivateKeyLocation())
+                    ? PemKeyLoader.readPrivateKey(Path.of(info.getPrivateKeyLocation()), keyAlgorithm)
+                    : null;
+            return JwtKeySet.of(info.getKeyId(), publicKey, privateKey);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load the keys of JSON Web Token.", e);
+        }
+    }
+
+    @Bean
+    @ConditionalOnExpression("${vorbote.web-dev.jwt.enabled:false} && ${vorbote.web-dev.jwt.cache-size:0} > 0")
+    public VerifiedTokenCache verifiedTokenCache() {
+        log.debug("Building verified token cache, max size: {}.", jwtProperties.getCacheSize());
+        return new VerifiedTokenCache(jwtProperties.getCacheSize(), jwtProperties.getCacheTtl());
+    }
+
+    /**
+     * The revocation list is saved to its snapshot file by {@link TokenRevocationList#close()} when the context
+     * closes.
+     */
+    @Bean
+    @ConditionalOnExpression("${vorbote.web-dev.jwt.enabled:false} && ${vorbote.web-dev.jwt.revocation-size:0} > 0")
+    public TokenRevocationList tokenRevocationList() {
+        JwtProperties info = this.jwtProperties;
+        log.debug("Building token revocation list, expected size: {}.", info.getRevocationSize());
+        Path snapshot = StringUtils.hasText(info.getRevocationSnapshotLocation())
+                ? Path.of(info.getRevocationSnapshotLocation())
+                : null;
+        return new TokenRevocationList(info.getRevocationSize(), info.getRevocationFalsePositiveRate(), snapshot);
+    }
+
+    /**
+     * The filter verifies the bearer token once per request through the {@link AccessKeyUtil} bean, so it shares the
+     * verified-token cache and the revocation list of that bean.
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnExpression("${vorbote.web-dev.jwt.enabled:false} && ${vorbote.web-dev.jwt.filter-enabled:false}")
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilter(AccessKeyUtil accessKeyUtil) {
+        log.debug("Building JWT authentication filter...");
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(accessKeyUtil,
+                PathPatterns.compile(jwtProperties.getExcludePaths()));
+        FilterRegistrationBean<JwtAuthenticationFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setName("jwtAuthenticationFilter");
+        registration.setOrder(jwtProperties.getFilterOrder());
+        return registration;
+    }
+
+    /**
+     * Register the CORS filter before the JWT authentication filter.
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnProperty(name = "vorbote.web-dev.cors.enabled", havingValue = "true")
+    public FilterRegistrationBean<CorsFilter> corsFilterRegistration(CorsFilter corsFilter) {
+        FilterRegistrationBean<CorsFilter> registration = new FilterRegistrationBean<>(corsFilter);
+        registration.setName("corsFilter");
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 20);
+        return registration;
     }
 
     @Bean
@@ -53,6 +176,127 @@ public class WebdevAutoConfigure {
             corsProperties.setAllowCredentials(false);
         }
         return new CorsFilter(corsProperties.getAllowCredentials(), corsProperties.getAllowOrigin(),
-                corsProperties.getAllowMethods(), corsProperties.getAllowHeaders(), corsProperties.getExposeHeaders());
+                corsProperties.getAllowMethods(), corsProperties.getAllowHeaders(), corsProperties.getExposeHeaders(),
+                corsProperties.getMaxAge() == null ? -1 : corsProperties.getMaxAge().toSeconds());
+    }
+
+    /**
+     * Register the request id filter before the CORS and JWT filters. Ids come from the {@link ConcurrentSnowFlake}
+     * bean, or from a local generator with worker id 0 if the SnowFlake id generator is not enabled.
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnProperty(name = "vorbote.web-dev.request-id.enabled", havingValue = "true")
+    public FilterRegistrationBean<RequestIdFilter> requestIdFilter(ObjectProvider<ConcurrentSnowFlake> snowFlake,
+                                                                   RequestIdProperties requestIdProperties) {
+        log.debug("Building request id filter...");
+        ConcurrentSnowFlake generator = snowFlake.getIfAvailable(() -> {
+            log.warn("No SnowFlake id generator found, request ids will be generated with worker id 0.");
+            return new ConcurrentSnowFlake(0, 0);
+        });
+        RequestIdFilter filter = new RequestIdFilter(generator::nextId, requestIdProperties.getHeaderName(),
+                requestIdProperties.getMdcKey(), !Boolean.FALSE.equals(requestIdProperties.getTrustIncoming()));
+        FilterRegistrationBean<RequestIdFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setName("requestIdFilter");
+        registration.setOrder(requestIdProperties.getFilterOrder());
+        return registration;
+    }
+
+    /**
+     * The writer maps JWT verification failures and the common exceptions of Spring MVC, if it's present, besides
+     * {@code BizException}. The exceptions of Spring MVC are answered inside the dispatcher by
+     * {@link ErrorResponseExceptionResolver}, since Spring MVC never lets them reach the exception handling filter.
+     * {@code NoHandlerFoundException} is only thrown if {@code spring.mvc.throw-exception-if-no-handler-found} is set
+     * and no static resource handler maps all paths. General exceptions such as {@link IllegalArgumentException} are
+     * left unmapped, they are mostly bugs and must be logged with their stack traces. Declare an own
+     * {@link ErrorResponseWriter} bean to change the mappings.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "vorbote.web-dev.exception-handler.enabled", havingValue = "true")
+    public ErrorResponseWriter errorResponseWriter() {
+        log.debug("Building error response writer...");
+        ErrorResponseWriter writer = new ErrorResponseWriter()
+                .map(JWTVerificationException.class, HttpServletResponse.SC_UNAUTHORIZED, "Unauthorized");
+        mapIfPresent(writer, "org.springframework.web.HttpRequestMethodNotSupportedException",
+                HttpServletResponse.SC_METHOD_NOT_ALLOWED, "Method Not Allowed");
+        mapIfPresent(writer, "org.springframework.web.HttpMediaTypeNotSupportedException",
+                HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, "Unsupported Media Type");
+        mapIfPresent(writer, "org.springframework.web.HttpMediaTypeNotAcceptableException",
+                HttpServletResponse.SC_NOT_ACCEPTABLE, "Not Acceptable");
+        mapIfPresent(writer, "org.springframework.web.bind.ServletRequestBindingException",
+                HttpServletResponse.SC_BAD_REQUEST, "Bad Request");
+        mapIfPresent(writer, "org.springframework.web.bind.MethodArgumentNotValidException",
+                HttpServletResponse.SC_BAD_REQUEST, "Bad Request");
+        mapIfPresent(writer, "org.springframework.beans.TypeMismatchException",
+                HttpServletResponse.SC_BAD_REQUEST, "Bad Request");
+        mapIfPresent(writer, "org.springframework.http.converter.HttpMessageNotReadableException",
+                HttpServletResponse.SC_BAD_REQUEST, "Bad Request");
+        mapIfPresent(writer, "org.springframework.web.servlet.NoHandlerFoundException",
+                HttpServletResponse.SC_NOT_FOUND, "Not Found");
+        return writer;
+    }
+
+    /**
+     * Map the exception type if it's on the classpath, so Spring MVC stays an optional dependency.
+     */
+    @SuppressWarnings("unchecked")
+    private static void mapIfPresent(ErrorResponseWriter writer, String className, int code, String message) {
+        ClassLoader classLoader = WebdevAutoConfigure.class.getClassLoader();
+        if (ClassUtils.isPresent(className, classLoader)) {
+            writer.map((Class<? extends Throwable>) ClassUtils.resolveClassName(className, classLoader), code, message);
+        }
+    }
+
+    /**
+     * Register the exception handling filter right after the request id filter, so it wraps the CORS and JWT filters
+     * and the dispatcher.
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnProperty(name = "vorbote.web-dev.exception-handler.enabled", havingValue = "true")
+    public FilterRegistrationBean<ExceptionHandlingFilter> exceptionHandlingFilter(
+            ErrorResponseWriter errorResponseWriter, ExceptionHandlerProperties exceptionHandlerProperties) {
+        log.debug("Building exception handling filter...");
+        FilterRegistrationBean<ExceptionHandlingFilter> registration =
+                new FilterRegistrationBean<>(new ExceptionHandlingFilter(errorResponseWriter));
+        registration.setName("exceptionHandlingFilter");
+        registration.setOrder(exceptionHandlerProperties.getFilterOrder());
+        return registration;
+    }
+
+    /**
+     * Answer the exceptions of Spring MVC handlers with the error response writer, only if Spring MVC is present.
+     */
+    @Configuration
+    @ConditionalOnClass(HandlerExceptionResolver.class)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnProperty(name = "vorbote.web-dev.exception-handler.enabled", havingValue = "true")
+    static class ErrorResponseResolverConfigure {
+
+        @Bean
+        public ErrorResponseExceptionResolver errorResponseExceptionResolver(
+                ErrorResponseWriter errorResponseWriter, ExceptionHandlerProperties exceptionHandlerProperties) {
+            log.debug("Building error response exception resolver...");
+            return new ErrorResponseExceptionResolver(errorResponseWriter,
+                    exceptionHandlerProperties.getResolverOrder());
+        }
+    }
+
+    /**
+     * Reload the CORS and JWT configuration into the existing beans at runtime, the watched file is loaded when the
+     * reloader is built.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "vorbote.web-dev.reload.enabled", havingValue = "true")
+    public WebdevConfigurationReloader webdevConfigurationReloader(ConfigurableEnvironment environment,
+                                                                   ObjectProvider<CorsFilter> corsFilter,
+                                                                   ObjectProvider<AccessKeyUtil> accessKeyUtil,
+                                                                   ReloadProperties reloadProperties) {
+        WebdevConfigurationReloader reloader = new WebdevConfigurationReloader(environment, corsFilter, accessKeyUtil);
+        if (StringUtils.hasText(reloadProperties.getLocation())) {
+            reloader.watch(Path.of(reloadProperties.getLocation()), reloadProperties.getInterval());
+        }
+        return reloader;
     }
 }
@@ -4,6 +4,7 @@ import lombok.Builder;
 import lombok.Data;
 
 import java.io.Serializable;
+import java.time.Duration;
 
 /**
  * Specify the Cors Props.<br>
@@ -58,4 +59,11 @@ public class CorsConfigurationInfo implements Serializable {
      */
     private final String[] exposeHeaders;
 
+    /**
+     * According to <a href="https://developer.mozilla.org/en-US/docs/Web/HTTP/Headers/Access-Control-Max-Age"
+     * >MDN Docs</a>, this response header indicates how long the results of a preflight request can be cached.
+     * The header is not sent if this is not set.
+     */
+    private final Duration maxAge;
+
 }
@@ -1,8 +1,11 @@
 package cn.vorbote.webdev.cors;
 
+import cn.vorbote.web.filter.OriginMatcher;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+
 /**
  * This is the configuration info properties class.
  *
@@ -55,4 +58,24 @@ public class CorsProperties {
      */
     private String[] exposeHeaders;
 
+    /**
+     * According to <a href="https://developer.mozilla.org/en-US/docs/Web/HTTP/Headers/Access-Control-Max-Age"
+     * >MDN Docs</a>, this response header indicates how long the results of a preflight request can be cached.
+     * The header is not sent if this is not set.
+     */
+    private Duration maxAge;
+
+    /**
+     * Compile the allowed origins, wildcard subdomains ({@code https://*.example.com}) and port ranges
+     * ({@code http://localhost:8000-8999}) are supported. The matcher is compiled on every call, keep it if it's
+     * used repeatedly.
+     *
+     * @return The compiled origin matcher.
+     * @throws IllegalArgumentException If any origin is malformed.
+     * @see OriginMatcher
+     */
+    public OriginMatcher originMatcher() {
+        return OriginMatcher.compile(allowOrigin);
+    }
+
 }
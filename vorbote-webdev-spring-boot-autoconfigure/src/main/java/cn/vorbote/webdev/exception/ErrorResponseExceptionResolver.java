@@ -0,0 +1,66 @@
+package cn.vorbote.webdev.exception;
+
+import cn.vorbote.web.exceptions.ErrorResponseWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.io.IOException;
+
+/**
+ * Answers the exceptions of Spring MVC handlers with {@link ErrorResponseWriter} inside the dispatcher. The common
+ * exceptions of Spring MVC, such as {@code HttpRequestMethodNotSupportedException}, are resolved by
+ * {@code DefaultHandlerExceptionResolver} with {@code sendError} and never reach the exception handling filter, so
+ * this resolver must be ordered before the resolvers of Spring MVC to answer them with the same bodies.
+ * <p>
+ * Only business exceptions and mapped exceptions are resolved here, other exceptions are left to the following
+ * resolvers and to the exception handling filter. Being ordered first, it also answers before the
+ * {@code @ExceptionHandler} methods of controller advices, set its order after {@code 0} to let them run first.
+ *
+ * @author vorbote
+ */
+@Slf4j
+public class ErrorResponseExceptionResolver implements HandlerExceptionResolver, Ordered {
+
+    private final ErrorResponseWriter writer;
+
+    private final int order;
+
+    /**
+     * Create a resolver.
+     *
+     * @param writer The writer of error responses.
+     * @param order  The order among the handler exception resolvers.
+     */
+    public ErrorResponseExceptionResolver(@NonNull ErrorResponseWriter writer, int order) {
+        this.writer = writer;
+        this.order = order;
+    }
+
+    @Override
+    public ModelAndView resolveException(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                         Exception ex) {
+        if (response.isCommitted() || !writer.isHandled(ex)) {
+            return null;
+        }
+        log.debug("Request {} {} failed: {}", request.getMethod(), request.getRequestURI(), ex.toString());
+        try {
+            response.resetBuffer();
+            writer.write(response, ex);
+        } catch (IOException e) {
+            log.warn("Failed to write the error response of request {} {}.", request.getMethod(),
+                    request.getRequestURI(), e);
+        }
+        // 空的 ModelAndView 表示已处理，不再渲染视图
+        return new ModelAndView();
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+}
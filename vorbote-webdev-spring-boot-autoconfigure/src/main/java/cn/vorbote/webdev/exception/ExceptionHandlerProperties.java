@@ -0,0 +1,35 @@
+package cn.vorbote.webdev.exception;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.Ordered;
+
+/**
+ * This is the configuration info properties class of the global exception handler.
+ *
+ * @author vorbote
+ */
+@Data
+@ConfigurationProperties(prefix = "vorbote.web-dev.exception-handler")
+public class ExceptionHandlerProperties {
+
+    /**
+     * Answer exceptions escaping the handlers with {@code ResponseResult} bodies by set this to {@code true}.
+     */
+    private Boolean enabled;
+
+    /**
+     * Order of the exception handling filter, it runs right after the request id filter by default, so error bodies
+     * carry the request id and the exceptions of the CORS and JWT filters are handled as well.
+     */
+    private Integer filterOrder = Ordered.HIGHEST_PRECEDENCE + 20;
+
+    /**
+     * Order of the handler exception resolver answering the exceptions of Spring MVC handlers, if Spring MVC is
+     * present. It runs before the resolvers of Spring MVC by default, which turn their common exceptions into error
+     * pages the exception handling filter never sees. Set it after {@code 0} to let {@code @ExceptionHandler} methods
+     * run first, then the common exceptions of Spring MVC are answered by Spring MVC itself.
+     */
+    private Integer resolverOrder = Ordered.HIGHEST_PRECEDENCE;
+
+}
@@ -3,6 +3,9 @@ package cn.vorbote.webdev.jwt;
 import cn.vorbote.simplejwt.choices.JwtAlgorithm;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
 
 /**
  * This is the configuration info properties class.
@@ -33,4 +36,69 @@ public class JwtProperties {
      */
     private JwtAlgorithm algorithm;
 
+    /**
+     * Path of the JWK or JWKS file holding the keys of RS and ES algorithms. If it's not set, the keys are loaded from
+     * the PEM files.
+     */
+    private String jwksLocation;
+
+    /**
+     * Path of the PEM file holding the public key or certificate of RS and ES algorithms.
+     */
+    private String publicKeyLocation;
+
+    /**
+     * Path of the PEM file holding the PKCS#8 private key of RS and ES algorithms, leave it unset if tokens are only
+     * verified.
+     */
+    private String privateKeyLocation;
+
+    /**
+     * The key id of the key loaded from the PEM files.
+     */
+    private String keyId = "default";
+
+    /**
+     * Max count of verified tokens to cache, the cache is disabled if this is not set or not positive.
+     */
+    private Integer cacheSize;
+
+    /**
+     * Time to live of a cached verified token, it will never outlive the expiry of the token.
+     */
+    private Duration cacheTtl = Duration.ofMinutes(5);
+
+    /**
+     * Expected count of revoked tokens not expired yet, tokens can be revoked only if this is set to a positive value.
+     */
+    private Integer revocationSize;
+
+    /**
+     * Expected false positive rate of the Bloom filter in front of the revocation list.
+     */
+    private Double revocationFalsePositiveRate = 0.01;
+
+    /**
+     * Path of the snapshot file of the revocation list, it's loaded on startup and saved on shutdown. The list is
+     * kept in memory only if this is not set.
+     */
+    private String revocationSnapshotLocation;
+
+    /**
+     * Register the JWT authentication filter by set this to {@code true}, requests without a valid bearer token will
+     * be answered with {@code 401 Unauthorized}.
+     */
+    private Boolean filterEnabled;
+
+    /**
+     * Ant-style path patterns which don't need a token, such as {@code /login} or {@code /public/**}.
+     */
+    private String[] excludePaths = new String[]{};
+
+    /**
+     * Order of the JWT authentication filter, it runs after the CORS filter by default, so rejected requests still
+     * carry the CORS headers.
+     */
+    private Integer filterOrder = Ordered.LOWEST_PRECEDENCE - 10;
+
 }
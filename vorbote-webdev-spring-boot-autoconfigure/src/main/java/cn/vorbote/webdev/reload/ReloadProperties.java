@@ -0,0 +1,35 @@
+package cn.vorbote.webdev.reload;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * This is the configuration info properties class of the hot reloading of CORS and JWT configuration.
+ *
+ * @author vorbote
+ */
+@Data
+@ConfigurationProperties(prefix = "vorbote.web-dev.reload")
+public class ReloadProperties {
+
+    /**
+     * Open the hot reloading by set this to {@code true}.
+     */
+    private Boolean enabled;
+
+    /**
+     * Path of a properties file to watch, such as {@code /etc/app/webdev.properties}. Its
+     * {@code vorbote.web-dev.cors.*} and {@code vorbote.web-dev.jwt.*} entries override the application
+     * configuration and are applied whenever the file changes. If this is not set, the configuration is only reloaded
+     * by {@link WebdevConfigurationReloader#reload()}.
+     */
+    private String location;
+
+    /**
+     * How often the watched file is checked for changes.
+     */
+    private Duration interval = Duration.ofSeconds(5);
+
+}
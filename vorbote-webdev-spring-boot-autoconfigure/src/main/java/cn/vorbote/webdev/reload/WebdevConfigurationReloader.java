@@ -0,0 +1,163 @@
+package cn.vorbote.webdev.reload;
+
+import cn.vorbote.simplejwt.AccessKeyUtil;
+import cn.vorbote.simplejwt.keys.JwkKeyLoader;
+import cn.vorbote.web.filter.CorsFilter;
+import cn.vorbote.webdev.cors.CorsProperties;
+import cn.vorbote.webdev.jwt.JwtProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertiesPropertySource;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloads the configuration of {@link CorsFilter} and {@link AccessKeyUtil} at runtime. The properties are bound from
+ * the environment again and applied to the existing beans, which swap their compiled snapshots atomically, so neither
+ * the filters nor the token util are rebuilt and requests never wait for a reload.
+ * <p>
+ * Call {@link #reload()} after the environment has changed, for example from a configuration refresh listener, or
+ * let it watch a properties file whose entries override the application configuration.
+ *
+ * @author vorbote
+ */
+@Slf4j
+public class WebdevConfigurationReloader implements DisposableBean {
+
+    /**
+     * Name of the property source holding the watched file.
+     */
+    public static final String PROPERTY_SOURCE_NAME = "vorboteWebdevReload";
+
+    private final ConfigurableEnvironment environment;
+
+    private final ObjectProvider<CorsFilter> corsFilter;
+
+    private final ObjectProvider<AccessKeyUtil> accessKeyUtil;
+
+    private ScheduledExecutorService watcher;
+
+    private long lastModified;
+
+    public WebdevConfigurationReloader(ConfigurableEnvironment environment, ObjectProvider<CorsFilter> corsFilter,
+                                       ObjectProvider<AccessKeyUtil> accessKeyUtil) {
+        this.environment = environment;
+        this.corsFilter = corsFilter;
+        this.accessKeyUtil = accessKeyUtil;
+    }
+
+    /**
+     * Bind the CORS and JWT properties from the environment again and apply them. Each component keeps its current
+     * configuration if its new configuration is invalid.
+     *
+     * @return Value {@code true} if all components are reloaded.
+     */
+    public synchronized boolean reload() {
+        Binder binder = Binder.get(environment);
+        boolean reloaded = true;
+
+        CorsFilter filter = corsFilter.getIfAvailable();
+        if (filter != null) {
+            CorsProperties cors = binder.bind("vorbote.web-dev.cors", CorsProperties.class)
+                    .orElseGet(CorsProperties::new);
+            try {
+                filter.reconfigure(Boolean.TRUE.equals(cors.getAllowCredentials()), cors.getAllowOrigin(),
+                        cors.getAllowMethods(), cors.getAllowHeaders(), cors.getExposeHeaders(),
+                        cors.getMaxAge() == null ? -1 : cors.getMaxAge().toSeconds());
+            } catch (RuntimeException e) {
+                log.error("Failed to reload the CORS configuration, the current one is kept.", e);
+                reloaded = false;
+            }
+        }
+
+        AccessKeyUtil util = accessKeyUtil.getIfAvailable();
+        if (util != null) {
+            JwtProperties jwt = binder.bind("vorbote.web-dev.jwt", JwtProperties.class)
+                    .orElseGet(JwtProperties::new);
+            try {
+                util.reload(jwt.getSecret(), jwt.getIssuer());
+                // 密钥文件中已删除的密钥同时从密钥集移除
+                if (util.getKeySet() != null && StringUtils.hasText(jwt.getJwksLocation())) {
+                    JwkKeyLoader.reload(Files.readString(Path.of(jwt.getJwksLocation())), util.getKeySet());
+                }
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to reload the JWT configuration, the current one is kept.", e);
+                reloaded = false;
+            }
+        }
+        return reloaded;
+    }
+
+    /**
+     * Watch the properties file, its entries are added to the environment with the highest precedence and reloaded
+     * whenever the file is modified. The file is loaded at once if it exists.
+     *
+     * @param file     The properties file.
+     * @param interval How often the file is checked.
+     */
+    public synchronized void watch(Path file, Duration interval) {
+        if (watcher != null) {
+            throw new IllegalStateException("The reloader is already watching a file.");
+        }
+        watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "webdev-config-reloader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poll(file);
+        watcher.scheduleWithFixedDelay(() -> poll(file), interval.toMillis(), interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        log.info("Watching {} for configuration changes every {}.", file, interval);
+    }
+
+    private synchronized void poll(Path file) {
+        try {
+            if (!Files.exists(file)) {
+                return;
+            }
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            if (modified == lastModified) {
+                return;
+            }
+            lastModified = modified;
+
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            MutablePropertySources sources = environment.getPropertySources();
+            PropertiesPropertySource source = new PropertiesPropertySource(PROPERTY_SOURCE_NAME, properties);
+            if (sources.contains(PROPERTY_SOURCE_NAME)) {
+                sources.replace(PROPERTY_SOURCE_NAME, source);
+            } else {
+                sources.addFirst(source);
+            }
+            log.info("Configuration file {} changed, reloading.", file);
+            reload();
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to load the configuration file {}.", file, e);
+        }
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+            watcher = null;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package cn.vorbote.webdev.requestid;
+
+import cn.vorbote.web.filter.RequestIdFilter;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.Ordered;
+
+/**
+ * This is the configuration info properties class of the request id filter.
+ *
+ * @author vorbote
+ */
+@Data
+@ConfigurationProperties(prefix = "vorbote.web-dev.request-id")
+public class RequestIdProperties {
+
+    /**
+     * Register the request id filter by set this to {@code true}. Ids are generated by the
+     * {@link cn.vorbote.core.utils.ConcurrentSnowFlake} bean if the SnowFlake id generator is enabled.
+     */
+    private Boolean enabled;
+
+    /**
+     * The header carrying the request id in both the request and the response.
+     */
+    private String headerName = RequestIdFilter.DEFAULT_HEADER;
+
+    /**
+     * The key of the request id in the SLF4J MDC, use {@code %X{requestId}} in the log pattern to print it.
+     */
+    private String mdcKey = RequestIdFilter.DEFAULT_MDC_KEY;
+
+    /**
+     * Whether to accept the request id sent by the client or the gateway, set this to {@code false} if the
+     * application is exposed to clients directly.
+     */
+    private Boolean trustIncoming = true;
+
+    /**
+     * Order of the request id filter, it runs before the CORS and JWT filters by default, so their logs carry the id.
+     */
+    private Integer filterOrder = Ordered.HIGHEST_PRECEDENCE + 10;
+
+}
@@ -5,6 +5,8 @@ import cn.vorbote.webdev.cors.CorsConfigurationInfo;
 import cn.vorbote.webdev.jwt.JwtConfigurationInfo;
 import cn.vorbote.webdev.service.WebdevService;
 
+import java.time.Duration;
+
 /**
  * This is the implementation of main service class.
  *
@@ -75,6 +77,13 @@ public class WebdevServiceImpl implements WebdevService {
      */
     private final String[] exposeHeaders;
 
+    /**
+     * According to <a href="https://developer.mozilla.org/en-US/docs/Web/HTTP/Headers/Access-Control-Max-Age"
+     * >MDN Docs</a>, this response header indicates how long the results of a preflight request can be cached.
+     * The header is not sent if this is not set.
+     */
+    private final Duration maxAge;
+
     /**
      * Constructor.
      *
@@ -99,6 +108,36 @@ public class WebdevServiceImpl implements WebdevService {
                              String[] allowHeaders,
                              String[] allowMethods,
                              String[] exposeHeaders) {
+        this(jwtEnabled, issuer, secret, algorithm, corsEnabled, allowCredentials, allowOrigin, allowHeaders,
+                allowMethods, exposeHeaders, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param jwtEnabled       Specify whether to use jwt or not.
+     * @param issuer           The issuer of the {@code JSON Web Token}.
+     * @param secret           The secret of the {@code JSON Web Token}.
+     * @param algorithm        The algorithm of the {@code JSON Web Token}.
+     * @param corsEnabled      Specify whether to use cors or not.
+     * @param allowCredentials See MDN Docs.
+     * @param allowOrigin      See MDN Docs.
+     * @param allowHeaders     See MDN Docs.
+     * @param allowMethods     See MDN Docs.
+     * @param exposeHeaders    See MDN Docs.
+     * @param maxAge           See MDN Docs.
+     */
+    public WebdevServiceImpl(boolean jwtEnabled,
+                             String issuer,
+                             String secret,
+                             JwtAlgorithm algorithm,
+                             boolean corsEnabled,
+                             boolean allowCredentials,
+                             String[] allowOrigin,
+                             String[] allowHeaders,
+                             String[] allowMethods,
+                             String[] exposeHeaders,
+                             Duration maxAge) {
         this.jwtEnabled = jwtEnabled;
         this.issuer = issuer;
         this.secret = secret;
@@ -109,6 +148,7 @@ public class WebdevServiceImpl implements WebdevService {
         this.allowHeaders = allowHeaders;
         this.allowMethods = allowMethods;
         this.exposeHeaders = exposeHeaders;
+        this.maxAge = maxAge;
     }
 
     /**
@@ -133,6 +173,7 @@ public class WebdevServiceImpl implements WebdevService {
                 .allowOrigin(this.allowOrigin)
                 .allowMethods(this.allowMethods)
                 .allowHeaders(this.allowHeaders)
-                .exposeHeaders(this.exposeHeaders).build();
+                .exposeHeaders(this.exposeHeaders)
+                .maxAge(this.maxAge).build();
     }
 }
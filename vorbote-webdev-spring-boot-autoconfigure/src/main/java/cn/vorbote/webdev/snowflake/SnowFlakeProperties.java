@@ -0,0 +1,49 @@
+package cn.vorbote.webdev.snowflake;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * This is the configuration info properties class of the SnowFlake id generator.
+ *
+ * @author vorbote
+ */
+@Data
+@ConfigurationProperties(prefix = "vorbote.web-dev.snow-flake")
+public class SnowFlakeProperties {
+
+    /**
+     * Open the SnowFlake id generator by set this to {@code true}.
+     */
+    private Boolean enabled;
+
+    /**
+     * The start epoch (unit: millisecond) to calculate, the default start epoch will be used if this is not set.
+     */
+    private Long startEpoch;
+
+    /**
+     * The id of the data centre.
+     */
+    private Long dataCentreId = 0L;
+
+    /**
+     * The id of the server. If this is not set, a free worker id will be claimed from the
+     * {@link cn.vorbote.core.utils.WorkerIdAllocator} at startup and released at shutdown.
+     */
+    private Long workerId;
+
+    /**
+     * The directory to store the lease files of worker ids, share this directory between instances which must not
+     * use the same worker id.
+     */
+    private String leaseDirectory = System.getProperty("java.io.tmpdir") + "/vorbote-worker-ids";
+
+    /**
+     * The time-to-live of a worker id lease without renewal, the lease will be renewed every third of it.
+     */
+    private Duration leaseTtl = Duration.ofSeconds(30);
+
+}
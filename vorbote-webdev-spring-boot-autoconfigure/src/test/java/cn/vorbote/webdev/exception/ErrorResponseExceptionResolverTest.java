@@ -0,0 +1,110 @@
+package cn.vorbote.webdev.exception;
+
+import cn.vorbote.web.exceptions.BizException;
+import cn.vorbote.webdev.WebdevAutoConfigure;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Dispatch real requests through Spring MVC with {@link WebdevAutoConfigure}, and check that the common exceptions of
+ * Spring MVC and business exceptions are answered with {@code ResponseResult} bodies.
+ *
+ * @author vorbote
+ */
+class ErrorResponseExceptionResolverTest {
+
+    private AnnotationConfigWebApplicationContext context;
+
+    private MockMvc mockMvc;
+
+    @EnableWebMvc
+    @Configuration
+    static class WebConfig {
+    }
+
+    @RestController
+    static class ItemController {
+
+        @GetMapping("/items/{id}")
+        public String get(@PathVariable Integer id) {
+            return String.valueOf(id);
+        }
+
+        @PostMapping(value = "/items", consumes = MediaType.APPLICATION_JSON_VALUE)
+        public String create(@RequestBody String body) {
+            return body;
+        }
+
+        @GetMapping("/conflict")
+        public String conflict() {
+            throw new BizException(409, "Item exists.");
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        TestPropertyValues.of("vorbote.web-dev.exception-handler.enabled=true").applyTo(context);
+        context.register(WebConfig.class, ItemController.class, WebdevAutoConfigure.class);
+        context.refresh();
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void answersTypeMismatch() throws Exception {
+        mockMvc.perform(get("/items/abc"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType("application/json;charset=UTF-8"))
+                .andExpect(jsonPath("$.code").value(400))
+                .andExpect(jsonPath("$.message").value("Bad Request"));
+    }
+
+    @Test
+    void answersUnsupportedMethod() throws Exception {
+        mockMvc.perform(delete("/items/1"))
+                .andExpect(status().isMethodNotAllowed())
+                .andExpect(jsonPath("$.code").value(405))
+                .andExpect(jsonPath("$.message").value("Method Not Allowed"));
+    }
+
+    @Test
+    void answersUnsupportedMediaType() throws Exception {
+        mockMvc.perform(post("/items").contentType(MediaType.TEXT_PLAIN).content("item"))
+                .andExpect(status().isUnsupportedMediaType())
+                .andExpect(jsonPath("$.code").value(415));
+    }
+
+    @Test
+    void answersBusinessException() throws Exception {
+        mockMvc.perform(get("/conflict"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code").value(409))
+                .andExpect(jsonPath("$.message").value("Item exists."));
+    }
+
+    @Test
+    void leavesSuccessfulRequests() throws Exception {
+        mockMvc.perform(get("/items/42"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("42"));
+    }
+}
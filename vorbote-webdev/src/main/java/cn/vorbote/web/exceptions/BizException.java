@@ -5,13 +5,25 @@ import cn.vorbote.web.utils.BizAssert;
 
 /**
  * BizException stands for Business Exception, and meant to be thrown while Business Assertion fails. This Exception is
- * used to solve that Spring Framework throws <code>java.lang.IllegalArgumentException</code> while its assertion fails.<br>
+ * used to solve that Spring Framework throws <code>java.lang.IllegalArgumentException</code> while its assertion fails.
+ * <p>
+ * Business exceptions are control flow rather than bugs, and filling in the stack trace is usually the most expensive
+ * part of throwing them. Stack traces can be turned off for all business exceptions by {@link #setStackless(boolean)}
+ * or the system property {@code vorbote.biz-exception.stackless}, or for single throws by
+ * {@link #withoutStackTrace(int, String)}. Errors whose code and message never change can be preallocated once by
+ * {@link #constant(int, String)}, kept in a static field and thrown again and again through the {@link BizAssert}
+ * overloads accepting an exception.<br>
  * Created at 2022/2/22 22:22
  *
  * @author vorbote
  */
 public class BizException extends RuntimeException {
 
+    /**
+     * Whether business exceptions are created without stack traces by default.
+     */
+    private static volatile boolean stackless = Boolean.getBoolean("vorbote.biz-exception.stackless");
+
     /**
      * The web status code.
      */
@@ -54,10 +66,78 @@ public class BizException extends RuntimeException {
      * @param message Exception message.
      */
     public BizException(int code, String message) {
-        super(message);
+        this(code, message, !stackless);
+    }
+
+    /**
+     * Constructor to build a BizException, for subclasses choosing whether to record the stack trace.
+     *
+     * @param code               Web status code.
+     * @param message            Exception message.
+     * @param writableStackTrace Whether to fill in the stack trace. If it's {@code false}, suppressed exceptions are
+     *                           disabled as well, so the instance can be shared between threads.
+     */
+    protected BizException(int code, String message, boolean writableStackTrace) {
+        super(message, null, writableStackTrace, writableStackTrace);
         this.code = code;
     }
 
+    /**
+     * Check whether business exceptions are created without stack traces by default.
+     *
+     * @return Value {@code true} if stack traces are turned off.
+     */
+    public static boolean isStackless() {
+        return stackless;
+    }
+
+    /**
+     * Turn stack traces of business exceptions off or on, it affects exceptions created afterwards.
+     *
+     * @param stackless Value {@code true} to create business exceptions without stack traces.
+     */
+    public static void setStackless(boolean stackless) {
+        BizException.stackless = stackless;
+    }
+
+    /**
+     * Build a BizException without the stack trace, whatever {@link #isStackless()} is.
+     *
+     * @param code    Web status code.
+     * @param message Exception message.
+     * @return A new exception without the stack trace.
+     */
+    public static BizException withoutStackTrace(int code, String message) {
+        return new BizException(code, message, false);
+    }
+
+    /**
+     * Build an immutable exception without the stack trace, which can be shared and thrown many times. Its code can't
+     * be changed. Nothing is cached by this method, so call it once for each error and keep the instance in a static
+     * field:
+     * <pre>{@code
+     * private static final BizException USER_NOT_FOUND = BizException.constant(404, "User not found.");
+     *
+     * BizAssert.notNull(user, USER_NOT_FOUND);
+     * }</pre>
+     *
+     * @param code    Web status code.
+     * @param message Exception message.
+     * @return A new constant exception.
+     */
+    public static BizException constant(int code, String message) {
+        return new Constant(code, message);
+    }
+
+    /**
+     * Check whether this exception is a shared instance got by {@link #constant(int, String)}.
+     *
+     * @return Value {@code true} if the code and the message of this exception never change.
+     */
+    public boolean isConstant() {
+        return false;
+    }
+
     /**
      * Convert this exception to a response result.
      *
@@ -67,4 +147,24 @@ public class BizException extends RuntimeException {
         return ResponseResult.<Void>error(this.getMessage()).code(this.getCode());
     }
 
+    /**
+     * A shared constant exception, which has no stack trace and rejects changes of the code.
+     */
+    private static final class Constant extends BizException {
+
+        private Constant(int code, String message) {
+            super(code, message, false);
+        }
+
+        @Override
+        public BizException setCode(int code) {
+            throw new UnsupportedOperationException("The code of a constant BizException can't be changed.");
+        }
+
+        @Override
+        public boolean isConstant() {
+            return true;
+        }
+    }
+
 }
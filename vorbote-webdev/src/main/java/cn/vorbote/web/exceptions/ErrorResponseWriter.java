@@ -0,0 +1,220 @@
+package cn.vorbote.web.exceptions;
+
+import cn.vorbote.core.time.DateTime;
+import cn.vorbote.web.filter.RequestIdFilter;
+import cn.vorbote.web.model.ResponseResult;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writer of error responses. Exceptions are converted to {@link ResponseResult} bodies: a {@link BizException} keeps
+ * its code and message, mapped exception types get the code and message they are mapped to, and any other exception
+ * is answered with {@code 500} and a generic message, so internal details are never sent to clients.
+ * <p>
+ * The JSON body is written directly in the same shape Jackson produces for {@link ResponseResult}:
+ * <pre>{@code {"code":400,"data":null,"timestamp":1700000000,"message":"...","requestId":"..."}}</pre>
+ * For constant errors, which are the exceptions got by {@link BizException#constant(int, String)} and mapped
+ * exception types, the bytes before and after {@code timestamp} are rendered once and cached, and only the timestamp
+ * and the request id are written per response. Other business exceptions are rendered per response, still without
+ * reflection.
+ * <p>
+ * Configure the mappings before the writer is used. Applications handling exceptions in their own controller advices
+ * can inject this writer and call {@link #write(HttpServletResponse, Throwable)} there.
+ *
+ * @author vorbote
+ */
+public final class ErrorResponseWriter {
+
+    private static final String CONTENT_TYPE = "application/json;charset=UTF-8";
+
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * The body of unmapped exceptions.
+     */
+    private static final Body INTERNAL_ERROR = Body.of(HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+            "Internal Server Error");
+
+    /**
+     * Configured mappings by exception type.
+     */
+    private final Map<Class<? extends Throwable>, Body> mappings = new ConcurrentHashMap<>();
+
+    /**
+     * Resolved bodies by the exact exception type, {@link #INTERNAL_ERROR} if no mapping applies.
+     */
+    private final Map<Class<?>, Body> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * Constant business exceptions whose bodies are cached at most.
+     */
+    private static final int MAX_CONSTANTS = 1024;
+
+    /**
+     * Cached bodies of constant business exceptions, which are usually held by static fields. Constants beyond
+     * {@link #MAX_CONSTANTS} are rendered per response, so constants created per request can't exhaust the memory.
+     */
+    private final Map<BizException, Body> constants = new ConcurrentHashMap<>();
+
+    /**
+     * Map an exception type and its subtypes to an error, the closest mapped supertype of an exception wins.
+     *
+     * @param type    The exception type.
+     * @param code    The code of the error, it's also used as the HTTP status if it's a valid one.
+     * @param message The message sent to clients.
+     * @return The writer itself.
+     */
+    public ErrorResponseWriter map(@NonNull Class<? extends Throwable> type, int code, String message) {
+        if (BizException.class.isAssignableFrom(type)) {
+            throw new IllegalArgumentException("BizException always keeps its own code and message.");
+        }
+        mappings.put(type, Body.of(code, message));
+        resolved.clear();
+        return this;
+    }
+
+    /**
+     * Check whether an error response is written for the exception with its own code and message, rather than the
+     * generic internal error.
+     *
+     * @param throwable The exception.
+     * @return Value {@code true} if it's a business exception or a mapped exception.
+     */
+    public boolean isHandled(Throwable throwable) {
+        return throwable instanceof BizException || body(throwable) != INTERNAL_ERROR;
+    }
+
+    /**
+     * Convert the exception to a response result.
+     *
+     * @param throwable The exception.
+     * @return The response result.
+     */
+    public ResponseResult<Void> toResult(Throwable throwable) {
+        if (throwable instanceof BizException e) {
+            return e.respond();
+        }
+        Body body = body(throwable);
+        return ResponseResult.<Void>error(body.message).code(body.code);
+    }
+
+    /**
+     * Write the error response of the exception. The response must not be committed.
+     *
+     * @param response  The response.
+     * @param throwable The exception.
+     * @throws IOException If the body can't be written.
+     */
+    public void write(HttpServletResponse response, Throwable throwable) throws IOException {
+        Body body;
+        if (throwable instanceof BizException e) {
+            body = e.isConstant() ? constants.get(e) : null;
+            if (body == null) {
+                body = Body.of(e.getCode(), e.getMessage());
+                if (e.isConstant() && constants.size() < MAX_CONSTANTS) {
+                    constants.putIfAbsent(e, body);
+                }
+            }
+        } else {
+            body = body(throwable);
+        }
+        body.write(response);
+    }
+
+    /**
+     * Resolve the body of a non-business exception by its type.
+     */
+    private Body body(Throwable throwable) {
+        return resolved.computeIfAbsent(throwable.getClass(), type -> {
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                Body body = mappings.get(c);
+                if (body != null) {
+                    return body;
+                }
+            }
+            return INTERNAL_ERROR;
+        });
+    }
+
+    /**
+     * A pre-rendered error body, split around the timestamp.
+     *
+     * @param code    The code.
+     * @param message The message.
+     * @param status  The HTTP status.
+     * @param head    Bytes from the opening brace to the name of {@code timestamp}.
+     * @param tail    Bytes from the timestamp value to the name of {@code requestId}.
+     */
+    private record Body(int code, String message, int status, byte[] head, byte[] tail) {
+
+        static Body of(int code, String message) {
+            StringBuilder tail = new StringBuilder(",\"message\":");
+            quote(tail, message);
+            tail.append(",\"requestId\":");
+            return new Body(code, message,
+                    code >= 100 && code <= 599 ? code : HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                    ("{\"code\":" + code + ",\"data\":null,\"timestamp\":").getBytes(StandardCharsets.UTF_8),
+                    tail.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        void write(HttpServletResponse response) throws IOException {
+            String requestId = RequestIdFilter.current();
+            byte[] timestamp = Long.toString(DateTime.now().unix()).getBytes(StandardCharsets.US_ASCII);
+            byte[] id = requestId == null ? NULL : quote(new StringBuilder(requestId.length() + 2), requestId)
+                    .toString().getBytes(StandardCharsets.UTF_8);
+
+            response.setStatus(status);
+            response.setContentType(CONTENT_TYPE);
+            response.setContentLength(head.length + timestamp.length + tail.length + id.length + 1);
+            ServletOutputStream out = response.getOutputStream();
+            out.write(head);
+            out.write(timestamp);
+            out.write(tail);
+            out.write(id);
+            out.write('}');
+            out.flush();
+        }
+    }
+
+    /**
+     * Append the value as a JSON string, escaped the same way as Jackson does.
+     *
+     * @param builder The builder.
+     * @param value   The value, {@code null} is appended as {@code null}.
+     * @return The builder.
+     */
+    private static StringBuilder quote(StringBuilder builder, String value) {
+        if (value == null) {
+            return builder.append("null");
+        }
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                case '\b' -> builder.append("\\b");
+                case '\f' -> builder.append("\\f");
+                default -> {
+                    if (c < 0x20) {
+                        builder.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 15]);
+                    } else {
+                        builder.append(c);
+                    }
+                }
+            }
+        }
+        return builder.append('"');
+    }
+}
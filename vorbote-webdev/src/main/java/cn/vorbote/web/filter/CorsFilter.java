@@ -19,9 +19,6 @@ import java.util.Optional;
 @Slf4j
 public class CorsFilter implements Filter {
 
-    private final static String REGEX_URL =
-            "(https?://(www\\.)?[-a-zA-Z0-9@:%._+~#=]{1,256}\\.[a-zA-Z0-9()]{1,6}\\b([-a-zA-Z0-9()!@:%_+.~#?&/=]*))|(\\*)|(null)";
-
     private final static List<String> ALL_METHODS = Arrays.asList("GET", "HEAD", "POST", "PUT",
             "DELETE", "CONNECT", "OPTIONS", "TRACE", "PATCH");
 
@@ -63,6 +60,19 @@ public class CorsFilter implements Filter {
      */
     private String[] exposeHeaders;
 
+    /**
+     * According to <a href="https://developer.mozilla.org/en-US/docs/Web/HTTP/Headers/Access-Control-Max-Age"
+     * >MDN Docs</a>, this response header indicates how long (in seconds) the results of a preflight request can be
+     * cached. A negative value means the header is not sent.
+     */
+    private long maxAge;
+
+    /**
+     * The compiled configuration, rebuilt whenever the configuration changes. Requests read it once without locking,
+     * and {@link #reconfigure(boolean, String[], String[], String[], String[], long)} swaps it atomically.
+     */
+    private volatile CorsPolicy policy;
+
     /**
      * Generate a DIY cors filter.
      *
@@ -94,11 +104,96 @@ public class CorsFilter implements Filter {
                       String[] allowMethods,
                       String[] allowHeaders,
                       String[] exposeHeaders) {
+        this(allowCredentials, allowOrigin, allowMethods, allowHeaders, exposeHeaders, -1);
+    }
+
+    /**
+     * Generate a DIY cors filter whose preflight results can be cached by browsers.
+     *
+     * @param allowCredentials See {@link #CorsFilter(boolean, String[], String[], String[], String[])}.
+     * @param allowOrigin      See {@link #CorsFilter(boolean, String[], String[], String[], String[])}.
+     * @param allowMethods     See {@link #CorsFilter(boolean, String[], String[], String[], String[])}.
+     * @param allowHeaders     See {@link #CorsFilter(boolean, String[], String[], String[], String[])}.
+     * @param exposeHeaders    See {@link #CorsFilter(boolean, String[], String[], String[], String[])}.
+     * @param maxAge           According to <a href="https://developer.mozilla.org/en-US/docs/Web/HTTP/Headers/Access-Control-Max-Age"
+     *                         >MDN Docs</a>, this response header indicates how long (in seconds) the results of a
+     *                         preflight request can be cached. A negative value means the header is not sent.
+     */
+    public CorsFilter(boolean allowCredentials,
+                      String[] allowOrigin,
+                      String[] allowMethods,
+                      String[] allowHeaders,
+                      String[] exposeHeaders,
+                      long maxAge) {
         this.allowCredentials = allowCredentials;
         this.allowOrigin = allowOrigin;
         this.allowMethods = allowMethods;
         this.allowHeaders = allowHeaders;
         this.exposeHeaders = exposeHeaders;
+        this.maxAge = maxAge;
+        this.policy = compile();
+    }
+
+    /**
+     * Compile the current configuration.
+     *
+     * @return The compiled policy.
+     */
+    private CorsPolicy compile() {
+        return CorsPolicy.builder()
+                .allowCredentials(allowCredentials)
+                .allowOrigin(allowOrigin)
+                .allowMethods(allowMethods)
+                .allowHeaders(allowHeaders)
+                .exposeHeaders(exposeHeaders)
+                .maxAge(maxAge)
+                .build();
+    }
+
+    /**
+     * Replace the configuration at runtime without rebuilding the filter. The new configuration is compiled before
+     * it's applied, so an invalid configuration leaves the current one in effect, and in-flight requests keep using
+     * the policy they have read.
+     *
+     * @param allowCredentials See {@link #CorsFilter(boolean, String[], String[], String[], String[])}.
+     * @param allowOrigin      See {@link #CorsFilter(boolean, String[], String[], String[], String[])}.
+     * @param allowMethods     See {@link #CorsFilter(boolean, String[], String[], String[], String[])}.
+     * @param allowHeaders     See {@link #CorsFilter(boolean, String[], String[], String[], String[])}.
+     * @param exposeHeaders    See {@link #CorsFilter(boolean, String[], String[], String[], String[])}.
+     * @param maxAge           See {@link #CorsFilter(boolean, String[], String[], String[], String[], long)}.
+     * @throws IllegalArgumentException If any origin is malformed.
+     */
+    public synchronized void reconfigure(boolean allowCredentials,
+                                         String[] allowOrigin,
+                                         String[] allowMethods,
+                                         String[] allowHeaders,
+                                         String[] exposeHeaders,
+                                         long maxAge) {
+        CorsPolicy compiled = CorsPolicy.builder()
+                .allowCredentials(allowCredentials)
+                .allowOrigin(allowOrigin)
+                .allowMethods(allowMethods)
+                .allowHeaders(allowHeaders)
+                .exposeHeaders(exposeHeaders)
+                .maxAge(maxAge)
+                .build();
+        this.allowCredentials = allowCredentials;
+        this.allowOrigin = allowOrigin;
+        this.allowMethods = allowMethods;
+        this.allowHeaders = allowHeaders;
+        this.exposeHeaders = exposeHeaders;
+        this.maxAge = maxAge;
+        this.policy = compiled;
+        log.info("CorsFilter reconfigured, allowed origins: {}", Arrays.toString(allowOrigin));
+    }
+
+    /**
+     * Get the compiled configuration.
+     *
+     * @return The compiled policy.
+     */
+    protected CorsPolicy getPolicy() {
+        return policy;
     }
 
     /**
@@ -126,20 +221,8 @@ public class CorsFilter implements Filter {
         return exposeHeaders;
     }
 
-    /**
-     * Transfer {@code String} array to MDN specified format of header value.
-     *
-     * @param array The {@code String} array.
-     * @return A {@code String} with the format of MDN specified header value.
-     */
-    private static String fromArray(String[] array) {
-        StringBuilder builder = new StringBuilder();
-        if (array != null) {
-            for (String item : array) {
-                builder.append(item).append(",");
-            }
-        }
-        return builder.length() != 0 ? builder.substring(0, builder.length() - 1) : "";
+    protected long getMaxAge() {
+        return maxAge;
     }
 
     /**
@@ -155,28 +238,18 @@ public class CorsFilter implements Filter {
         HttpServletRequest request = (HttpServletRequest) servletRequest;
         HttpServletResponse response = (HttpServletResponse) servletResponse;
 
-        String allowedOrigin = "";
-        if (allowOrigin.length > 1) {
-            String origin = Optional.ofNullable(request.getHeader("Origin")).orElse("");
-            if (Arrays.stream(allowOrigin).anyMatch((item) -> item.equalsIgnoreCase(origin))) {
-                allowedOrigin = origin;
-            }
-        } else if (allowOrigin.length == 1) {
-            allowedOrigin = allowOrigin[0];
-        }
-
-        // Handle CORS problem.
-        response.addHeader("Access-Control-Allow-Credentials", String.valueOf(isAllowCredentials()));
-        response.addHeader("Access-Control-Allow-Origin", allowedOrigin);
-        response.addHeader("Access-Control-Allow-Methods", fromArray(getAllowMethods()));
-        response.addHeader("Access-Control-Allow-Headers", fromArray(getAllowHeaders()));
-
-        // Set exposed response headers
-        response.addHeader("Access-Control-Expose-Headers", fromArray(getExposeHeaders()));
+        // Handle CORS problem, all header values have been rendered by the policy.
+        CorsPolicy policy = this.policy;
+        String allowedOrigin = policy.allowedOrigin(request.getHeader("Origin"));
 
-        if ("*".equalsIgnoreCase(allowedOrigin) || "null".equalsIgnoreCase(allowedOrigin)) {
-            response.addHeader("Vary", "Origin");
+        // Answer preflight requests directly, the rest of the filter chain is never touched.
+        if (CorsPolicy.isPreflight(request)) {
+            if (!policy.handlePreflight(request, response, allowedOrigin)) {
+                log.debug("Rejected the preflight request from [{}].", request.getHeader("Origin"));
+            }
+            return;
         }
+        policy.writeHeaders(response, allowedOrigin);
 
         // all xhr requests will send a options request at first, therefore intercept all options requests.
         if (request.getMethod().equalsIgnoreCase("OPTIONS")) {
@@ -208,9 +281,10 @@ public class CorsFilter implements Filter {
                     .orElse(new String[]{});
 
             if (Arrays.stream(tmpAllowOrigin).allMatch((item) -> {
-                boolean checkResult = item.matches(REGEX_URL);
+                // 允许通配子域名与端口范围，例如 https://*.example.com、http://localhost:8000-8999
+                boolean checkResult = OriginMatcher.isValid(item);
                 if (!checkResult) {
-                    log.error("Origin [{}] does not like a web url, consider remove it?", item);
+                    log.error("Origin [{}] is neither a web origin nor an origin pattern, consider remove it?", item);
                 }
                 return checkResult;
             })) {
@@ -248,6 +322,16 @@ public class CorsFilter implements Filter {
                     .map((value) -> value.split(",( )?"))
                     .orElse(new String[]{});
             log.debug("Property [exposeHeaders] initialized, value has been set to {}", Arrays.toString(exposeHeaders));
+
+            // set the property - max age
+            log.debug("Initializing property [maxAge]");
+            this.maxAge = Optional.ofNullable(filterConfig.getInitParameter("maxAge"))
+                    .map(String::trim)
+                    .map(Long::valueOf)
+                    .orElse(-1L);
+            log.debug("Property [maxAge] initialized, value has been set to [{}]", maxAge);
+
+            this.policy = compile();
         } else {
             log.debug("Detected config is from Spring, using application.(yml)/(properties) to deploy.");
         }
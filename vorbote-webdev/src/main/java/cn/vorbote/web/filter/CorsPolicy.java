@@ -0,0 +1,262 @@
+package cn.vorbote.web.filter;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.Builder;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The compiled CORS configuration of {@link CorsFilter}. All header values are rendered once when the policy is built,
+ * and the allowed origins are compiled into an {@link OriginMatcher}, so handling a request costs one walk over the
+ * labels of its origin plus the header writes, whatever the number of allowed origins.
+ * <p>
+ * Preflight requests are validated against the allowed origins, methods and headers and answered with a minimal
+ * response, which carries {@code Access-Control-Max-Age} if it's configured, so browsers can cache the preflight
+ * result.
+ *
+ * @author vorbote
+ */
+public final class CorsPolicy {
+
+    private final String allowCredentials;
+
+    private final String allowMethods;
+
+    private final String allowHeaders;
+
+    private final String exposeHeaders;
+
+    /**
+     * The value of {@code Access-Control-Max-Age}, {@code null} if it's not sent.
+     */
+    private final String maxAge;
+
+    /**
+     * Upper-cased allowed methods, {@code null} if any method is allowed.
+     */
+    private final Set<String> methods;
+
+    /**
+     * Lower-cased allowed headers, {@code null} if any header is allowed.
+     */
+    private final Set<String> headers;
+
+    /**
+     * The configured origin returned for every request, {@code null} if the origin is matched per request.
+     */
+    private final String fixedOrigin;
+
+    /**
+     * The allowed origins, {@code null} if the origin is fixed.
+     */
+    private final OriginMatcher originMatcher;
+
+    /**
+     * Compile the configuration.
+     *
+     * @param allowCredentials The value of {@code Access-Control-Allow-Credentials}.
+     * @param allowOrigin      The allowed origins, see {@link OriginMatcher} for the patterns. If there is exactly one
+     *                         origin which is not a pattern, it's sent to every request as it is, such as {@code *}.
+     *                         {@code *} can't be combined with other origins.
+     * @param allowMethods     The allowed methods.
+     * @param allowHeaders     The allowed headers.
+     * @param exposeHeaders    The exposed headers.
+     * @param maxAge           Seconds the result of a preflight request can be cached, {@code null} or negative if
+     *                         {@code Access-Control-Max-Age} is not sent.
+     * @throws IllegalArgumentException If any origin is malformed, or {@code *} is combined with other origins.
+     */
+    @Builder
+    private CorsPolicy(boolean allowCredentials, String[] allowOrigin, String[] allowMethods, String[] allowHeaders,
+                       String[] exposeHeaders, Long maxAge) {
+        this.allowCredentials = String.valueOf(allowCredentials);
+        this.allowMethods = join(allowMethods);
+        this.allowHeaders = join(allowHeaders);
+        this.exposeHeaders = join(exposeHeaders);
+        this.maxAge = maxAge == null || maxAge < 0 ? null : String.valueOf(maxAge);
+        this.methods = tokens(allowMethods, true);
+        this.headers = tokens(allowHeaders, false);
+
+        String[] origins = allowOrigin == null ? new String[0] : Arrays.stream(allowOrigin)
+                .filter(origin -> origin != null && !origin.isBlank())
+                .map(String::trim)
+                .toArray(String[]::new);
+        if (origins.length == 1 && !OriginMatcher.isPattern(origins[0])) {
+            this.fixedOrigin = origins[0];
+            this.originMatcher = null;
+        } else {
+            this.fixedOrigin = null;
+            this.originMatcher = OriginMatcher.compile(origins);
+        }
+    }
+
+    /**
+     * Transfer {@code String} array to MDN specified format of header value.
+     *
+     * @param array The {@code String} array.
+     * @return A {@code String} with the format of MDN specified header value.
+     */
+    private static String join(String[] array) {
+        return array == null ? "" : String.join(",", array);
+    }
+
+    /**
+     * Collect the configured tokens.
+     *
+     * @param array     The configured tokens.
+     * @param upperCase Whether to upper-case or lower-case the tokens.
+     * @return The tokens, {@code null} if {@code *} is configured.
+     */
+    private static Set<String> tokens(String[] array, boolean upperCase) {
+        Set<String> tokens = new HashSet<>();
+        if (array != null) {
+            for (String item : array) {
+                String token = item.trim();
+                if (token.equals("*")) {
+                    return null;
+                }
+                if (!token.isEmpty()) {
+                    tokens.add(upperCase ? token.toUpperCase(Locale.ROOT) : token.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Get the value of {@code Access-Control-Allow-Origin} of the request origin.
+     *
+     * @param origin The {@code Origin} header of the request, may be {@code null}.
+     * @return The allowed origin, or an empty string if the origin is not allowed.
+     */
+    public String allowedOrigin(String origin) {
+        if (fixedOrigin != null) {
+            return fixedOrigin;
+        }
+        return originMatcher.matches(origin) ? origin : "";
+    }
+
+    /**
+     * Get the compiled allowed origins.
+     *
+     * @return The origin matcher, {@code null} if one fixed origin is sent to every request.
+     */
+    public OriginMatcher getOriginMatcher() {
+        return originMatcher;
+    }
+
+    /**
+     * Whether the allowed origin depends on the request origin, then caches must vary by {@code Origin}.
+     *
+     * @return Value {@code true} if the origin is matched per request.
+     */
+    public boolean isOriginDependent() {
+        return fixedOrigin == null;
+    }
+
+    /**
+     * Write the CORS headers.
+     *
+     * @param response      The response.
+     * @param allowedOrigin The allowed origin got by {@link #allowedOrigin(String)}.
+     */
+    public void writeHeaders(HttpServletResponse response, String allowedOrigin) {
+        response.addHeader("Access-Control-Allow-Credentials", allowCredentials);
+        response.addHeader("Access-Control-Allow-Origin", allowedOrigin);
+        response.addHeader("Access-Control-Allow-Methods", allowMethods);
+        response.addHeader("Access-Control-Allow-Headers", allowHeaders);
+        response.addHeader("Access-Control-Expose-Headers", exposeHeaders);
+
+        if (isOriginDependent() || "*".equals(allowedOrigin) || "null".equalsIgnoreCase(allowedOrigin)) {
+            response.addHeader("Vary", "Origin");
+        }
+    }
+
+    /**
+     * Check whether the request is a CORS preflight request.
+     *
+     * @param request The request.
+     * @return Value {@code true} if it's an {@code OPTIONS} request with {@code Origin} and
+     * {@code Access-Control-Request-Method} headers.
+     */
+    public static boolean isPreflight(HttpServletRequest request) {
+        return "OPTIONS".equalsIgnoreCase(request.getMethod()) && request.getHeader("Origin") != null
+                && request.getHeader("Access-Control-Request-Method") != null;
+    }
+
+    /**
+     * Answer the preflight request. If the origin, the requested method and all requested headers are allowed, the
+     * response is {@code 204 No Content} with the CORS headers, otherwise it's {@code 403 Forbidden} without them.
+     * A fixed origin other than {@code *} is compared with the request origin as well, since it's sent to every
+     * request. Both responses carry {@code Vary: Origin} unless any origin is allowed, so a shared cache never replays
+     * the answer of one origin to another.
+     *
+     * @param request       The preflight request.
+     * @param response      The response.
+     * @param allowedOrigin The allowed origin got by {@link #allowedOrigin(String)}.
+     * @return Value {@code true} if the preflight request is accepted.
+     */
+    public boolean handlePreflight(HttpServletRequest request, HttpServletResponse response, String allowedOrigin) {
+        if (!"*".equals(fixedOrigin)) {
+            response.addHeader("Vary", "Origin");
+        }
+        if (allowedOrigin.isEmpty() || !isFixedOriginAllowed(request.getHeader("Origin"))
+                || !isMethodAllowed(request.getHeader("Access-Control-Request-Method"))
+                || !areHeadersAllowed(request.getHeader("Access-Control-Request-Headers"))) {
+            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            return false;
+        }
+        response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+        response.addHeader("Access-Control-Allow-Credentials", allowCredentials);
+        response.addHeader("Access-Control-Allow-Origin", allowedOrigin);
+        response.addHeader("Access-Control-Allow-Methods", allowMethods);
+        response.addHeader("Access-Control-Allow-Headers", allowHeaders);
+        if (maxAge != null) {
+            response.addHeader("Access-Control-Max-Age", maxAge);
+        }
+        return true;
+    }
+
+    /**
+     * Check the request origin against the fixed origin, origins matched per request are already checked by
+     * {@link #allowedOrigin(String)}.
+     */
+    private boolean isFixedOriginAllowed(String origin) {
+        return fixedOrigin == null || "*".equals(fixedOrigin) || fixedOrigin.equalsIgnoreCase(origin);
+    }
+
+    /**
+     * Check the method of {@code Access-Control-Request-Method}, the CORS-safelisted methods are always allowed.
+     */
+    private boolean isMethodAllowed(String method) {
+        String upper = method.trim().toUpperCase(Locale.ROOT);
+        return methods == null || methods.contains(upper)
+                || upper.equals("GET") || upper.equals("HEAD") || upper.equals("POST");
+    }
+
+    /**
+     * Check the comma separated header names of {@code Access-Control-Request-Headers}.
+     */
+    private boolean areHeadersAllowed(String requested) {
+        if (headers == null || requested == null) {
+            return true;
+        }
+        int start = 0;
+        int length = requested.length();
+        while (start < length) {
+            int end = requested.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            String header = requested.substring(start, end).trim();
+            if (!header.isEmpty() && !headers.contains(header.toLowerCase(Locale.ROOT))) {
+                return false;
+            }
+            start = end + 1;
+        }
+        return true;
+    }
+}
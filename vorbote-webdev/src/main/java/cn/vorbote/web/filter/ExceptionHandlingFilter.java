@@ -0,0 +1,81 @@
+package cn.vorbote.web.filter;
+
+import cn.vorbote.web.exceptions.ErrorResponseWriter;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+
+/**
+ * Global exception handling filter. Exceptions escaping the rest of the chain, including the ones wrapped in
+ * {@link ServletException} by the dispatcher, are answered by {@link ErrorResponseWriter} with a
+ * {@link cn.vorbote.web.model.ResponseResult ResponseResult} body, instead of the error page of the container.
+ * <p>
+ * Business exceptions and mapped exceptions are logged at debug level, other exceptions are logged as errors with
+ * their stack traces. Exceptions thrown after the response is committed can't be answered and are rethrown.
+ *
+ * @author vorbote
+ */
+@Slf4j
+public class ExceptionHandlingFilter implements Filter {
+
+    private final ErrorResponseWriter writer;
+
+    /**
+     * Create a filter.
+     *
+     * @param writer The writer of error responses.
+     */
+    public ExceptionHandlingFilter(@NonNull ErrorResponseWriter writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+        try {
+            chain.doFilter(request, response);
+        } catch (ServletException | RuntimeException e) {
+            Throwable cause = unwrap(e);
+            if (response.isCommitted()) {
+                throw e;
+            }
+            if (writer.isHandled(cause)) {
+                log.debug("Request {} {} failed: {}", request.getMethod(), request.getRequestURI(), cause.toString());
+            } else {
+                log.error("Request {} {} failed.", request.getMethod(), request.getRequestURI(), cause);
+            }
+            response.resetBuffer();
+            writer.write(response, cause);
+        }
+    }
+
+    /**
+     * Get the exception wrapped by the dispatcher.
+     *
+     * @param e The caught exception.
+     * @return The innermost cause of nested {@link ServletException}s.
+     */
+    private static Throwable unwrap(Throwable e) {
+        Throwable cause = e;
+        while (cause instanceof ServletException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        log.info("ExceptionHandlingFilter initializing...");
+    }
+
+    @Override
+    public void destroy() {
+        log.info("ExceptionHandlingFilter destroyed...");
+    }
+}
@@ -0,0 +1,153 @@
+package cn.vorbote.web.filter;
+
+import cn.vorbote.simplejwt.AccessKeyUtil;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+
+/**
+ * JWT authentication filter. The bearer token in the {@code Authorization} header is verified once per request by
+ * {@link AccessKeyUtil}, which shares its verified-token cache with every other caller, and the decoded token is
+ * stored as a request attribute, so handlers get the principal by {@link #getPrincipal(HttpServletRequest)} instead
+ * of parsing the header again.
+ * <p>
+ * Requests whose paths match the excluded patterns and CORS preflight requests are passed without a token. Other
+ * requests without a valid token are answered with {@code 401 Unauthorized}.
+ *
+ * @author vorbote
+ */
+@Slf4j
+public class JwtAuthenticationFilter implements Filter {
+
+    /**
+     * Name of the request attribute holding the verified {@link DecodedJWT}.
+     */
+    public static final String PRINCIPAL_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".PRINCIPAL";
+
+    private static final String BEARER = "Bearer ";
+
+    private final AccessKeyUtil accessKeyUtil;
+
+    private final PathPatterns excludes;
+
+    private final String headerName;
+
+    /**
+     * Create a filter reading the token from the {@code Authorization} header.
+     *
+     * @param accessKeyUtil The token util.
+     * @param excludes      Paths which don't need a token.
+     */
+    public JwtAuthenticationFilter(AccessKeyUtil accessKeyUtil, PathPatterns excludes) {
+        this(accessKeyUtil, excludes, "Authorization");
+    }
+
+    /**
+     * Create a filter.
+     *
+     * @param accessKeyUtil The token util.
+     * @param excludes      Paths which don't need a token.
+     * @param headerName    The header carrying the token, the {@code Bearer} prefix is optional.
+     */
+    public JwtAuthenticationFilter(@NonNull AccessKeyUtil accessKeyUtil, @NonNull PathPatterns excludes,
+                                   @NonNull String headerName) {
+        this.accessKeyUtil = accessKeyUtil;
+        this.excludes = excludes;
+        this.headerName = headerName;
+    }
+
+    /**
+     * Get the verified token of the request.
+     *
+     * @param request The request.
+     * @return The verified token, or {@code null} if the request is not authenticated by this filter.
+     */
+    public static DecodedJWT getPrincipal(ServletRequest request) {
+        return request.getAttribute(PRINCIPAL_ATTRIBUTE) instanceof DecodedJWT jwt ? jwt : null;
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+
+        // 转发、包含等二次分派时已验证过，不再重复验证
+        if (request.getAttribute(PRINCIPAL_ATTRIBUTE) != null || CorsPolicy.isPreflight(request)
+                || excludes.matches(path(request))) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String token = token(request.getHeader(headerName));
+        if (token == null) {
+            unauthorized(response, null);
+            return;
+        }
+        DecodedJWT jwt;
+        try {
+            jwt = accessKeyUtil.info(token);
+        } catch (JWTVerificationException e) {
+            log.debug("Rejected the token of {} {}: {}", request.getMethod(), request.getRequestURI(), e.getMessage());
+            unauthorized(response, "invalid_token");
+            return;
+        }
+        request.setAttribute(PRINCIPAL_ATTRIBUTE, jwt);
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Get the path of the request within the application. The servlet path and the path info are decoded and
+     * normalized by the container, unlike the raw request URI, so {@code /public/../admin} or
+     * {@code /public/..;/admin} can't match an excluded {@code /public/**} while being routed to {@code /admin}.
+     *
+     * @param request The request.
+     * @return The servlet path followed by the path info.
+     */
+    private static String path(HttpServletRequest request) {
+        String servletPath = request.getServletPath();
+        String pathInfo = request.getPathInfo();
+        if (servletPath == null) {
+            servletPath = "";
+        }
+        return pathInfo == null ? servletPath : servletPath + pathInfo;
+    }
+
+    /**
+     * Strip the {@code Bearer} prefix of the header value.
+     *
+     * @param header The header value.
+     * @return The token, {@code null} if it's absent.
+     */
+    private static String token(String header) {
+        if (header == null) {
+            return null;
+        }
+        String token = header.regionMatches(true, 0, BEARER, 0, BEARER.length())
+                ? header.substring(BEARER.length())
+                : header;
+        token = token.trim();
+        return token.isEmpty() ? null : token;
+    }
+
+    private static void unauthorized(HttpServletResponse response, String error) {
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.setHeader("WWW-Authenticate", error == null ? "Bearer" : "Bearer error=\"" + error + "\"");
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        log.info("JwtAuthenticationFilter initializing, excluded paths: {}", excludes);
+    }
+
+    @Override
+    public void destroy() {
+        log.info("JwtAuthenticationFilter destroyed...");
+    }
+}
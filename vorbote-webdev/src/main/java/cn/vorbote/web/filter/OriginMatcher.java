@@ -0,0 +1,298 @@
+package cn.vorbote.web.filter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A compiled set of allowed origins. Origins are written as {@code scheme://host[:port]}, and besides exact origins,
+ * the patterns below are supported:
+ * <ul>
+ *     <li>{@code https://*.tenant.example.com} allows all subdomains of {@code tenant.example.com} in any depth, but
+ *     not {@code tenant.example.com} itself;</li>
+ *     <li>{@code http://localhost:8000-8999} allows the ports in the range;</li>
+ *     <li>{@code http://localhost:*} allows any port, or no port at all;</li>
+ *     <li>{@code *} allows any origin, it can't be combined with other origins, since echoing every origin back
+ *     together with credentials would be a credentialed wildcard;</li>
+ *     <li>{@code null} allows the literal origin {@code null}.</li>
+ * </ul>
+ * All origins are compiled into one trie of reversed host labels ({@code com -> example -> tenant}) under the
+ * scheme, so matching walks the labels of the request origin once, and takes time proportional to the length of the
+ * origin, not to the number of allowed origins. Origins are matched case-insensitively.
+ *
+ * @author vorbote
+ */
+public final class OriginMatcher {
+
+    /**
+     * The port of an origin without an explicit port.
+     */
+    private static final int NO_PORT = -1;
+
+    /**
+     * The roots of the trie by scheme.
+     */
+    private final Map<String, Node> schemes = new HashMap<>();
+
+    private final String[] origins;
+
+    /**
+     * Whether the literal origin {@code null} is allowed.
+     */
+    private boolean nullOrigin;
+
+    /**
+     * Whether any origin is allowed.
+     */
+    private boolean any;
+
+    private int size;
+
+    private OriginMatcher(String[] origins) {
+        this.origins = origins;
+    }
+
+    /**
+     * Compile the allowed origins.
+     *
+     * @param origins The allowed origins and origin patterns, blank ones are ignored.
+     * @return The compiled matcher.
+     * @throws IllegalArgumentException If any origin is malformed, or {@code *} is combined with other origins.
+     */
+    public static OriginMatcher compile(String... origins) {
+        OriginMatcher matcher = new OriginMatcher(origins == null ? new String[0] : origins.clone());
+        for (String origin : matcher.origins) {
+            if (origin != null && !origin.isBlank()) {
+                matcher.add(origin.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        if (matcher.any && matcher.size > 1) {
+            throw new IllegalArgumentException("Origin [*] can't be combined with other origins.");
+        }
+        return matcher;
+    }
+
+    /**
+     * Check whether the origin is an allowed origin or a valid origin pattern.
+     *
+     * @param origin The origin.
+     * @return Value {@code true} if it can be compiled.
+     */
+    public static boolean isValid(String origin) {
+        try {
+            new OriginMatcher(new String[0]).add(origin.trim().toLowerCase(Locale.ROOT));
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Check whether the origin contains a wildcard or a port range, such an origin can't be sent as the value of
+     * {@code Access-Control-Allow-Origin}.
+     *
+     * @param origin The origin.
+     * @return Value {@code true} if it's a pattern.
+     */
+    public static boolean isPattern(String origin) {
+        int hostStart = origin.indexOf("://");
+        if (hostStart < 0) {
+            return false;
+        }
+        int colon = origin.lastIndexOf(':');
+        return origin.indexOf('*', hostStart) >= 0 || colon > hostStart && origin.indexOf('-', colon) >= 0;
+    }
+
+    private void add(String origin) {
+        if (origin.endsWith("/")) {
+            origin = origin.substring(0, origin.length() - 1);
+        }
+        int hostStart = origin.indexOf("://");
+        if (hostStart < 0) {
+            if (origin.equals("null")) {
+                nullOrigin = true;
+            } else if (origin.equals("*")) {
+                any = true;
+            } else {
+                throw new IllegalArgumentException(String.format("Origin [%s] has no scheme.", origin));
+            }
+            size++;
+            return;
+        }
+        String scheme = origin.substring(0, hostStart);
+        if (scheme.isEmpty() || !scheme.chars().allMatch(c -> c >= 'a' && c <= 'z' || c >= '0' && c <= '9'
+                || c == '+' || c == '-' || c == '.')) {
+            throw new IllegalArgumentException(String.format("Origin [%s] has an invalid scheme.", origin));
+        }
+
+        String authority = origin.substring(hostStart + 3);
+        int colon = authority.lastIndexOf(':');
+        String host = colon < 0 ? authority : authority.substring(0, colon);
+        int[] ports = colon < 0 ? new int[]{NO_PORT, NO_PORT} : parsePorts(origin, authority.substring(colon + 1));
+
+        boolean wildcard = host.startsWith("*.");
+        if (wildcard) {
+            host = host.substring(2);
+        }
+        String[] labels = host.split("\\.", -1);
+        Node node = schemes.computeIfAbsent(scheme, k -> new Node());
+        for (int i = labels.length - 1; i >= 0; i--) {
+            String label = labels[i];
+            if (label.isEmpty() || !label.chars().allMatch(c -> c >= 'a' && c <= 'z' || c >= '0' && c <= '9'
+                    || c == '-' || c == '_')) {
+                throw new IllegalArgumentException(String.format("Origin [%s] has an invalid host.", origin));
+            }
+            node = node.children.computeIfAbsent(label, k -> new Node());
+        }
+        if (wildcard) {
+            node.subdomainPorts = Ports.add(node.subdomainPorts, ports[0], ports[1]);
+        } else {
+            node.ports = Ports.add(node.ports, ports[0], ports[1]);
+        }
+        size++;
+    }
+
+    /**
+     * Parse the port part of an origin.
+     *
+     * @return The range of ports, {@code *} is the range from {@link #NO_PORT} to 65535.
+     */
+    private static int[] parsePorts(String origin, String port) {
+        try {
+            if (port.equals("*")) {
+                return new int[]{NO_PORT, 65535};
+            }
+            int dash = port.indexOf('-');
+            int from = Integer.parseInt(dash < 0 ? port : port.substring(0, dash));
+            int to = dash < 0 ? from : Integer.parseInt(port.substring(dash + 1));
+            if (from >= 0 && from <= to && to <= 65535) {
+                return new int[]{from, to};
+            }
+        } catch (NumberFormatException ignored) {
+            // 端口格式错误，由下方统一抛出
+        }
+        throw new IllegalArgumentException(String.format("Origin [%s] has an invalid port.", origin));
+    }
+
+    /**
+     * Check whether the origin is allowed.
+     *
+     * @param origin The {@code Origin} header of the request, may be {@code null}.
+     * @return Value {@code true} if it's allowed.
+     */
+    public boolean matches(String origin) {
+        if (origin == null || origin.isEmpty()) {
+            return false;
+        }
+        if (any) {
+            return true;
+        }
+        String lower = origin.toLowerCase(Locale.ROOT);
+        int hostStart = lower.indexOf("://");
+        if (hostStart < 0) {
+            return nullOrigin && lower.equals("null");
+        }
+        Node node = schemes.get(lower.substring(0, hostStart));
+        if (node == null) {
+            return false;
+        }
+
+        // region 解析端口
+        int hostEnd = lower.length();
+        int port = NO_PORT;
+        int colon = lower.lastIndexOf(':');
+        if (colon > hostStart) {
+            port = 0;
+            for (int i = colon + 1; i < lower.length(); i++) {
+                char c = lower.charAt(i);
+                if (c < '0' || c > '9' || port > 65535) {
+                    return false;
+                }
+                port = port * 10 + (c - '0');
+            }
+            hostEnd = colon;
+        }
+        // endregion
+
+        // 自右向左逐个标签下降，经过的节点若允许任意子域名且仍有剩余标签，即可匹配
+        int end = hostEnd;
+        int hostBegin = hostStart + 3;
+        while (end > hostBegin) {
+            int dot = lower.lastIndexOf('.', end - 1);
+            int start = Math.max(dot + 1, hostBegin);
+            node = node.children.get(lower.substring(start, end));
+            if (node == null) {
+                return false;
+            }
+            if (start > hostBegin && Ports.allows(node.subdomainPorts, port)) {
+                return true;
+            }
+            end = start - 1;
+        }
+        return Ports.allows(node.ports, port);
+    }
+
+    /**
+     * Get the count of compiled origins.
+     *
+     * @return The count of compiled origins.
+     */
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "OriginMatcher" + (origins.length > 16 ? "(" + size + " origins)" : Arrays.toString(origins));
+    }
+
+    /**
+     * A node of the trie, it represents the host made of the labels on the path from the root.
+     */
+    private static final class Node {
+
+        private final Map<String, Node> children = new HashMap<>(4);
+
+        /**
+         * Ports allowed for this host, {@code null} if this host is not allowed.
+         */
+        private int[] ports;
+
+        /**
+         * Ports allowed for the subdomains of this host, {@code null} if they are not allowed.
+         */
+        private int[] subdomainPorts;
+    }
+
+    /**
+     * Port sets stored as arrays of inclusive ranges {@code [from0, to0, from1, to1, ...]}.
+     */
+    private static final class Ports {
+
+        private Ports() {
+        }
+
+        static int[] add(int[] ports, int from, int to) {
+            if (ports == null) {
+                return new int[]{from, to};
+            }
+            int[] added = Arrays.copyOf(ports, ports.length + 2);
+            added[ports.length] = from;
+            added[ports.length + 1] = to;
+            return added;
+        }
+
+        static boolean allows(int[] ports, int port) {
+            if (ports == null) {
+                return false;
+            }
+            for (int i = 0; i < ports.length; i += 2) {
+                if (port >= ports[i] && port <= ports[i + 1]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package cn.vorbote.web.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * A set of ant-style path patterns compiled once for fast matching. {@code *} matches any characters within one path
+ * segment and {@code **} matches any number of segments.
+ * <p>
+ * Patterns are split by their shapes: exact paths go into a hash set, {@code /prefix/**} patterns go into another
+ * hash set which is probed once per segment of the path, and only the rest are joined into a single regular
+ * expression. So matching a path costs a few hash lookups, whatever the number of patterns.
+ *
+ * @author vorbote
+ */
+public final class PathPatterns {
+
+    /**
+     * Patterns matching nothing.
+     */
+    public static final PathPatterns NONE = new PathPatterns(new String[0]);
+
+    private final String[] patterns;
+
+    private final Set<String> exact = new HashSet<>();
+
+    /**
+     * Prefixes of {@code /prefix/**} patterns, without the trailing {@code /**}.
+     */
+    private final Set<String> prefixes = new HashSet<>();
+
+    private final boolean matchAll;
+
+    /**
+     * All other patterns joined into one expression, {@code null} if there is none.
+     */
+    private final Pattern others;
+
+    private PathPatterns(String[] patterns) {
+        this.patterns = patterns;
+        boolean all = false;
+        List<String> regexes = new ArrayList<>();
+        for (String pattern : patterns) {
+            if (pattern == null || pattern.isBlank()) {
+                continue;
+            }
+            String p = pattern.trim();
+            if (!p.startsWith("/")) {
+                p = "/" + p;
+            }
+            if (p.equals("/**")) {
+                all = true;
+            } else if (p.endsWith("/**") && p.indexOf('*') == p.length() - 2) {
+                prefixes.add(p.substring(0, p.length() - 3));
+            } else if (p.indexOf('*') < 0) {
+                exact.add(p);
+            } else {
+                regexes.add(toRegex(p));
+            }
+        }
+        this.matchAll = all;
+        this.others = regexes.isEmpty() ? null : Pattern.compile(String.join("|", regexes));
+    }
+
+    /**
+     * Compile the patterns.
+     *
+     * @param patterns The ant-style path patterns, blank patterns are ignored.
+     * @return The compiled patterns.
+     */
+    public static PathPatterns compile(String... patterns) {
+        return patterns == null || patterns.length == 0 ? NONE : new PathPatterns(patterns.clone());
+    }
+
+    /**
+     * Check whether the path matches any pattern.
+     *
+     * @param path The path, such as the request URI without the context path.
+     * @return Value {@code true} if any pattern matches.
+     */
+    public boolean matches(String path) {
+        if (matchAll) {
+            return true;
+        }
+        if (exact.contains(path)) {
+            return true;
+        }
+        if (!prefixes.isEmpty()) {
+            // 逐级检查路径的每个前缀，例如 /a/b/c 依次检查 /a/b/c、/a/b、/a
+            int end = path.length();
+            while (end > 0) {
+                if (prefixes.contains(path.substring(0, end))) {
+                    return true;
+                }
+                end = path.lastIndexOf('/', end - 1);
+            }
+        }
+        return others != null && others.matcher(path).matches();
+    }
+
+    /**
+     * Translate an ant-style pattern to a regular expression.
+     *
+     * @param pattern The pattern.
+     * @return The regular expression.
+     */
+    private static String toRegex(String pattern) {
+        StringBuilder regex = new StringBuilder("(?:");
+        int length = pattern.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            if (pattern.charAt(i) != '*') {
+                continue;
+            }
+            if (i > start) {
+                regex.append(Pattern.quote(pattern.substring(start, i)));
+            }
+            if (i + 1 < length && pattern.charAt(i + 1) == '*') {
+                // "/**/" 也匹配零个路径段
+                if (i + 2 < length && pattern.charAt(i + 2) == '/' && pattern.charAt(i - 1) == '/') {
+                    regex.append("(?:.*/)?");
+                    i += 2;
+                } else {
+                    regex.append(".*");
+                    i++;
+                }
+            } else {
+                regex.append("[^/]*");
+            }
+            start = i + 1;
+        }
+        if (start < length) {
+            regex.append(Pattern.quote(pattern.substring(start)));
+        }
+        return regex.append(')').toString();
+    }
+
+    @Override
+    public String toString() {
+        return "PathPatterns" + Arrays.toString(patterns);
+    }
+}
@@ -0,0 +1,201 @@
+package cn.vorbote.web.filter;
+
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+
+import java.io.IOException;
+import java.util.function.LongSupplier;
+
+/**
+ * Request id filter. Each request gets an id, which is the incoming {@code X-Request-Id} header if the client or the
+ * gateway sent a well-formed one, otherwise a new {@code long} id such as a SnowFlake id encoded into 13 Crockford
+ * base-32 characters. The id is encoded only once per request, and the same string is then
+ * <ul>
+ *     <li>put into the SLF4J {@link MDC}, so every log line of the request carries it;</li>
+ *     <li>stored as a request attribute, see {@link #getRequestId(ServletRequest)};</li>
+ *     <li>bound to the current thread, see {@link #current()}, every
+ *     {@link cn.vorbote.web.model.ResponseResult ResponseResult} created by the request is stamped with it;</li>
+ *     <li>echoed in the response header.</li>
+ * </ul>
+ * Register this filter before the other filters, so their logs carry the id as well.
+ *
+ * @author vorbote
+ */
+@Slf4j
+public class RequestIdFilter implements Filter {
+
+    /**
+     * Name of the request attribute holding the request id.
+     */
+    public static final String REQUEST_ID_ATTRIBUTE = RequestIdFilter.class.getName() + ".REQUEST_ID";
+
+    /**
+     * The default header carrying the request id.
+     */
+    public static final String DEFAULT_HEADER = "X-Request-Id";
+
+    /**
+     * The default key of the request id in the {@link MDC}.
+     */
+    public static final String DEFAULT_MDC_KEY = "requestId";
+
+    /**
+     * Incoming ids longer than this are replaced by generated ones.
+     */
+    private static final int MAX_INCOMING_LENGTH = 64;
+
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private final LongSupplier idGenerator;
+
+    private final String headerName;
+
+    private final String mdcKey;
+
+    private final boolean trustIncoming;
+
+    /**
+     * Create a filter using the {@code X-Request-Id} header and the {@code requestId} MDC key, which accepts incoming
+     * ids.
+     *
+     * @param idGenerator The id generator, such as {@code snowFlake::nextId}.
+     */
+    public RequestIdFilter(LongSupplier idGenerator) {
+        this(idGenerator, DEFAULT_HEADER, DEFAULT_MDC_KEY, true);
+    }
+
+    /**
+     * Create a filter.
+     *
+     * @param idGenerator   The id generator, such as {@code snowFlake::nextId}.
+     * @param headerName    The header carrying the request id in both directions.
+     * @param mdcKey        The key of the request id in the {@link MDC}.
+     * @param trustIncoming Whether to accept the id in the request header, set this to {@code false} if the
+     *                      application is exposed to clients directly.
+     */
+    public RequestIdFilter(@NonNull LongSupplier idGenerator, @NonNull String headerName, @NonNull String mdcKey,
+                           boolean trustIncoming) {
+        this.idGenerator = idGenerator;
+        this.headerName = headerName;
+        this.mdcKey = mdcKey;
+        this.trustIncoming = trustIncoming;
+    }
+
+    /**
+     * Get the request id bound to the current thread.
+     *
+     * @return The request id, or {@code null} if the current thread is not handling a request through this filter.
+     */
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Get the request id of the request.
+     *
+     * @param request The request.
+     * @return The request id, or {@code null} if the request didn't pass this filter.
+     */
+    public static String getRequestId(ServletRequest request) {
+        return request.getAttribute(REQUEST_ID_ATTRIBUTE) instanceof String id ? id : null;
+    }
+
+    /**
+     * Encode an id into 13 Crockford base-32 characters. The encoded ids of non-negative values have the same order as
+     * the values, so ids of SnowFlake generators still sort by time.
+     *
+     * @param id The id.
+     * @return The encoded id.
+     */
+    public static String encode(long id) {
+        char[] chars = new char[13];
+        // 13 个字符共 65 位，首字符只取最高的 4 位
+        for (int i = chars.length - 1; i > 0; i--) {
+            chars[i] = CROCKFORD[(int) (id & 31)];
+            id >>>= 5;
+        }
+        chars[0] = CROCKFORD[(int) (id & 15)];
+        return new String(chars);
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+
+        // 转发、包含、异步等二次分派沿用首次分派的请求编号
+        String requestId = getRequestId(request);
+        if (requestId == null) {
+            requestId = trustIncoming ? incoming(request.getHeader(headerName)) : null;
+            if (requestId == null) {
+                requestId = encode(idGenerator.getAsLong());
+            }
+            request.setAttribute(REQUEST_ID_ATTRIBUTE, requestId);
+            response.setHeader(headerName, requestId);
+        }
+
+        String previous = CURRENT.get();
+        String previousMdc = MDC.get(mdcKey);
+        CURRENT.set(requestId);
+        MDC.put(mdcKey, requestId);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            restore(previous, previousMdc);
+        }
+    }
+
+    /**
+     * Restore the thread state before this filter, so no id leaks to the next request handled by the pooled thread.
+     */
+    private void restore(String previous, String previousMdc) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+        if (previousMdc == null) {
+            MDC.remove(mdcKey);
+        } else {
+            MDC.put(mdcKey, previousMdc);
+        }
+    }
+
+    /**
+     * Check the incoming id. Only short ids made of letters, digits, {@code -}, {@code _}, {@code .} and {@code :} are
+     * accepted, so a forged header can't inject anything into logs or response headers.
+     *
+     * @param header The header value.
+     * @return The incoming id, or {@code null} if it's absent or malformed.
+     */
+    private static String incoming(String header) {
+        if (header == null || header.isEmpty() || header.length() > MAX_INCOMING_LENGTH) {
+            return null;
+        }
+        for (int i = 0; i < header.length(); i++) {
+            char c = header.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9'
+                    || c == '-' || c == '_' || c == '.' || c == ':')) {
+                return null;
+            }
+        }
+        return header;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        log.info("RequestIdFilter initializing, header: {}, MDC key: {}.", headerName, mdcKey);
+    }
+
+    @Override
+    public void destroy() {
+        log.info("RequestIdFilter destroyed...");
+    }
+}
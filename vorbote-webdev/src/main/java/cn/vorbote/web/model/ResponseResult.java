@@ -1,6 +1,7 @@
 package cn.vorbote.web.model;
 
 import cn.vorbote.core.time.DateTime;
+import cn.vorbote.web.filter.RequestIdFilter;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -139,10 +140,12 @@ public final class ResponseResult<T> {
 
     // region Constructors
     /**
-     * Generate a new Response Result instance.
+     * Generate a new Response Result instance, it's stamped with the id of the current request if the request passed
+     * {@link RequestIdFilter}.
      */
     public ResponseResult() {
         this.timestamp = DateTime.now().unix();
+        this.requestId = RequestIdFilter.current();
     }
     // endregion
 
@@ -745,4 +745,189 @@ public final class BizAssert {
         notEmpty(map, HttpServletResponse.SC_BAD_REQUEST, getValueFromSupplier(messageSupplier));
     }
 
+    // region Assertions throwing a given exception
+    /**
+     * Assert a boolean expression, throwing the given {@code BizException} if the expression evaluates to
+     * {@code false}.
+     *
+     * @param expression a boolean expression
+     * @param exception  the exception to throw if the assertion fails, such as one got by
+     *                   {@link BizException#constant(int, String)}
+     * @throws BizException if {@code expression} is {@code false}
+     */
+    public static void state(boolean expression, BizException exception) {
+        if (!expression) {
+            throw exception;
+        }
+    }
+
+    /**
+     * Assert a boolean expression, throwing the given {@link BizException} if the expression evaluates to
+     * {@code false}.
+     *
+     * @param expression a boolean expression
+     * @param exception  the exception to throw if the assertion fails, such as one got by
+     *                   {@link BizException#constant(int, String)}
+     * @throws BizException if {@code expression} is {@code false}
+     */
+    public static void isTrue(boolean expression, BizException exception) {
+        if (!expression) {
+            throw exception;
+        }
+    }
+
+    /**
+     * Assert that an object is {@code null}.
+     *
+     * @param object    the object to check
+     * @param exception the exception to throw if the assertion fails, such as one got by
+     *                  {@link BizException#constant(int, String)}
+     * @throws BizException if the object is not {@code null}
+     */
+    public static void isNull(Object object, BizException exception) {
+        if (object != null) {
+            throw exception;
+        }
+    }
+
+    /**
+     * Assert that an object is not {@code null}.
+     *
+     * @param object    the object to check
+     * @param exception the exception to throw if the assertion fails, such as one got by
+     *                  {@link BizException#constant(int, String)}
+     * @throws BizException if the object is {@code null}
+     */
+    public static void notNull(Object object, BizException exception) {
+        if (object == null) {
+            throw exception;
+        }
+    }
+
+    /**
+     * Assert that the given String is not empty; that is, it must not be {@code null} and not the empty String.
+     *
+     * @param text      the String to check
+     * @param exception the exception to throw if the assertion fails, such as one got by
+     *                  {@link BizException#constant(int, String)}
+     * @throws BizException if the text is empty
+     */
+    public static void hasLength(String text, BizException exception) {
+        if (!StringUtil.hasLength(text)) {
+            throw exception;
+        }
+    }
+
+    /**
+     * Assert that the given String contains valid text content; that is, it must not be {@code null} and must contain
+     * at least one non-whitespace character.
+     *
+     * @param text      the String to check
+     * @param exception the exception to throw if the assertion fails, such as one got by
+     *                  {@link BizException#constant(int, String)}
+     * @throws BizException if the text does not contain valid text content
+     */
+    public static void hasText(String text, BizException exception) {
+        if (!StringUtil.hasText(text)) {
+            throw exception;
+        }
+    }
+
+    /**
+     * Assert that the given text does not contain the given substring.
+     *
+     * @param textToSearch the text to search
+     * @param substring    the substring to find within the text
+     * @param exception    the exception to throw if the assertion fails, such as one got by
+     *                     {@link BizException#constant(int, String)}
+     * @throws BizException if the text contains the substring
+     */
+    public static void doesNotContain(String textToSearch, String substring, BizException exception) {
+        if (StringUtil.hasLength(textToSearch) && StringUtil.hasLength(substring) &&
+                textToSearch.contains(substring)) {
+            throw exception;
+        }
+    }
+
+    /**
+     * Assert that an array contains elements; that is, it must not be {@code null} and must contain at least one
+     * element.
+     *
+     * @param array     the array to check
+     * @param exception the exception to throw if the assertion fails, such as one got by
+     *                  {@link BizException#constant(int, String)}
+     * @throws BizException if the object array is {@code null} or contains no elements
+     */
+    public static void notEmpty(Object[] array, BizException exception) {
+        if (ObjectUtil.isEmpty(array)) {
+            throw exception;
+        }
+    }
+
+    /**
+     * Assert that an array contains no {@code null} elements.
+     *
+     * @param array     the array to check
+     * @param exception the exception to throw if the assertion fails, such as one got by
+     *                  {@link BizException#constant(int, String)}
+     * @throws BizException if the object array contains a {@code null} element
+     */
+    public static void noNullElements(Object[] array, BizException exception) {
+        if (array != null) {
+            for (var element : array) {
+                if (element == null) {
+                    throw exception;
+                }
+            }
+        }
+    }
+
+    /**
+     * Assert that a collection contains elements; that is, it must not be {@code null} and must contain at least one
+     * element.
+     *
+     * @param collection the collection to check
+     * @param exception  the exception to throw if the assertion fails, such as one got by
+     *                   {@link BizException#constant(int, String)}
+     * @throws BizException if the collection is {@code null} or contains no elements
+     */
+    public static void notEmpty(Collection<?> collection, BizException exception) {
+        if (CollectionUtil.isEmpty(collection)) {
+            throw exception;
+        }
+    }
+
+    /**
+     * Assert that a collection contains no {@code null} elements.
+     *
+     * @param collection the collection to check
+     * @param exception  the exception to throw if the assertion fails, such as one got by
+     *                   {@link BizException#constant(int, String)}
+     * @throws BizException if the collection contains a {@code null} element
+     */
+    public static void noNullElements(Collection<?> collection, BizException exception) {
+        if (collection != null) {
+            for (var element : collection) {
+                if (element == null) {
+                    throw exception;
+                }
+            }
+        }
+    }
+
+    /**
+     * Assert that a Map contains entries; that is, it must not be {@code null} and must contain at least one entry.
+     *
+     * @param map       the map to check
+     * @param exception the exception to throw if the assertion fails, such as one got by
+     *                  {@link BizException#constant(int, String)}
+     * @throws BizException if the map is {@code null} or contains no entries
+     */
+    public static void notEmpty(Map<?, ?> map, BizException exception) {
+        if (CollectionUtil.isEmpty(map)) {
+            throw exception;
+        }
+    }
+    // endregion
+
 }